@@ -0,0 +1,130 @@
+package com.cloudhumans.chatbot.benchmark;
+
+import com.cloudhumans.chatbot.ChatbotApplication;
+import com.cloudhumans.chatbot.StubBackendServer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * POST /chat ponta a ponta (ChatController + pipeline completo) contra o StubBackendServer em processo.
+ * Cada thread JMH é um cliente; o main repete a execução para cada nível de concorrência e grava
+ * throughput e percentis (p0.50, p0.99) em target/e2e-c{N}.json:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.cloudhumans.chatbot.benchmark.ChatEndToEndBenchmark \
+ *     -Djmh.args="1,16,64 -p chatLatencyMs=200"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ChatEndToEndBenchmark {
+
+    @Param({"blocking", "async"})
+    public String pipelineMode;
+
+    @Param({"vector", "hybrid"})
+    public String retrievalMode;
+
+    @Param({"20"})
+    public int embeddingLatencyMs;
+
+    @Param({"20"})
+    public int searchLatencyMs;
+
+    @Param({"100"})
+    public int chatLatencyMs;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private StubBackendServer stub;
+    private ConfigurableApplicationContext app;
+    private HttpClient client;
+    private URI chatUri;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        stub = new StubBackendServer(3072)
+                .latency(StubBackendServer.EMBEDDING_PATH, Duration.ofMillis(embeddingLatencyMs))
+                .latency(StubBackendServer.SEARCH_PATH, Duration.ofMillis(searchLatencyMs))
+                .latency(StubBackendServer.CHAT_PATH, Duration.ofMillis(chatLatencyMs))
+                .start();
+
+        Map<String, Object> properties = new HashMap<>(stub.applicationProperties());
+        properties.put("server.port", 0);
+        properties.put("cloudhumans.pipeline.mode", pipelineMode);
+        properties.put("cloudhumans.retrieval.mode", retrievalMode);
+        properties.put("cloudhumans.embedding.cache.enabled", false);
+        properties.put("cloudhumans.semantic-cache.enabled", false);
+        // mede o pipeline sem load shedding
+        properties.put("cloudhumans.limits.enabled", false);
+        properties.put("logging.level.com.cloudhumans", "WARN");
+        app = new SpringApplicationBuilder(ChatbotApplication.class).run(StubBackendServer.asArguments(properties));
+
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        chatUri = URI.create("http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port") + "/chat");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        app.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public int chat() throws IOException, InterruptedException {
+        // perguntas distintas para não medir o coalescing
+        HttpRequest request = HttpRequest.newBuilder(chatUri)
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("""
+                        {"projectName": "tesla_motors", "messages": [{"role": "USER", "content": "How long does battery %d last?"}]}
+                        """.formatted(sequence.incrementAndGet())))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        // o stub só devolve documentos N1: handover indica que alguma etapa falhou
+        if (response.statusCode() != 200 || response.body().contains("\"handoverToHumanNeeded\":true")) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + ": " + response.body());
+        }
+        return response.body().length();
+    }
+
+    /**
+     * Primeiro argumento opcional: níveis de concorrência separados por vírgula (padrão 1,16,64);
+     * os demais são opções normais do JMH.
+     */
+    public static void main(String[] args) throws Exception {
+        int[] levels = {1, 16, 64};
+        if (args.length > 0 && args[0].matches("\\d+(,\\d+)*")) {
+            levels = Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray();
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        CommandLineOptions cli = new CommandLineOptions(args);
+
+        for (int concurrency : levels) {
+            new Runner(new OptionsBuilder()
+                    .parent(cli)
+                    .include(ChatEndToEndBenchmark.class.getName())
+                    .threads(concurrency)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/e2e-c" + concurrency + ".json")
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.cloudhumans.chatbot.benchmark;
+
+import com.cloudhumans.chatbot.model.embedding.EmbeddingResponse;
+import com.cloudhumans.chatbot.model.vector.FloatVectorSerializer;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara o caminho antigo (List&lt;Double&gt; + conversão para float[]) com a leitura e escrita
+ * direta de float[]. Rode com -prof gc para ver a taxa de alocação:
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="EmbeddingVectorBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmbeddingVectorBenchmark {
+
+    @Param({"1536", "3072"})
+    public int dimension;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] responseJson;
+    private float[] vector;
+    private List<Double> boxedVector;
+
+    @Setup
+    public void setup() {
+        vector = new float[dimension];
+        boxedVector = new ArrayList<>(dimension);
+        StringBuilder json = new StringBuilder("{\"object\":\"list\",\"data\":[{\"object\":\"embedding\",\"index\":0,\"embedding\":[");
+        for (int i = 0; i < dimension; i++) {
+            float value = (float) (Math.sin(i) * 0.05);
+            vector[i] = value;
+            boxedVector.add((double) value);
+            json.append(i > 0 ? "," : "").append(value);
+        }
+        json.append("]}],\"model\":\"text-embedding-3-large\",\"usage\":{\"prompt_tokens\":8,\"total_tokens\":8}}");
+        responseJson = json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public float[] parseBoxed() throws IOException {
+        BoxedEmbeddingResponse response = objectMapper.readValue(responseJson, BoxedEmbeddingResponse.class);
+        List<Double> embedding = response.data.get(0).embedding;
+        float[] result = new float[embedding.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = embedding.get(i).floatValue();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public float[] parsePrimitive() throws IOException {
+        return objectMapper.readValue(responseJson, EmbeddingResponse.class).getFirstEmbedding();
+    }
+
+    @Benchmark
+    public int writeBoxed() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(dimension * 12);
+        objectMapper.writeValue(out, boxedVector);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writePrimitive() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(dimension * 12);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            FloatVectorSerializer.write(vector, generator);
+        }
+        return out.size();
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class BoxedEmbeddingResponse {
+        public List<BoxedEmbeddingData> data;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class BoxedEmbeddingData {
+        public int index;
+        public List<Double> embedding;
+    }
+}
@@ -0,0 +1,161 @@
+package com.cloudhumans.chatbot.benchmark;
+
+import com.cloudhumans.chatbot.model.search.IndexDocument;
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import com.cloudhumans.chatbot.model.vector.FloatVectorDeserializer;
+import com.cloudhumans.chatbot.search.LocalVectorSearchBackend;
+import com.cloudhumans.chatbot.search.RankFusion;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import lombok.Data;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compara recall@k e latência da busca vetorial e da híbrida (vetorial + BM25 com reciprocal rank fusion)
+ * no LocalVectorSearchBackend. Sem argumentos usa um catálogo sintético com números de peça, em que o
+ * embedding não distingue peças da mesma família; com dois arquivos JSONL usa dados reais:
+ * documentos no formato do índice (content, type, projectName, embeddings) e consultas rotuladas
+ * (group, projectName, question, embedding, relevant: [content]).
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.cloudhumans.chatbot.benchmark.RetrievalComparison \
+ *     -Djmh.args="documents.jsonl queries.jsonl"
+ */
+public class RetrievalComparison {
+
+    private static final int TOP_K = 10;
+    private static final int RRF_K = 60;
+    private static final String PROJECT = "tesla_motors";
+
+    public static void main(String[] args) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        LocalVectorSearchBackend backend = new LocalVectorSearchBackend(objectMapper);
+        List<LabeledQuery> queries;
+
+        String[] files = Arrays.stream(args).filter(a -> !a.startsWith("-") && a.endsWith(".jsonl")).toArray(String[]::new);
+        if (files.length == 2) {
+            backend.loadFile(Path.of(files[0]));
+            try (MappingIterator<LabeledQuery> iterator = objectMapper.readerFor(LabeledQuery.class)
+                    .readValues(Path.of(files[1]).toFile())) {
+                queries = iterator.readAll();
+            }
+        } else {
+            queries = syntheticCatalog(backend, 2_000, 20, 256);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            // aquecimento do JIT; só a última rodada é reportada
+            runAll(backend, queries, round == 2);
+        }
+    }
+
+    private static void runAll(LocalVectorSearchBackend backend, List<LabeledQuery> queries, boolean report) {
+        List<String> groups = queries.stream().map(LabeledQuery::getGroup).distinct().toList();
+        if (report) {
+            System.out.printf("%-8s %-14s %8s %11s %11s%n", "mode", "queries", "recall@" + TOP_K, "p50(us)", "p99(us)");
+        }
+        for (String mode : List.of("vector", "hybrid")) {
+            for (String group : groups) {
+                List<LabeledQuery> selected = queries.stream().filter(q -> q.getGroup().equals(group)).toList();
+                long[] latencies = new long[selected.size()];
+                int hits = 0;
+                for (int i = 0; i < selected.size(); i++) {
+                    LabeledQuery query = selected.get(i);
+                    long start = System.nanoTime();
+                    List<SearchResult> results = retrieve(backend, mode, query);
+                    latencies[i] = (System.nanoTime() - start) / 1_000;
+                    Set<String> relevant = Set.copyOf(query.getRelevant());
+                    if (results.stream().anyMatch(r -> relevant.contains(r.getContent()))) {
+                        hits++;
+                    }
+                }
+                Arrays.sort(latencies);
+                if (report) {
+                    System.out.printf("%-8s %-14s %8.3f %11d %11d%n", mode, group, (double) hits / selected.size(),
+                            percentile(latencies, 50), percentile(latencies, 99));
+                }
+            }
+        }
+    }
+
+    private static List<SearchResult> retrieve(LocalVectorSearchBackend backend, String mode, LabeledQuery query) {
+        List<SearchResult> vector = backend.search(query.getProjectName(), query.getEmbedding(), TOP_K);
+        if (mode.equals("vector")) {
+            return vector;
+        }
+        List<SearchResult> keyword = backend.keywordSearch(query.getProjectName(), query.getQuestion(), TOP_K);
+        return RankFusion.reciprocalRank(List.of(vector, keyword), RRF_K, TOP_K);
+    }
+
+    /**
+     * Peças de uma mesma família têm embeddings quase iguais; metade das consultas cita o número da peça
+     * (o embedding só captura a família) e metade descreve a peça sem citá-lo (o embedding a identifica).
+     */
+    private static List<LabeledQuery> syntheticCatalog(LocalVectorSearchBackend backend, int parts, int families,
+                                                       int dimension) {
+        Random random = new Random(42);
+        float[][] centroids = new float[families][];
+        for (int f = 0; f < families; f++) {
+            centroids[f] = noisy(random, new float[dimension], 1.0f);
+        }
+
+        List<IndexDocument> documents = new ArrayList<>(parts);
+        List<LabeledQuery> queries = new ArrayList<>();
+        for (int p = 0; p < parts; p++) {
+            int family = p % families;
+            String partNumber = "%07d-%02d-A".formatted(1_000_000 + random.nextInt(9_000_000), random.nextInt(100));
+            float[] embedding = noisy(random, centroids[family], 0.05f);
+            String content = "Part " + partNumber + " belongs to assembly family " + family + ".";
+            documents.add(new IndexDocument(content, "N1", PROJECT, embedding));
+
+            if (p % 10 == 0) {
+                queries.add(new LabeledQuery("part-number", PROJECT, "Which assembly uses part " + partNumber + "?",
+                        noisy(random, centroids[family], 0.05f), List.of(content)));
+                queries.add(new LabeledQuery("descriptive", PROJECT, "Which component matches this description?",
+                        noisy(random, embedding, 0.005f), List.of(content)));
+            }
+        }
+        backend.load(PROJECT, documents);
+        return queries;
+    }
+
+    private static float[] noisy(Random random, float[] base, float scale) {
+        float[] vector = new float[base.length];
+        for (int i = 0; i < base.length; i++) {
+            vector[i] = base[i] + (float) random.nextGaussian() * scale;
+        }
+        return vector;
+    }
+
+    private static long percentile(long[] sorted, int p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    @Data
+    public static class LabeledQuery {
+        private String group = "all";
+        private String projectName;
+        private String question;
+        @JsonDeserialize(using = FloatVectorDeserializer.class)
+        private float[] embedding;
+        private List<String> relevant;
+
+        public LabeledQuery() {
+        }
+
+        LabeledQuery(String group, String projectName, String question, float[] embedding, List<String> relevant) {
+            this.group = group;
+            this.projectName = projectName;
+            this.question = question;
+            this.embedding = embedding;
+            this.relevant = relevant;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.cloudhumans.chatbot.benchmark;
+
+import com.cloudhumans.chatbot.model.search.DatabaseSearchResponse;
+import com.cloudhumans.chatbot.model.search.VectorSearchRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por requisição ao Azure Search: corpo montado com String.format e resposta lida como
+ * String (caminho antigo) versus VectorSearchRequest escrito e resposta lida direto nos streams.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchRequestBenchmark {
+
+    @Param({"3072"})
+    public int dimension;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectWriter requestWriter = objectMapper.writerFor(VectorSearchRequest.class);
+    private final ObjectReader responseReader = objectMapper.readerFor(DatabaseSearchResponse.class);
+    private float[] vector;
+    private byte[] responseBody;
+
+    @Setup
+    public void setup() {
+        vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) (Math.sin(i) * 0.05);
+        }
+        StringBuilder json = new StringBuilder("{\"@odata.count\": 10, \"value\": [");
+        for (int i = 0; i < 10; i++) {
+            json.append(i > 0 ? "," : "")
+                    .append("{\"@search.score\": 0.").append(90 - i)
+                    .append(", \"content\": \"").append("Tesla battery warranty covers 8 years. ".repeat(20))
+                    .append("\", \"type\": \"N1\"}");
+        }
+        responseBody = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int requestBodyStringFormat() throws IOException {
+        String vectorJson = objectMapper.writeValueAsString(vector);
+        String body = String.format("""
+                {
+                  "count": true,
+                  "select": "content, type",
+                  "top": %d,
+                  "filter": "projectName eq '%s'",
+                  "vectorQueries": [
+                    {
+                      "vector": %s,
+                      "k": %d,
+                      "fields": "embeddings",
+                      "kind": "vector"
+                    }
+                  ]
+                }
+                """, 10, "tesla_motors", vectorJson, 10);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(body.getBytes(StandardCharsets.UTF_8));
+        return out.size();
+    }
+
+    @Benchmark
+    public int requestBodyStreaming() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        requestWriter.writeValue(out, VectorSearchRequest.forProject("tesla_motors", vector, 10));
+        return out.size();
+    }
+
+    @Benchmark
+    public DatabaseSearchResponse responseViaString() throws IOException {
+        String body = new String(new ByteArrayInputStream(responseBody).readAllBytes(), StandardCharsets.UTF_8);
+        return objectMapper.readValue(body, DatabaseSearchResponse.class);
+    }
+
+    @Benchmark
+    public DatabaseSearchResponse responseViaStream() throws IOException {
+        try (InputStream in = new ByteArrayInputStream(responseBody)) {
+            return responseReader.readValue(in);
+        }
+    }
+}
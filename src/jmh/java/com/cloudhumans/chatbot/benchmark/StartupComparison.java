@@ -0,0 +1,173 @@
+package com.cloudhumans.chatbot.benchmark;
+
+import com.cloudhumans.chatbot.StubBackendServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+
+/**
+ * Compara o tempo de inicialização das variantes de empacotamento: tempo até /actuator/health responder
+ * e até o primeiro POST /chat bem-sucedido, contados a partir do início do processo, contra o
+ * StubBackendServer. Variantes: jar (java -jar), lazy (spring.main.lazy-initialization), cds (Spring AOT +
+ * arquivo CDS, exige mvn -Pcds package; o arquivo é gerado em target/cds na primeira execução) e native
+ * (target/chatbot, de mvn -Pnative native:compile). O primeiro argumento opcional é o número de execuções:
+ * mvn -Pcds package -DskipTests && mvn -Pbenchmark test-compile exec:exec \
+ *     -Dbenchmark.main=com.cloudhumans.chatbot.benchmark.StartupComparison -Djmh.args="5 jar lazy cds"
+ */
+public class StartupComparison {
+
+    private static final Path JAR = Path.of("target", "chatbot.jar");
+    private static final Path CDS_DIR = Path.of("target", "cds");
+    private static final Path NATIVE = Path.of("target", "chatbot");
+    private static final Duration TIMEOUT = Duration.ofSeconds(120);
+
+    private static final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        if (args.length > 0 && args[0].matches("\\d+")) {
+            runs = Integer.parseInt(args[0]);
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        List<String> variants = args.length > 0 ? List.of(args)
+                : Files.isExecutable(NATIVE) ? List.of("jar", "cds", "native") : List.of("jar", "cds");
+
+        try (StubBackendServer stub = new StubBackendServer(3072).start()) {
+            System.out.printf("%-8s %5s %14s %14s %14s %14s%n", "variant", "runs",
+                    "ready p50(ms)", "ready min(ms)", "chat p50(ms)", "chat min(ms)");
+            for (String variant : variants) {
+                List<String> command = command(variant);
+                long[] ready = new long[runs];
+                long[] firstChat = new long[runs];
+                for (int run = 0; run < runs; run++) {
+                    long[] times = measure(variant, run, command, stub);
+                    ready[run] = times[0];
+                    firstChat[run] = times[1];
+                }
+                Arrays.sort(ready);
+                Arrays.sort(firstChat);
+                System.out.printf("%-8s %5d %14d %14d %14d %14d%n", variant, runs,
+                        ready[runs / 2], ready[0], firstChat[runs / 2], firstChat[0]);
+            }
+        }
+    }
+
+    private static List<String> command(String variant) throws IOException, InterruptedException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return switch (variant) {
+            case "jar" -> List.of(java, "-jar", JAR.toString());
+            case "lazy" -> List.of(java, "-Dspring.main.lazy-initialization=true", "-jar", JAR.toString());
+            case "cds" -> {
+                Path archive = trainCds(java);
+                yield List.of(java, "-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true",
+                        "-jar", CDS_DIR.resolve("chatbot.jar").toString());
+            }
+            case "native" -> List.of(NATIVE.toString());
+            default -> throw new IllegalArgumentException("Variante desconhecida: " + variant);
+        };
+    }
+
+    /**
+     * Extrai o jar e grava o arquivo CDS com uma execução de treino que para após o refresh do contexto,
+     * como no dockerfile.cds. O arquivo só vale para a mesma JVM, então é refeito quando o jar muda.
+     */
+    private static Path trainCds(String java) throws IOException, InterruptedException {
+        Path archive = CDS_DIR.resolve("application.jsa");
+        if (Files.exists(archive)
+                && Files.getLastModifiedTime(archive).compareTo(Files.getLastModifiedTime(JAR)) > 0) {
+            return archive;
+        }
+        try (JarFile jar = new JarFile(JAR.toFile())) {
+            if (jar.getEntry("BOOT-INF/classes/com/cloudhumans/chatbot/ChatbotApplication__ApplicationContextInitializer.class") == null) {
+                throw new IllegalStateException(JAR + " sem código AOT: gere com mvn -Pcds package");
+            }
+        }
+        run(List.of(java, "-Djarmode=tools", "-jar", JAR.toString(), "extract", "--force",
+                "--destination", CDS_DIR.toString()), CDS_DIR.resolveSibling("cds-extract.log"));
+        run(List.of(java, "-XX:ArchiveClassesAtExit=" + archive, "-Dspring.aot.enabled=true",
+                "-Dspring.context.exit=onRefresh", "-jar", CDS_DIR.resolve("chatbot.jar").toString()),
+                CDS_DIR.resolveSibling("cds-training.log"));
+        return archive;
+    }
+
+    private static void run(List<String> command, Path log) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        if (!process.waitFor(TIMEOUT.toSeconds(), TimeUnit.SECONDS) || process.exitValue() != 0) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Falha em " + String.join(" ", command) + ", veja " + log);
+        }
+    }
+
+    /**
+     * Retorna {ms até health UP, ms até o primeiro /chat bem-sucedido}, ambos desde o início do processo.
+     */
+    private static long[] measure(String variant, int run, List<String> command, StubBackendServer stub)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> arguments = new ArrayList<>(command);
+        arguments.add("--server.port=" + port);
+        arguments.addAll(List.of(StubBackendServer.asArguments(stub.applicationProperties())));
+        File log = Path.of("target", "startup-" + variant + "-" + run + ".log").toFile();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(arguments).redirectErrorStream(true).redirectOutput(log).start();
+        try {
+            URI base = URI.create("http://127.0.0.1:" + port);
+            long deadline = start + TIMEOUT.toNanos();
+            awaitSuccess(process, HttpRequest.newBuilder(base.resolve("/actuator/health")).build(), deadline, log);
+            long ready = System.nanoTime();
+            awaitSuccess(process, HttpRequest.newBuilder(base.resolve("/chat"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("""
+                            {"projectName": "tesla_motors", "messages": [{"role": "USER", "content": "How long does a Tesla battery last?"}]}
+                            """))
+                    .build(), deadline, log);
+            long firstChat = System.nanoTime();
+            return new long[]{(ready - start) / 1_000_000, (firstChat - start) / 1_000_000};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static void awaitSuccess(Process process, HttpRequest request, long deadline, File log)
+            throws InterruptedException {
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Processo encerrou com código " + process.exitValue() + ", veja " + log);
+            }
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                // o stub só devolve documentos N1: handover indica que alguma etapa falhou
+                if (response.statusCode() == 200 && !response.body().contains("\"handoverToHumanNeeded\":true")) {
+                    return;
+                }
+            } catch (IOException e) {
+                // servidor ainda não aceita conexões
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("Sem resposta de " + request.uri() + " em " + TIMEOUT + ", veja " + log);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.cloudhumans.chatbot.service;
+
+import com.cloudhumans.chatbot.model.embedding.EmbeddingResponse;
+import com.cloudhumans.chatbot.model.llm.ChatCompletionRequest;
+import com.cloudhumans.chatbot.model.search.DatabaseSearchResponse;
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import com.cloudhumans.chatbot.model.search.VectorSearchRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Um benchmark por etapa do pipeline de ChatService, usando os mesmos modelos e
+ * readers/writers do caminho de produção.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineStageBenchmark {
+
+    private static final String QUESTION = "How long does the battery of a Model 3 last?";
+
+    @Param({"3072"})
+    public int dimension;
+
+    @Param({"10"})
+    public int resultCount;
+
+    @Param({"800"})
+    public int resultChars;
+
+    @Param({"2000"})
+    public int contextMaxTokens;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectReader embeddingReader = objectMapper.readerFor(EmbeddingResponse.class);
+    private final ObjectReader searchReader = objectMapper.readerFor(DatabaseSearchResponse.class);
+    private final ObjectWriter searchWriter = objectMapper.writerFor(VectorSearchRequest.class);
+    private final ObjectWriter chatWriter = objectMapper.writerFor(ChatCompletionRequest.class);
+
+    private byte[] embeddingJson;
+    private byte[] searchJson;
+    private float[] vector;
+    private List<SearchResult> results;
+    private ContextBuilder contextBuilder;
+    private String context;
+
+    @Setup
+    public void setup() throws IOException {
+        vector = new float[dimension];
+        StringBuilder embedding = new StringBuilder("{\"object\":\"list\",\"data\":[{\"object\":\"embedding\",\"index\":0,\"embedding\":[");
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) (Math.sin(i) * 0.05);
+            embedding.append(i > 0 ? "," : "").append(vector[i]);
+        }
+        embeddingJson = embedding.append("]}],\"model\":\"text-embedding-3-large\"}").toString().getBytes(StandardCharsets.UTF_8);
+
+        Random random = new Random(42);
+        StringBuilder search = new StringBuilder("{\"@odata.count\": ").append(resultCount).append(", \"value\": [");
+        for (int i = 0; i < resultCount; i++) {
+            search.append(i > 0 ? "," : "")
+                    .append("{\"@search.score\": ").append(0.9 - i * 0.01)
+                    .append(", \"content\": \"").append(randomText(random, resultChars))
+                    .append("\", \"type\": \"").append(i % 4 == 0 ? "N2" : "N1").append("\"}");
+        }
+        searchJson = search.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+
+        results = searchReader.<DatabaseSearchResponse>readValue(searchJson).getValue();
+        contextBuilder = new ContextBuilder(ContextBuilder.encodingForModel("gpt-4o"), contextMaxTokens, 0.9);
+        context = contextBuilder.build(results).text();
+    }
+
+    private static String randomText(Random random, int chars) {
+        StringBuilder text = new StringBuilder(chars + 16);
+        while (text.length() < chars) {
+            text.append("battery").append(random.nextInt(5_000)).append(' ');
+        }
+        return text.substring(0, chars);
+    }
+
+    @Benchmark
+    public EmbeddingResponse embeddingParse() throws IOException {
+        return embeddingReader.readValue(new ByteArrayInputStream(embeddingJson));
+    }
+
+    @Benchmark
+    public int searchBodyBuild() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(dimension * 12);
+        searchWriter.writeValue(out, VectorSearchRequest.forProject("tesla_motors", vector, resultCount));
+        return out.size();
+    }
+
+    @Benchmark
+    public DatabaseSearchResponse searchResultParse() throws IOException {
+        return searchReader.readValue(new ByteArrayInputStream(searchJson));
+    }
+
+    /**
+     * Concatenação anterior ao ContextBuilder, mantida como referência.
+     */
+    @Benchmark
+    public String contextConcatReduce() {
+        return results.stream()
+                .map(SearchResult::getContent)
+                .reduce("", (a, b) -> a + "\n" + b);
+    }
+
+    @Benchmark
+    public ContextBuilder.Context contextAssembly() {
+        return contextBuilder.build(results);
+    }
+
+    @Benchmark
+    public int chatRequestSerialization() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(context.length() + 1024);
+        chatWriter.writeValue(out, new ChatCompletionRequest("gpt-4", ChatService.buildGptMessages(QUESTION, context)));
+        return out.size();
+    }
+}
@@ -0,0 +1,195 @@
+package com.cloudhumans.chatbot.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache W-TinyLFU (Caffeine) limitado por tamanho e TTL, com snapshot opcional
+ * em arquivo mapeado em memória para que um pod reiniciado suba com o cache aquecido.
+ */
+public class CaffeineEmbeddingCache implements EmbeddingCache {
+
+    private static final Logger logger = LogManager.getLogger(CaffeineEmbeddingCache.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x454D4243;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final Cache<String, Entry> cache;
+    private final Duration ttl;
+    private final Path snapshotPath;
+    private final Counter tokensSaved;
+
+    record Entry(float[] vector, long createdAtMillis) {
+    }
+
+    public CaffeineEmbeddingCache(long maxEntries, Duration ttl, Path snapshotPath, MeterRegistry meterRegistry) {
+        this.ttl = ttl;
+        this.snapshotPath = snapshotPath;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new RemainingTtlExpiry(ttl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "embeddings");
+        this.tokensSaved = Counter.builder("chatbot.embedding.cache.tokens.saved")
+                .description("Tokens estimados que deixaram de ser enviados à API de embeddings")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public float[] get(String key) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        tokensSaved.increment(Math.max(1, key.length() / 4));
+        return entry.vector().clone();
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return cache.asMap().containsKey(key);
+    }
+
+    @Override
+    public void put(String key, float[] vector) {
+        if (vector != null) {
+            cache.put(key, new Entry(vector.clone(), System.currentTimeMillis()));
+        }
+    }
+
+    long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    public void restore() {
+        if (snapshotPath == null || !Files.isRegularFile(snapshotPath)) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        int restored = 0;
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+                logger.warn("Snapshot de embeddings ignorado: formato desconhecido em {}", snapshotPath);
+                return;
+            }
+
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] keyBytes = new byte[buffer.getInt()];
+                buffer.get(keyBytes);
+                long createdAt = buffer.getLong();
+                float[] vector = new float[buffer.getInt()];
+                buffer.asFloatBuffer().get(vector);
+                buffer.position(buffer.position() + vector.length * Float.BYTES);
+
+                if (now - createdAt < ttl.toMillis()) {
+                    cache.put(new String(keyBytes, StandardCharsets.UTF_8), new Entry(vector, createdAt));
+                    restored++;
+                }
+            }
+            logger.info("Cache de embeddings restaurado com {} entradas de {}", restored, snapshotPath);
+        } catch (Exception e) {
+            logger.error("Erro ao restaurar snapshot do cache de embeddings:", e);
+        }
+    }
+
+    public void snapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+
+        List<byte[]> keys = new ArrayList<>();
+        List<Entry> entries = new ArrayList<>();
+        long size = 3L * Integer.BYTES;
+        for (Map.Entry<String, Entry> e : cache.asMap().entrySet()) {
+            byte[] keyBytes = e.getKey().getBytes(StandardCharsets.UTF_8);
+            keys.add(keyBytes);
+            entries.add(e.getValue());
+            size += Integer.BYTES + keyBytes.length + Long.BYTES + Integer.BYTES
+                    + (long) e.getValue().vector().length * Float.BYTES;
+        }
+
+        if (size > Integer.MAX_VALUE) {
+            logger.warn("Snapshot de embeddings ignorado: {} bytes excede o limite de um arquivo mapeado", size);
+            return;
+        }
+
+        Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try {
+            if (snapshotPath.getParent() != null) {
+                Files.createDirectories(snapshotPath.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putInt(entries.size());
+                for (int i = 0; i < entries.size(); i++) {
+                    Entry entry = entries.get(i);
+                    buffer.putInt(keys.get(i).length).put(keys.get(i));
+                    buffer.putLong(entry.createdAtMillis());
+                    buffer.putInt(entry.vector().length);
+                    writeFloats(buffer, entry.vector());
+                }
+                buffer.force();
+            }
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Snapshot do cache de embeddings salvo com {} entradas em {}", entries.size(), snapshotPath);
+        } catch (IOException e) {
+            logger.error("Erro ao salvar snapshot do cache de embeddings:", e);
+        }
+    }
+
+    private static void writeFloats(ByteBuffer buffer, float[] vector) {
+        buffer.asFloatBuffer().put(vector);
+        buffer.position(buffer.position() + vector.length * Float.BYTES);
+    }
+
+    private static final class RemainingTtlExpiry implements Expiry<String, Entry> {
+
+        private final long ttlMillis;
+
+        private RemainingTtlExpiry(Duration ttl) {
+            this.ttlMillis = ttl.toMillis();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            long remaining = ttlMillis - (System.currentTimeMillis() - entry.createdAtMillis());
+            return Duration.ofMillis(Math.max(0, remaining)).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
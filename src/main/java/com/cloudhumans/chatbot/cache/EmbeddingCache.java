@@ -0,0 +1,35 @@
+package com.cloudhumans.chatbot.cache;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+public interface EmbeddingCache {
+
+    /**
+     * Cópia do vetor em cache: quem chama pode alterá-la sem afetar os próximos acertos.
+     */
+    float[] get(String key);
+
+    /**
+     * Se há vetor para a chave, sem contar acerto ou erro nas métricas nem copiar o vetor: é a consulta
+     * prévia de quem só decide o caminho da chamada, e o get seguinte é o que conta.
+     */
+    boolean contains(String key);
+
+    /**
+     * Guarda uma cópia do vetor, então alterações posteriores em vector não chegam ao cache.
+     */
+    void put(String key, float[] vector);
+
+    static String key(String model, String input) {
+        return model + '\u0000' + normalize(input);
+    }
+
+    static String normalize(String input) {
+        if (input == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(input, Normalizer.Form.NFKC);
+        return normalized.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,253 @@
+package com.cloudhumans.chatbot.cache;
+
+import com.cloudhumans.chatbot.model.response.ConversationResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cache semântico por projeto: guarda as últimas N respostas com o vetor da pergunta e
+ * as indexa em buckets por hiperplanos aleatórios (SimHash), com várias tabelas e
+ * multi-probe de Hamming 1, para evitar a varredura linear de todas as entradas.
+ */
+public class LshSemanticAnswerCache implements SemanticAnswerCache {
+
+    private static final long HYPERPLANE_SEED = 0x5EED_CAC4EL;
+
+    private final int maxEntriesPerProject;
+    private final double similarityThreshold;
+    private final long ttlMillis;
+    private final int tables;
+    private final int bits;
+
+    private final Map<String, ProjectIndex> projects = new ConcurrentHashMap<>();
+    private final Map<Integer, float[][]> hyperplanesByDimension = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public LshSemanticAnswerCache(int maxEntriesPerProject, double similarityThreshold, Duration ttl,
+                                  int tables, int bits, MeterRegistry meterRegistry) {
+        if (bits < 1 || bits > 30) {
+            throw new IllegalArgumentException("bits deve estar entre 1 e 30");
+        }
+        this.maxEntriesPerProject = maxEntriesPerProject;
+        this.similarityThreshold = similarityThreshold;
+        this.ttlMillis = ttl.toMillis();
+        this.tables = tables;
+        this.bits = bits;
+
+        this.hits = Counter.builder("chatbot.semantic.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("chatbot.semantic.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("chatbot.semantic.cache.size", projects, p -> p.values().stream().mapToInt(ProjectIndex::size).sum())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ConversationResponse lookup(String projectName, float[] queryVector) {
+        ProjectIndex index = projects.get(projectName);
+        ConversationResponse response = index != null && queryVector != null
+                ? index.nearest(normalize(queryVector))
+                : null;
+        (response != null ? hits : misses).increment();
+        return response;
+    }
+
+    @Override
+    public void store(String projectName, float[] queryVector, ConversationResponse response) {
+        if (queryVector == null || response == null) {
+            return;
+        }
+        projects.computeIfAbsent(projectName, p -> new ProjectIndex(queryVector.length))
+                .add(normalize(queryVector), response);
+    }
+
+    @Override
+    public void invalidate(String projectName) {
+        projects.remove(projectName);
+    }
+
+    private float[][] hyperplanes(int dimension) {
+        return hyperplanesByDimension.computeIfAbsent(dimension, d -> {
+            Random random = new Random(HYPERPLANE_SEED + d);
+            float[][] planes = new float[tables * bits][d];
+            for (float[] plane : planes) {
+                for (int i = 0; i < d; i++) {
+                    plane[i] = (float) random.nextGaussian();
+                }
+            }
+            return planes;
+        });
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = Math.sqrt(dot(vector, vector));
+        float[] normalized = Arrays.copyOf(vector, vector.length);
+        if (norm > 0) {
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] /= (float) norm;
+            }
+        }
+        return normalized;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private final class ProjectIndex {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final int dimension;
+        private final float[][] planes;
+
+        private final float[][] vectors;
+        private final ConversationResponse[] responses;
+        private final long[] storedAt;
+        private final int[][] codes;
+        private final Map<Integer, IntBucket>[] buckets;
+
+        private int next;
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        private ProjectIndex(int dimension) {
+            this.dimension = dimension;
+            this.planes = hyperplanes(dimension);
+            this.vectors = new float[maxEntriesPerProject][];
+            this.responses = new ConversationResponse[maxEntriesPerProject];
+            this.storedAt = new long[maxEntriesPerProject];
+            this.codes = new int[maxEntriesPerProject][];
+            this.buckets = new Map[tables];
+            for (int t = 0; t < tables; t++) {
+                buckets[t] = new HashMap<>();
+            }
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private void add(float[] vector, ConversationResponse response) {
+            if (vector.length != dimension) {
+                return;
+            }
+            int[] vectorCodes = hash(vector);
+
+            lock.writeLock().lock();
+            try {
+                int slot = next;
+                if (vectors[slot] != null) {
+                    for (int t = 0; t < tables; t++) {
+                        buckets[t].get(codes[slot][t]).remove(slot);
+                    }
+                } else {
+                    size++;
+                }
+
+                vectors[slot] = vector;
+                responses[slot] = response;
+                storedAt[slot] = System.currentTimeMillis();
+                codes[slot] = vectorCodes;
+                for (int t = 0; t < tables; t++) {
+                    buckets[t].computeIfAbsent(vectorCodes[t], c -> new IntBucket()).add(slot);
+                }
+                next = (slot + 1) % maxEntriesPerProject;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private ConversationResponse nearest(float[] query) {
+            if (query.length != dimension) {
+                return null;
+            }
+            int[] queryCodes = hash(query);
+            long oldestValid = System.currentTimeMillis() - ttlMillis;
+
+            lock.readLock().lock();
+            try {
+                BitSet visited = new BitSet(maxEntriesPerProject);
+                ConversationResponse best = null;
+                double bestScore = similarityThreshold;
+
+                for (int t = 0; t < tables; t++) {
+                    for (int probe = -1; probe < bits; probe++) {
+                        int code = probe < 0 ? queryCodes[t] : queryCodes[t] ^ (1 << probe);
+                        IntBucket bucket = buckets[t].get(code);
+                        if (bucket == null) {
+                            continue;
+                        }
+                        for (int i = 0; i < bucket.size; i++) {
+                            int slot = bucket.items[i];
+                            if (visited.get(slot)) {
+                                continue;
+                            }
+                            visited.set(slot);
+                            if (storedAt[slot] < oldestValid) {
+                                continue;
+                            }
+                            double score = dot(query, vectors[slot]);
+                            if (score >= bestScore) {
+                                bestScore = score;
+                                best = responses[slot];
+                            }
+                        }
+                    }
+                }
+                return best;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private int[] hash(float[] vector) {
+            int[] result = new int[tables];
+            for (int t = 0; t < tables; t++) {
+                int code = 0;
+                for (int b = 0; b < bits; b++) {
+                    if (dot(planes[t * bits + b], vector) >= 0) {
+                        code |= 1 << b;
+                    }
+                }
+                result[t] = code;
+            }
+            return result;
+        }
+    }
+
+    private static final class IntBucket {
+
+        private int[] items = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        private void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (items[i] == value) {
+                    items[i] = items[--size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.cloudhumans.chatbot.cache;
+
+public class NoOpEmbeddingCache implements EmbeddingCache {
+
+    @Override
+    public float[] get(String key) {
+        return null;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return false;
+    }
+
+    @Override
+    public void put(String key, float[] vector) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.cloudhumans.chatbot.cache;
+
+import com.cloudhumans.chatbot.model.response.ConversationResponse;
+
+public class NoOpSemanticAnswerCache implements SemanticAnswerCache {
+
+    @Override
+    public ConversationResponse lookup(String projectName, float[] queryVector) {
+        return null;
+    }
+
+    @Override
+    public void store(String projectName, float[] queryVector, ConversationResponse response) {
+    }
+
+    @Override
+    public void invalidate(String projectName) {
+    }
+}
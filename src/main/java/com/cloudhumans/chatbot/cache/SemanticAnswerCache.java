@@ -0,0 +1,12 @@
+package com.cloudhumans.chatbot.cache;
+
+import com.cloudhumans.chatbot.model.response.ConversationResponse;
+
+public interface SemanticAnswerCache {
+
+    ConversationResponse lookup(String projectName, float[] queryVector);
+
+    void store(String projectName, float[] queryVector, ConversationResponse response);
+
+    void invalidate(String projectName);
+}
@@ -0,0 +1,66 @@
+package com.cloudhumans.chatbot.config;
+
+import com.cloudhumans.chatbot.cache.CaffeineEmbeddingCache;
+import com.cloudhumans.chatbot.cache.EmbeddingCache;
+import com.cloudhumans.chatbot.cache.LshSemanticAnswerCache;
+import com.cloudhumans.chatbot.cache.NoOpEmbeddingCache;
+import com.cloudhumans.chatbot.cache.NoOpSemanticAnswerCache;
+import com.cloudhumans.chatbot.cache.SemanticAnswerCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean(initMethod = "restore", destroyMethod = "snapshot")
+    @ConditionalOnProperty(name = "cloudhumans.embedding.cache.enabled", havingValue = "true", matchIfMissing = true)
+    public EmbeddingCache embeddingCache(
+            @Value("${cloudhumans.embedding.cache.max-entries:50000}") long maxEntries,
+            @Value("${cloudhumans.embedding.cache.ttl:24h}") Duration ttl,
+            @Value("${cloudhumans.embedding.cache.snapshot-path:}") String snapshotPath,
+            MeterRegistry meterRegistry) {
+        return new CaffeineEmbeddingCache(
+                maxEntries,
+                ttl,
+                snapshotPath.isBlank() ? null : Path.of(snapshotPath),
+                meterRegistry
+        );
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cloudhumans.embedding.cache.enabled", havingValue = "false")
+    public EmbeddingCache noOpEmbeddingCache() {
+        return new NoOpEmbeddingCache();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cloudhumans.semantic-cache.enabled", havingValue = "true", matchIfMissing = true)
+    public SemanticAnswerCache semanticAnswerCache(
+            @Value("${cloudhumans.semantic-cache.max-entries-per-project:20000}") int maxEntriesPerProject,
+            @Value("${cloudhumans.semantic-cache.similarity-threshold:0.97}") double similarityThreshold,
+            @Value("${cloudhumans.semantic-cache.ttl:1h}") Duration ttl,
+            @Value("${cloudhumans.semantic-cache.hash-tables:4}") int hashTables,
+            @Value("${cloudhumans.semantic-cache.hash-bits:14}") int hashBits,
+            MeterRegistry meterRegistry) {
+        return new LshSemanticAnswerCache(
+                maxEntriesPerProject,
+                similarityThreshold,
+                ttl,
+                hashTables,
+                hashBits,
+                meterRegistry
+        );
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cloudhumans.semantic-cache.enabled", havingValue = "false")
+    public SemanticAnswerCache noOpSemanticAnswerCache() {
+        return new NoOpSemanticAnswerCache();
+    }
+}
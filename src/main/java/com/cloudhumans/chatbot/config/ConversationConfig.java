@@ -0,0 +1,35 @@
+package com.cloudhumans.chatbot.config;
+
+import com.cloudhumans.chatbot.conversation.ConversationProperties;
+import com.cloudhumans.chatbot.conversation.ConversationStore;
+import com.cloudhumans.chatbot.conversation.InMemoryConversationStore;
+import com.cloudhumans.chatbot.conversation.NoOpConversationStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ConversationProperties.class)
+public class ConversationConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "cloudhumans.conversation.enabled", havingValue = "true", matchIfMissing = true)
+    public ConversationStore conversationStore(ConversationProperties properties, MeterRegistry meterRegistry) {
+        return new InMemoryConversationStore(
+                properties.getMaxSize().toBytes(),
+                properties.getTtl(),
+                properties.getMaxTurns(),
+                meterRegistry
+        );
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cloudhumans.conversation.enabled", havingValue = "false")
+    public ConversationStore noOpConversationStore() {
+        return new NoOpConversationStore();
+    }
+}
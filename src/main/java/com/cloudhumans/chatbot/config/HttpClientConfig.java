@@ -0,0 +1,131 @@
+package com.cloudhumans.chatbot.config;
+
+import com.cloudhumans.chatbot.http.DeadlineJdkRequestFactory;
+import com.cloudhumans.chatbot.http.DeadlineRequestFactory;
+import com.cloudhumans.chatbot.http.GzipRequestInterceptor;
+import com.cloudhumans.chatbot.http.HttpClientProperties;
+import com.cloudhumans.chatbot.http.RateLimitHeadersInterceptor;
+import com.cloudhumans.chatbot.limit.RateLimitBudget;
+import com.cloudhumans.chatbot.limit.TenantDispatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.Closeable;
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Um RestTemplate por destino (embedding, search, llm), cada um com seu próprio pool
+ * de conexões, timeouts e compressão configurados em cloudhumans.http.clients.&lt;nome&gt;.
+ * Os timeouts de cada chamada são limitados ao prazo da requisição (Deadline) em andamento.
+ */
+@Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
+public class HttpClientConfig implements DisposableBean {
+
+    private static final Logger logger = LogManager.getLogger(HttpClientConfig.class);
+
+    private final HttpClientProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final TenantDispatcher tenantDispatcher;
+    private final List<Closeable> clients = new CopyOnWriteArrayList<>();
+
+    public HttpClientConfig(HttpClientProperties properties, MeterRegistry meterRegistry,
+                            TenantDispatcher tenantDispatcher) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.tenantDispatcher = tenantDispatcher;
+    }
+
+    @Bean
+    public RestTemplate embeddingRestTemplate(RestTemplateBuilder builder) {
+        return restTemplate(builder, "embedding");
+    }
+
+    @Bean
+    public RestTemplate searchRestTemplate(RestTemplateBuilder builder) {
+        return restTemplate(builder, "search");
+    }
+
+    @Bean
+    public RestTemplate llmRestTemplate(RestTemplateBuilder builder) {
+        return restTemplate(builder, "llm");
+    }
+
+    private RestTemplate restTemplate(RestTemplateBuilder builder, String name) {
+        HttpClientProperties.Profile profile = properties.profile(name);
+        RestTemplateBuilder configured = builder.requestFactory(() -> requestFactory(name, profile));
+        if (profile.isGzipRequests()) {
+            configured = configured.additionalInterceptors(new GzipRequestInterceptor(profile.getGzipMinBytes()));
+        }
+        RateLimitBudget budget = tenantDispatcher.budget(name);
+        if (budget != null) {
+            configured = configured.additionalInterceptors(new RateLimitHeadersInterceptor(budget));
+        }
+        return configured.build();
+    }
+
+    private ClientHttpRequestFactory requestFactory(String name, HttpClientProperties.Profile profile) {
+        if (profile.isHttp2()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(profile.getConnectTimeout())
+                    .build();
+            return new DeadlineJdkRequestFactory(httpClient,
+                    httpClient.executor().orElseGet(SimpleAsyncTaskExecutor::new), profile.getReadTimeout());
+        }
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(profile.getMaxConnections())
+                .setMaxConnPerRoute(profile.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(profile.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(profile.getReadTimeout()))
+                        .setTimeToLive(TimeValue.of(profile.getConnectionTtl()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name).bindTo(meterRegistry);
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(profile.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(profile.getReadTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(profile.getIdleTimeout()))
+                .build();
+        clients.add(httpClient);
+
+        logger.info("Cliente HTTP '{}' configurado: pool de {} conexões, connect {} / read {}.",
+                name, profile.getMaxConnections(), profile.getConnectTimeout(), profile.getReadTimeout());
+        return new DeadlineRequestFactory(httpClient);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (Closeable client : clients) {
+            client.close();
+        }
+    }
+}
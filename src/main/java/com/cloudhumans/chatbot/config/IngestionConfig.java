@@ -0,0 +1,10 @@
+package com.cloudhumans.chatbot.config;
+
+import com.cloudhumans.chatbot.ingest.IngestionProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(IngestionProperties.class)
+public class IngestionConfig {
+}
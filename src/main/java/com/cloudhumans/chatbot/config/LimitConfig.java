@@ -0,0 +1,11 @@
+package com.cloudhumans.chatbot.config;
+
+import com.cloudhumans.chatbot.limit.DispatchProperties;
+import com.cloudhumans.chatbot.limit.LimitProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({LimitProperties.class, DispatchProperties.class})
+public class LimitConfig {
+}
@@ -0,0 +1,52 @@
+package com.cloudhumans.chatbot.config;
+
+import com.cloudhumans.chatbot.ingest.IngestionReport;
+import com.cloudhumans.chatbot.model.chat.ChatBatchRequest;
+import com.cloudhumans.chatbot.model.chat.ChatRequest;
+import com.cloudhumans.chatbot.model.embedding.EmbeddingRequest;
+import com.cloudhumans.chatbot.model.embedding.EmbeddingResponse;
+import com.cloudhumans.chatbot.model.llm.ChatCompletionChunk;
+import com.cloudhumans.chatbot.model.llm.ChatCompletionRequest;
+import com.cloudhumans.chatbot.model.llm.ChatCompletionResponse;
+import com.cloudhumans.chatbot.model.response.ChatBatchResponse;
+import com.cloudhumans.chatbot.model.response.ConversationResponse;
+import com.cloudhumans.chatbot.model.search.DatabaseSearchResponse;
+import com.cloudhumans.chatbot.model.search.IndexBatchRequest;
+import com.cloudhumans.chatbot.model.search.IndexBatchResponse;
+import com.cloudhumans.chatbot.model.search.IndexDocument;
+import com.cloudhumans.chatbot.model.search.KeywordSearchRequest;
+import com.cloudhumans.chatbot.model.search.VectorSearchRequest;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Hints para a imagem nativa (mvn -Pnative native:compile). O AOT do Spring registra sozinho os tipos dos
+ * controllers, mas não os que o Jackson lê e escreve nas chamadas às APIs externas, no JSONL do backend
+ * local e no NDJSON; o registrar segue propriedades, tipos aninhados e os (de)serializers de @JsonSerialize.
+ */
+@Configuration
+@ImportRuntimeHints(NativeConfig.ChatbotRuntimeHints.class)
+public class NativeConfig {
+
+    static class ChatbotRuntimeHints implements RuntimeHintsRegistrar {
+
+        static final Class<?>[] JSON_TYPES = {
+                ChatRequest.class, ChatBatchRequest.class, ConversationResponse.class, ChatBatchResponse.class,
+                EmbeddingRequest.class, EmbeddingResponse.class,
+                ChatCompletionRequest.class, ChatCompletionResponse.class, ChatCompletionChunk.class,
+                VectorSearchRequest.class, KeywordSearchRequest.class, DatabaseSearchResponse.class,
+                IndexDocument.class, IndexBatchRequest.class, IndexBatchResponse.class,
+                IngestionReport.class
+        };
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), JSON_TYPES);
+            // vocabulários BPE do jtokkit, carregados do classpath sob demanda
+            hints.resources().registerPattern("com/knuddels/jtokkit/*.tiktoken");
+        }
+    }
+}
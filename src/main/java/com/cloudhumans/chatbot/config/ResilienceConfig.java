@@ -0,0 +1,10 @@
+package com.cloudhumans.chatbot.config;
+
+import com.cloudhumans.chatbot.resilience.ResilienceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class ResilienceConfig {
+}
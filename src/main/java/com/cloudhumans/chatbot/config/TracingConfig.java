@@ -0,0 +1,45 @@
+package com.cloudhumans.chatbot.config;
+
+import com.cloudhumans.chatbot.tracing.FileSpanExporter;
+import com.cloudhumans.chatbot.tracing.InMemorySpanExporter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Exportadores locais de spans (cloudhumans.tracing.exporter=memory|file). O exportador OTLP
+ * é o do Spring Boot, ativado ao definir management.otlp.tracing.endpoint.
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Propaga o contexto de trace para as tarefas do applicationTaskExecutor (modo async e lotes).
+     */
+    @Bean
+    public TaskDecorator contextPropagatingTaskDecorator() {
+        return new ContextPropagatingTaskDecorator();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cloudhumans.tracing.exporter", havingValue = "memory")
+    public InMemorySpanExporter inMemorySpanExporter(
+            @Value("${cloudhumans.tracing.memory.max-spans:10000}") int maxSpans) {
+        return new InMemorySpanExporter(maxSpans);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cloudhumans.tracing.exporter", havingValue = "file")
+    public FileSpanExporter fileSpanExporter(
+            @Value("${cloudhumans.tracing.file.path:logs/spans.jsonl}") String path,
+            ObjectMapper objectMapper) throws IOException {
+        return new FileSpanExporter(Path.of(path), objectMapper);
+    }
+}
@@ -0,0 +1,22 @@
+package com.cloudhumans.chatbot.controller;
+
+import com.cloudhumans.chatbot.cache.SemanticAnswerCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/cache")
+public class CacheController {
+
+    private final SemanticAnswerCache semanticAnswerCache;
+
+    public CacheController(SemanticAnswerCache semanticAnswerCache) {
+        this.semanticAnswerCache = semanticAnswerCache;
+    }
+
+    @DeleteMapping("/{projectName}")
+    public ResponseEntity<Void> invalidate(@PathVariable String projectName) {
+        semanticAnswerCache.invalidate(projectName);
+        return ResponseEntity.noContent().build();
+    }
+}
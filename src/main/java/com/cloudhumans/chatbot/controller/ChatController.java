@@ -1,26 +1,218 @@
 package com.cloudhumans.chatbot.controller;
 
+import com.cloudhumans.chatbot.deadline.Deadline;
+import com.cloudhumans.chatbot.deadline.DeadlineProperties;
+import com.cloudhumans.chatbot.limit.ConcurrencyLimits;
+import com.cloudhumans.chatbot.model.chat.ChatBatchRequest;
 import com.cloudhumans.chatbot.model.chat.ChatRequest;
+import com.cloudhumans.chatbot.model.response.ChatBatchResponse;
 import com.cloudhumans.chatbot.model.response.ConversationResponse;
+import com.cloudhumans.chatbot.service.BatchChatService;
 import com.cloudhumans.chatbot.service.ChatService;
+import com.cloudhumans.chatbot.service.PipelineMode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/chat")
 public class ChatController {
 
+    private static final Logger logger = LogManager.getLogger(ChatController.class);
+
     private final ChatService chatService;
+    private final BatchChatService batchChatService;
+    private final AsyncTaskExecutor taskExecutor;
+    private final ObjectMapper objectMapper;
+    private final ConcurrencyLimits concurrencyLimits;
+    private final DeadlineProperties deadlineProperties;
+
+    @Value("${cloudhumans.chat.stream.timeout:120s}")
+    private Duration streamTimeout;
 
-    public ChatController(ChatService chatService) {
+    @Value("${cloudhumans.pipeline.mode:blocking}")
+    private PipelineMode pipelineMode;
+
+    public ChatController(ChatService chatService, BatchChatService batchChatService,
+                          AsyncTaskExecutor taskExecutor, ObjectMapper objectMapper,
+                          ConcurrencyLimits concurrencyLimits, DeadlineProperties deadlineProperties) {
         this.chatService = chatService;
+        this.batchChatService = batchChatService;
+        this.taskExecutor = taskExecutor;
+        this.objectMapper = objectMapper;
+        this.concurrencyLimits = concurrencyLimits;
+        this.deadlineProperties = deadlineProperties;
     }
 
+    /**
+     * A resposta sai em JSON, CBOR ou Smile conforme o Accept; os query params de ResponseShape a reduzem.
+     * Retorna o ResponseEntity no modo blocking e um CompletableFuture no async: só no async a requisição
+     * passa pelo início e redespacho assíncrono do Servlet.
+     */
     @PostMapping
-    public ResponseEntity<ConversationResponse> chat(@Valid @RequestBody ChatRequest request) {
-        String userMessage = request.getMessages().get(request.getMessages().size() - 1).getContent();
-        ConversationResponse response = chatService.getAnswer(request.getProjectName(), userMessage);
-        return ResponseEntity.ok(response);
+    public Object chat(@Valid @RequestBody ChatRequest request, ResponseShape.Params shapeParams,
+                       HttpServletRequest httpRequest) {
+        ResponseShape shape = shapeParams.toShape();
+        Deadline deadline = deadline(request, httpRequest);
+        try (Deadline.Scope scope = Deadline.bind(deadline)) {
+            if (pipelineMode == PipelineMode.ASYNC) {
+                cancelOnDisconnect(httpRequest, deadline);
+                return concurrencyLimits.limitChat(() -> taskExecutor.submitCompletable(() -> converse(request, null))
+                        .thenApply(response -> ResponseEntity.ok(shape.apply(response, objectMapper))));
+            }
+            // converse roda dentro do supplier, então o future já volta completo
+            return concurrencyLimits.limitChat(() -> CompletableFuture.completedFuture(
+                    ResponseEntity.ok(shape.apply(converse(request, null), objectMapper)))).join();
+        }
+    }
+
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatStream(@Valid @RequestBody ChatRequest request, ResponseShape.Params shapeParams,
+                                 HttpServletRequest httpRequest) {
+        ResponseShape shape = shapeParams.toShape();
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        CompletableFuture<Void> finished = new CompletableFuture<>();
+        Deadline deadline = deadline(request, httpRequest);
+        if (deadline != null) {
+            emitter.onError(e -> deadline.cancel());
+            emitter.onTimeout(deadline::cancel);
+        }
+
+        try (Deadline.Scope scope = Deadline.bind(deadline)) {
+            concurrencyLimits.limitChat(() -> {
+                taskExecutor.execute(() -> streamAnswer(request, shape, emitter, finished));
+                return finished;
+            });
+        }
+
+        return emitter;
+    }
+
+    /**
+     * Prazo da requisição: o header (cloudhumans.deadline.header) ou o padrão do projeto. O Deadline fica na
+     * thread durante o limitChat e é propagado à thread do pipeline nos modos async e streaming.
+     */
+    private Deadline deadline(ChatRequest request, HttpServletRequest httpRequest) {
+        if (!deadlineProperties.isEnabled()) {
+            return null;
+        }
+        String header = httpRequest.getHeader(deadlineProperties.getHeader());
+        return deadlineProperties.deadline(request.getProjectName(),
+                header != null && !header.isBlank() ? Deadline.parseTimeout(header) : null);
+    }
+
+    /**
+     * No modo async a resposta é um DeferredResult: erro do container (cliente desconectado) ou timeout
+     * do async cancelam o Deadline, abortando as chamadas em andamento.
+     */
+    private static void cancelOnDisconnect(HttpServletRequest httpRequest, Deadline deadline) {
+        if (deadline == null) {
+            return;
+        }
+        WebAsyncUtils.getAsyncManager(httpRequest).registerDeferredResultInterceptor(Deadline.class,
+                new DeferredResultProcessingInterceptor() {
+                    @Override
+                    public <T> boolean handleTimeout(NativeWebRequest request, DeferredResult<T> result) {
+                        deadline.cancel();
+                        return true;
+                    }
+
+                    @Override
+                    public <T> boolean handleError(NativeWebRequest request, DeferredResult<T> result, Throwable t) {
+                        deadline.cancel();
+                        return true;
+                    }
+                });
+    }
+
+    private ConversationResponse converse(ChatRequest request, Consumer<String> onToken) {
+        return chatService.converse(request.getProjectName(), request.getConversationId(), request.getMessages(), onToken);
+    }
+
+    private void streamAnswer(ChatRequest request, ResponseShape shape, SseEmitter emitter,
+                              CompletableFuture<Void> finished) {
+        AtomicBoolean streamed = new AtomicBoolean(false);
+        try {
+            ConversationResponse response = converse(request, token -> {
+                streamed.set(true);
+                sendToken(emitter, token);
+            });
+
+            if (!streamed.get()) {
+                sendToken(emitter, response.getMessages().get(response.getMessages().size() - 1).getContent());
+            }
+            emitter.send(SseEmitter.event().name("done").data(shape.apply(response, objectMapper),
+                    MediaType.APPLICATION_JSON));
+            emitter.complete();
+            finished.complete(null);
+        } catch (Exception e) {
+            logger.warn("Streaming de resposta interrompido: {}", e.getMessage());
+            emitter.completeWithError(e);
+            finished.completeExceptionally(e);
+        }
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> chatBatch(@Valid @RequestBody ChatBatchRequest request,
+                                            ResponseShape.Params shapeParams) {
+        ResponseShape shape = shapeParams.toShape();
+        List<ConversationResponse> responses = batchChatService.getAnswers(request.getRequests());
+        if (shape.isFull()) {
+            return ResponseEntity.ok(new ChatBatchResponse(responses));
+        }
+        return ResponseEntity.ok(Map.of("responses",
+                responses.stream().map(response -> shape.apply(response, objectMapper)).toList()));
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> chatBatchStream(HttpServletRequest httpRequest,
+                                                                 ResponseShape.Params shapeParams) {
+        ResponseShape shape = shapeParams.toShape();
+        StreamingResponseBody body = out -> {
+            try (MappingIterator<ChatRequest> requests = objectMapper.readerFor(ChatRequest.class)
+                    .readValues(httpRequest.getInputStream())) {
+                batchChatService.streamAnswers(requests, response -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(shape.apply(response, objectMapper)));
+                        out.write('\n');
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private static void sendToken(SseEmitter emitter, String token) {
+        try {
+            emitter.send(SseEmitter.event().name("token").data(Map.of("content", token), MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
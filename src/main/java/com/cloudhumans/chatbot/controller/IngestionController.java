@@ -0,0 +1,51 @@
+package com.cloudhumans.chatbot.controller;
+
+import com.cloudhumans.chatbot.ingest.CsvDocumentReader;
+import com.cloudhumans.chatbot.ingest.IngestionReport;
+import com.cloudhumans.chatbot.ingest.IngestionService;
+import com.cloudhumans.chatbot.model.search.IndexDocument;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/ingest")
+@ConditionalOnProperty(name = "cloudhumans.ingest.enabled", havingValue = "true")
+public class IngestionController {
+
+    private final IngestionService ingestionService;
+    private final ObjectMapper objectMapper;
+
+    public IngestionController(IngestionService ingestionService, ObjectMapper objectMapper) {
+        this.ingestionService = ingestionService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<IngestionReport> ingestJsonLines(HttpServletRequest request,
+                                                           @RequestParam(defaultValue = "false") boolean prune) throws IOException {
+        try (MappingIterator<IndexDocument> documents = objectMapper.readerFor(IndexDocument.class)
+                .readValues(request.getInputStream())) {
+            return ResponseEntity.ok(ingestionService.ingest(documents, prune));
+        }
+    }
+
+    @PostMapping(consumes = "text/csv", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<IngestionReport> ingestCsv(HttpServletRequest request,
+                                                     @RequestParam(defaultValue = "false") boolean prune) throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8)) {
+            return ResponseEntity.ok(ingestionService.ingest(new CsvDocumentReader(reader), prune));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.cloudhumans.chatbot.controller;
+
+import com.cloudhumans.chatbot.model.response.ConversationResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Forma opcional da resposta, pelos query params view, fields e maxContentChars. Sem eles a resposta sai
+ * no formato de sempre; com eles é reduzida a um JsonNode, serializado pelo conversor negociado no Accept
+ * (JSON, CBOR ou Smile):
+ * view=compact deixa só a mensagem do agente e, nos resultados, score, tipo e id (sem o conteúdo);
+ * fields lista os campos de primeiro nível mantidos; maxContentChars trunca o conteúdo dos resultados.
+ */
+public record ResponseShape(boolean compact, Set<String> fields, int maxContentChars) {
+
+    public static final ResponseShape FULL = new ResponseShape(false, Set.of(), 0);
+
+    private static final Set<String> FIELDS = Set.of("messages", "handoverToHumanNeeded", "results", "conversationId");
+    private static final String ELLIPSIS = "…";
+
+    /**
+     * Valida os parâmetros; valores desconhecidos lançam IllegalArgumentException (400).
+     */
+    public static ResponseShape of(String view, String fields, Integer maxContentChars) {
+        boolean compact = false;
+        if (view != null && !view.isBlank()) {
+            compact = switch (view.trim().toLowerCase(Locale.ROOT)) {
+                case "full" -> false;
+                case "compact" -> true;
+                default -> throw new IllegalArgumentException("view deve ser full ou compact: " + view);
+            };
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        if (fields != null && !fields.isBlank()) {
+            Arrays.stream(fields.split(",")).map(String::trim).filter(f -> !f.isEmpty()).forEach(field -> {
+                if (!FIELDS.contains(field)) {
+                    throw new IllegalArgumentException("campo desconhecido em fields: " + field);
+                }
+                selected.add(field);
+            });
+        }
+        if (maxContentChars != null && maxContentChars < 0) {
+            throw new IllegalArgumentException("maxContentChars não pode ser negativo: " + maxContentChars);
+        }
+        return new ResponseShape(compact, Set.copyOf(selected), maxContentChars != null ? maxContentChars : 0);
+    }
+
+    /**
+     * Query params da forma da resposta, ligados pelo Spring como model attribute nos endpoints do /chat.
+     */
+    public record Params(String view, String fields, Integer maxContentChars) {
+
+        public ResponseShape toShape() {
+            return of(view, fields, maxContentChars);
+        }
+    }
+
+    public boolean isFull() {
+        return !compact && fields.isEmpty() && maxContentChars == 0;
+    }
+
+    /**
+     * A própria resposta no formato completo; senão a árvore JSON reduzida.
+     */
+    public Object apply(ConversationResponse response, ObjectMapper objectMapper) {
+        if (isFull()) {
+            return response;
+        }
+        ObjectNode node = objectMapper.valueToTree(response);
+        if (compact && node.get("messages") instanceof ArrayNode messages && messages.size() > 1) {
+            JsonNode last = messages.get(messages.size() - 1);
+            messages.removeAll();
+            messages.add(last);
+        }
+        if (node.get("results") instanceof ArrayNode results) {
+            for (JsonNode result : results) {
+                shapeResult((ObjectNode) result);
+            }
+        }
+        if (!fields.isEmpty()) {
+            node.retain(fields);
+        }
+        return node;
+    }
+
+    private void shapeResult(ObjectNode result) {
+        if (compact) {
+            result.remove("content");
+            return;
+        }
+        JsonNode content = result.get("content");
+        if (maxContentChars > 0 && content != null && content.isTextual() && content.asText().length() > maxContentChars) {
+            String text = content.asText();
+            // não corta um par surrogate ao meio
+            int end = Character.isHighSurrogate(text.charAt(maxContentChars - 1)) ? maxContentChars - 1 : maxContentChars;
+            result.put("content", text.substring(0, end) + ELLIPSIS);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.cloudhumans.chatbot.conversation;
+
+import com.cloudhumans.chatbot.model.llm.Message;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formato binário compacto de uma conversa: [versão][quantidade] e, por turno, [papel][tamanho][conteúdo UTF-8].
+ * Um único byte[] por conversa custa bem menos que a lista de Message e pode ir sem conversão para um
+ * buffer off-heap ou um store externo.
+ */
+public final class ConversationCodec {
+
+    private static final byte VERSION = 1;
+    private static final int MAX_ROLE_BYTES = 0xFF;
+
+    private ConversationCodec() {
+    }
+
+    /**
+     * Rejeita (IllegalArgumentException) turnos sem papel ou com papel acima de 255 bytes, que o formato não
+     * representa: gravá-los corromperia a conversa inteira.
+     */
+    public static byte[] encode(List<Message> turns) {
+        List<byte[]> roles = new ArrayList<>(turns.size());
+        List<byte[]> contents = new ArrayList<>(turns.size());
+        int size = 1 + Integer.BYTES;
+        for (Message turn : turns) {
+            if (turn.getRole() == null) {
+                throw new IllegalArgumentException("Turno sem papel não pode ser guardado na conversa");
+            }
+            byte[] role = turn.getRole().getBytes(StandardCharsets.UTF_8);
+            if (role.length > MAX_ROLE_BYTES) {
+                throw new IllegalArgumentException("Papel do turno com " + role.length + " bytes; o limite é "
+                        + MAX_ROLE_BYTES);
+            }
+            byte[] content = turn.getContent() != null ? turn.getContent().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            roles.add(role);
+            contents.add(content);
+            size += 1 + role.length + Integer.BYTES + content.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION).putInt(turns.size());
+        for (int i = 0; i < turns.size(); i++) {
+            buffer.put((byte) roles.get(i).length).put(roles.get(i));
+            buffer.putInt(contents.get(i).length).put(contents.get(i));
+        }
+        return buffer.array();
+    }
+
+    public static List<Message> decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.get() != VERSION) {
+            throw new IllegalArgumentException("Versão de conversa desconhecida");
+        }
+        int count = buffer.getInt();
+        List<Message> turns = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] role = new byte[buffer.get() & 0xFF];
+            buffer.get(role);
+            byte[] content = new byte[buffer.getInt()];
+            buffer.get(content);
+            turns.add(new Message(new String(role, StandardCharsets.UTF_8), new String(content, StandardCharsets.UTF_8)));
+        }
+        return turns;
+    }
+}
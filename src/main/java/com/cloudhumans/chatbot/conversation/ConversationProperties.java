@@ -0,0 +1,27 @@
+package com.cloudhumans.chatbot.conversation;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "cloudhumans.conversation")
+public class ConversationProperties {
+
+    private boolean enabled = true;
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+    private Duration ttl = Duration.ofMinutes(30);
+    private int maxTurns = 20;
+
+    /**
+     * Orçamento de tokens dos turnos anteriores enviados ao LLM; os mais recentes têm prioridade.
+     */
+    private int historyMaxTokens = 1000;
+
+    /**
+     * Quantas perguntas anteriores do usuário entram na consulta de embedding e de palavras-chave.
+     */
+    private int queryTurns = 2;
+}
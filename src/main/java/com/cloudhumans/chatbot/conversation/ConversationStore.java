@@ -0,0 +1,20 @@
+package com.cloudhumans.chatbot.conversation;
+
+import com.cloudhumans.chatbot.model.llm.Message;
+
+import java.util.List;
+
+/**
+ * Histórico de conversas por projectName e conversationId, para que o cliente envie só a nova mensagem a cada turno.
+ * O conversationId vem do cliente: o mesmo id em outro projeto é outra conversa.
+ * Implementações externas (ex.: Redis) podem guardar o formato binário de ConversationCodec.
+ */
+public interface ConversationStore {
+
+    /**
+     * Turnos anteriores da conversa em ordem cronológica; lista vazia se ela não existe ou expirou.
+     */
+    List<Message> history(String projectName, String conversationId);
+
+    void append(String projectName, String conversationId, List<Message> turns);
+}
@@ -0,0 +1,56 @@
+package com.cloudhumans.chatbot.conversation;
+
+import com.cloudhumans.chatbot.model.llm.Message;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conversas em memória (Caffeine) serializadas com ConversationCodec: o limite é em bytes (max-size),
+ * cada conversa guarda só os últimos max-turns turnos e expira após ttl sem uso.
+ */
+public class InMemoryConversationStore implements ConversationStore {
+
+    private final Cache<String, byte[]> conversations;
+    private final int maxTurns;
+
+    public InMemoryConversationStore(long maxBytes, Duration ttl, int maxTurns, MeterRegistry meterRegistry) {
+        this.maxTurns = maxTurns;
+        this.conversations = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String id, byte[] bytes) -> id.length() * 2 + bytes.length)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, conversations, "conversations");
+    }
+
+    @Override
+    public List<Message> history(String projectName, String conversationId) {
+        byte[] bytes = conversations.getIfPresent(key(projectName, conversationId));
+        return bytes != null ? ConversationCodec.decode(bytes) : List.of();
+    }
+
+    @Override
+    public void append(String projectName, String conversationId, List<Message> turns) {
+        conversations.asMap().compute(key(projectName, conversationId), (id, existing) -> {
+            List<Message> all = existing != null ? new ArrayList<>(ConversationCodec.decode(existing)) : new ArrayList<>();
+            all.addAll(turns);
+            return ConversationCodec.encode(all.subList(Math.max(0, all.size() - maxTurns), all.size()));
+        });
+    }
+
+    private static String key(String projectName, String conversationId) {
+        return projectName + '\u0000' + conversationId;
+    }
+
+    long weightedSize() {
+        conversations.cleanUp();
+        return conversations.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+}
@@ -0,0 +1,17 @@
+package com.cloudhumans.chatbot.conversation;
+
+import com.cloudhumans.chatbot.model.llm.Message;
+
+import java.util.List;
+
+public class NoOpConversationStore implements ConversationStore {
+
+    @Override
+    public List<Message> history(String projectName, String conversationId) {
+        return List.of();
+    }
+
+    @Override
+    public void append(String projectName, String conversationId, List<Message> turns) {
+    }
+}
@@ -0,0 +1,167 @@
+package com.cloudhumans.chatbot.deadline;
+
+import com.cloudhumans.chatbot.exception.DeadlineExceededException;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Prazo de uma requisição ao /chat. Fica na thread do pipeline (e é propagado às tarefas do executor e aos
+ * hedges pelo DeadlineThreadLocalAccessor) para que cada etapa confira o tempo restante e limite a ele o
+ * timeout das chamadas HTTP. cancel() encerra o prazo e aborta as chamadas em andamento.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAt;
+    private final boolean bounded;
+    private final List<Runnable> cancellations = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled;
+
+    private Deadline(long expiresAt, boolean bounded) {
+        this.expiresAt = expiresAt;
+        this.bounded = bounded;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos(), true);
+    }
+
+    /**
+     * Sem limite de tempo, mas ainda cancelável quando o cliente desconecta.
+     */
+    public static Deadline unbounded() {
+        return new Deadline(0, false);
+    }
+
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Torna deadline (pode ser null) o prazo da thread até o close do Scope, que restaura o anterior.
+     */
+    public static Scope bind(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        set(deadline);
+        return () -> set(previous);
+    }
+
+    static void set(Deadline deadline) {
+        if (deadline != null) {
+            CURRENT.set(deadline);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Lança DeadlineExceededException se o prazo da thread já acabou.
+     */
+    public static void check(String stage) {
+        require(Duration.ZERO, stage);
+    }
+
+    /**
+     * Lança DeadlineExceededException se não restar mais que budget do prazo da thread.
+     */
+    public static void require(Duration budget, String stage) {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null && deadline.remainingNanos() <= budget.toNanos()) {
+            throw new DeadlineExceededException(stage, deadline.isCancelled());
+        }
+    }
+
+    /**
+     * Timeout pedido pelo cliente: milissegundos ("10000") ou duração ("10s", "PT10S").
+     */
+    public static Duration parseTimeout(String value) {
+        Duration timeout = DurationStyle.detectAndParse(value.trim());
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("timeout deve ser positivo: " + value);
+        }
+        return timeout;
+    }
+
+    public long remainingNanos() {
+        if (cancelled) {
+            return 0;
+        }
+        return bounded ? expiresAt - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, remainingNanos()));
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * O menor entre timeout e o tempo restante, com no mínimo 1 ms; timeout null ou zero é tratado como
+     * sem limite.
+     */
+    public Duration cap(Duration timeout) {
+        long remaining = Math.max(remainingNanos(), 1_000_000);
+        if (timeout == null || timeout.isZero() || timeout.isNegative()) {
+            return Duration.ofNanos(remaining);
+        }
+        return Duration.ofNanos(Math.min(timeout.toNanos(), remaining));
+    }
+
+    /**
+     * Prazo com a mesma expiração que pode ser cancelado sem cancelar este, para cada tentativa de um hedge.
+     * Quem cria liga o cancelamento deste ao novo com onCancel.
+     */
+    public Deadline fork() {
+        return new Deadline(expiresAt, bounded);
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (Runnable cancellation : cancellations) {
+            cancellation.run();
+        }
+    }
+
+    /**
+     * Registra uma ação para o cancelamento (abortar uma chamada HTTP); roda na hora se já foi cancelado.
+     * Quem registra fecha a Registration quando a ação deixa de fazer sentido (a resposta chegou), para que
+     * o prazo não segure requisições já terminadas.
+     */
+    public Registration onCancel(Runnable cancellation) {
+        Runnable registered = cancellation::run;
+        cancellations.add(registered);
+        if (cancelled && cancellations.remove(registered)) {
+            registered.run();
+        }
+        return () -> cancellations.remove(registered);
+    }
+
+    /**
+     * Ações de cancelamento ainda registradas (chamadas em andamento).
+     */
+    public int pendingCancellations() {
+        return cancellations.size();
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    @FunctionalInterface
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,49 @@
+package com.cloudhumans.chatbot.deadline;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "cloudhumans.deadline")
+public class DeadlineProperties {
+
+    private boolean enabled = true;
+    /**
+     * Header com o tempo que o cliente espera pela resposta, em milissegundos ou como duração ("10s").
+     */
+    private String header = "X-Request-Timeout";
+    /**
+     * Prazo das requisições sem o header; zero é sem limite (só o cancelamento na desconexão).
+     */
+    private Duration defaultTimeout = Duration.ofSeconds(30);
+    private Duration maxTimeout = Duration.ofMinutes(2);
+    /**
+     * Tempo restante mínimo para chamar o LLM; com menos, a conversa vai direto para o handover.
+     */
+    private Duration llmMinBudget = Duration.ofSeconds(2);
+    private Map<String, Project> projects = new HashMap<>();
+
+    /**
+     * Prazo da requisição: o pedido pelo cliente (limitado a maxTimeout) ou o padrão do projeto.
+     */
+    public Deadline deadline(String projectName, Duration requested) {
+        Duration timeout = requested;
+        if (timeout == null) {
+            Project project = projectName != null ? projects.get(projectName) : null;
+            timeout = project != null && project.getTimeout() != null ? project.getTimeout() : defaultTimeout;
+        }
+        if (timeout.isZero()) {
+            return Deadline.unbounded();
+        }
+        return Deadline.after(timeout.compareTo(maxTimeout) > 0 ? maxTimeout : timeout);
+    }
+
+    @Data
+    public static class Project {
+        private Duration timeout;
+    }
+}
@@ -0,0 +1,32 @@
+package com.cloudhumans.chatbot.deadline;
+
+import io.micrometer.context.ThreadLocalAccessor;
+
+/**
+ * Leva o Deadline da thread da requisição para as threads do applicationTaskExecutor
+ * (ContextPropagatingTaskDecorator) e dos hedges do Resilience; registrado via META-INF/services.
+ */
+public class DeadlineThreadLocalAccessor implements ThreadLocalAccessor<Deadline> {
+
+    public static final String KEY = "cloudhumans.deadline";
+
+    @Override
+    public Object key() {
+        return KEY;
+    }
+
+    @Override
+    public Deadline getValue() {
+        return Deadline.current();
+    }
+
+    @Override
+    public void setValue(Deadline value) {
+        Deadline.set(value);
+    }
+
+    @Override
+    public void setValue() {
+        Deadline.set(null);
+    }
+}
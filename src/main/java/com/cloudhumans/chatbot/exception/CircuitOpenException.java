@@ -0,0 +1,11 @@
+package com.cloudhumans.chatbot.exception;
+
+/**
+ * Chamada não enviada porque o circuit breaker do destino está aberto.
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    public CircuitOpenException(String dependency) {
+        super("Circuit breaker aberto para " + dependency);
+    }
+}
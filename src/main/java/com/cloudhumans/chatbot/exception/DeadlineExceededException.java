@@ -0,0 +1,21 @@
+package com.cloudhumans.chatbot.exception;
+
+import lombok.Getter;
+
+/**
+ * O prazo da requisição acabou (ou o cliente desconectou) antes de uma etapa do pipeline. O ChatService
+ * responde com handover; fora do pipeline vira 504 no GlobalExceptionHandler.
+ */
+@Getter
+public class DeadlineExceededException extends RuntimeException {
+
+    private final String stage;
+    private final boolean cancelled;
+
+    public DeadlineExceededException(String stage, boolean cancelled) {
+        super((cancelled ? "Requisição cancelada pelo cliente antes de " : "Prazo da requisição esgotado antes de ")
+                + stage);
+        this.stage = stage;
+        this.cancelled = cancelled;
+    }
+}
@@ -32,6 +32,27 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body("Erro de validação: " + ex.getMessage());
     }
 
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
+        logger.warn("Requisição inválida: {}", ex.getMessage());
+        return ResponseEntity.badRequest().body("Requisição inválida: " + ex.getMessage());
+    }
+
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<String> handleOverloaded(OverloadedException ex) {
+        logger.warn("Requisição rejeitada por sobrecarga: {}", ex.getResource());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body("Serviço sobrecarregado. Tente novamente em instantes.");
+    }
+
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity<String> handleDeadlineExceeded(DeadlineExceededException ex) {
+        logger.warn("Requisição encerrada sem resposta: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                .body("Prazo da requisição esgotado.");
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGeneralError(Exception ex) {
         logger.error("Erro inesperado no sistema", ex);
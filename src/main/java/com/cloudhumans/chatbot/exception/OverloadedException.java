@@ -0,0 +1,22 @@
+package com.cloudhumans.chatbot.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Requisição rejeitada por um limite de concorrência (limiter adaptativo ou bulkhead de um destino).
+ * Vira 503 com Retry-After no GlobalExceptionHandler.
+ */
+@Getter
+public class OverloadedException extends RuntimeException {
+
+    private final String resource;
+    private final Duration retryAfter;
+
+    public OverloadedException(String resource, Duration retryAfter) {
+        super("Limite de concorrência atingido: " + resource);
+        this.resource = resource;
+        this.retryAfter = retryAfter;
+    }
+}
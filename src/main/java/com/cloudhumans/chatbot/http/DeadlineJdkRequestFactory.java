@@ -0,0 +1,52 @@
+package com.cloudhumans.chatbot.http;
+
+import com.cloudhumans.chatbot.deadline.Deadline;
+import com.cloudhumans.chatbot.exception.DeadlineExceededException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Versão para o HttpClient do JDK (perfis http2): o read timeout de cada requisição é limitado ao tempo
+ * restante do Deadline da thread. Não há como abortar a troca em andamento no cancelamento; ela termina
+ * pelo timeout.
+ */
+public class DeadlineJdkRequestFactory implements ClientHttpRequestFactory {
+
+    private final HttpClient httpClient;
+    private final Executor executor;
+    private final Duration readTimeout;
+    private final JdkClientHttpRequestFactory delegate;
+
+    public DeadlineJdkRequestFactory(HttpClient httpClient, Executor executor, Duration readTimeout) {
+        this.httpClient = httpClient;
+        this.executor = executor;
+        this.readTimeout = readTimeout;
+        this.delegate = factory(readTimeout);
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return delegate.createRequest(uri, httpMethod);
+        }
+        if (deadline.isExpired()) {
+            throw new DeadlineExceededException(uri.getHost(), deadline.isCancelled());
+        }
+        return factory(deadline.cap(readTimeout)).createRequest(uri, httpMethod);
+    }
+
+    private JdkClientHttpRequestFactory factory(Duration timeout) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient, executor);
+        factory.setReadTimeout(timeout);
+        return factory;
+    }
+}
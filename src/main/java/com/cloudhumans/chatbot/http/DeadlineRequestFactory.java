@@ -0,0 +1,155 @@
+package com.cloudhumans.chatbot.http;
+
+import com.cloudhumans.chatbot.deadline.Deadline;
+import com.cloudhumans.chatbot.exception.DeadlineExceededException;
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Request factory do Apache HttpClient que limita a espera por conexão do pool e o timeout de resposta
+ * ao tempo restante do Deadline da thread, e aborta a requisição quando o Deadline é cancelado. A ação de
+ * cancelamento só fica registrada no Deadline enquanto a troca está em andamento: sai quando a resposta é
+ * fechada ou a execução falha.
+ */
+public class DeadlineRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+    // createHttpUriRequest roda dentro de super.createRequest, na mesma thread
+    private static final ThreadLocal<Cancellable> CREATED = new ThreadLocal<>();
+
+    public DeadlineRequestFactory(HttpClient httpClient) {
+        super(httpClient);
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.isExpired()) {
+            throw new DeadlineExceededException(uri.getHost(), deadline.isCancelled());
+        }
+        ClientHttpRequest request;
+        Cancellable cancellable;
+        try {
+            request = super.createRequest(uri, httpMethod);
+            cancellable = CREATED.get();
+        } finally {
+            CREATED.remove();
+        }
+        return deadline != null && cancellable != null ? new CancellableRequest(request, deadline, cancellable) : request;
+    }
+
+    @Override
+    protected ClassicHttpRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+        ClassicHttpRequest request = super.createHttpUriRequest(httpMethod, uri);
+        if (request instanceof Cancellable cancellable) {
+            CREATED.set(cancellable);
+        }
+        return request;
+    }
+
+    @Override
+    protected RequestConfig createRequestConfig(Object client) {
+        RequestConfig config = super.createRequestConfig(client);
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return config;
+        }
+        return RequestConfig.copy(config)
+                .setConnectionRequestTimeout(cap(deadline, config.getConnectionRequestTimeout()))
+                .setResponseTimeout(cap(deadline, config.getResponseTimeout()))
+                .build();
+    }
+
+    private static Timeout cap(Deadline deadline, Timeout timeout) {
+        Duration configured = timeout != null && !timeout.isDisabled() ? Duration.ofMillis(timeout.toMilliseconds()) : null;
+        return Timeout.ofMilliseconds(deadline.cap(configured).toMillis());
+    }
+
+    private record CancellableRequest(ClientHttpRequest delegate, Deadline deadline, Cancellable cancellable)
+            implements ClientHttpRequest {
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            Deadline.Registration registration = deadline.onCancel(cancellable::cancel);
+            try {
+                return new RegisteredResponse(delegate.execute(), registration);
+            } catch (IOException | RuntimeException | Error e) {
+                registration.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return delegate.getMethod();
+        }
+
+        @Override
+        public URI getURI() {
+            return delegate.getURI();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return delegate.getAttributes();
+        }
+    }
+
+    private record RegisteredResponse(ClientHttpResponse delegate, Deadline.Registration registration)
+            implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                registration.close();
+            }
+        }
+    }
+}
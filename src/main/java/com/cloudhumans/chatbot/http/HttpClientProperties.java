@@ -0,0 +1,35 @@
+package com.cloudhumans.chatbot.http;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "cloudhumans.http")
+public class HttpClientProperties {
+
+    private Map<String, Profile> clients = new HashMap<>();
+
+    public Profile profile(String name) {
+        return clients.getOrDefault(name, new Profile());
+    }
+
+    @Data
+    public static class Profile {
+        private int maxConnections = 50;
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration readTimeout = Duration.ofSeconds(30);
+        private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+        private Duration connectionTtl = Duration.ofMinutes(5);
+        private Duration idleTimeout = Duration.ofSeconds(60);
+        /**
+         * Usa o HttpClient do JDK com HTTP/2 em vez do pool do Apache HttpClient (HTTP/1.1 + keep-alive).
+         */
+        private boolean http2 = false;
+        private boolean gzipRequests = false;
+        private int gzipMinBytes = 2048;
+    }
+}
@@ -0,0 +1,44 @@
+package com.cloudhumans.chatbot.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Callbacks para RestTemplate.execute que escrevem o corpo JSON direto no stream da requisição
+ * e leem a resposta direto do stream da conexão, sem cópias intermediárias em String.
+ */
+public final class JsonExchange {
+
+    private JsonExchange() {
+    }
+
+    public static RequestCallback jsonBody(ObjectMapper objectMapper, Object body, Consumer<HttpHeaders> headers) {
+        ObjectWriter writer = objectMapper.writerFor(body.getClass());
+        return request -> {
+            request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            headers.accept(request.getHeaders());
+            if (request instanceof StreamingHttpOutputMessage streaming) {
+                streaming.setBody(out -> writer.writeValue(StreamUtils.nonClosing(out), body));
+            } else {
+                writer.writeValue(StreamUtils.nonClosing(request.getBody()), body);
+            }
+        };
+    }
+
+    public static <T> ResponseExtractor<T> jsonResponse(ObjectMapper objectMapper, Class<T> type) {
+        return response -> {
+            try (InputStream body = response.getBody()) {
+                return objectMapper.readValue(body, type);
+            }
+        };
+    }
+}
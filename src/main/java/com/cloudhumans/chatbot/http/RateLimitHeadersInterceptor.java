@@ -0,0 +1,28 @@
+package com.cloudhumans.chatbot.http;
+
+import com.cloudhumans.chatbot.limit.RateLimitBudget;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Atualiza o RateLimitBudget do destino com os headers x-ratelimit-* de toda resposta, inclusive 429.
+ */
+public class RateLimitHeadersInterceptor implements ClientHttpRequestInterceptor {
+
+    private final RateLimitBudget budget;
+
+    public RateLimitHeadersInterceptor(RateLimitBudget budget) {
+        this.budget = budget;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        ClientHttpResponse response = execution.execute(request, body);
+        budget.update(response.getHeaders());
+        return response;
+    }
+}
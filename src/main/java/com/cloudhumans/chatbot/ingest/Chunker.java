@@ -0,0 +1,85 @@
+package com.cloudhumans.chatbot.ingest;
+
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.IntArrayList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Divide um documento em trechos de até maxTokens tokens do modelo de embedding, juntando frases
+ * inteiras; uma frase maior que o limite é cortada em janelas de tokens.
+ */
+final class Chunker {
+
+    private static final Pattern SENTENCE_BOUNDARY = Pattern.compile("(?<=[.!?])\\s+|\\n\\s*\\n");
+
+    private final Encoding encoding;
+    private final int maxTokens;
+
+    Chunker(Encoding encoding, int maxTokens) {
+        this.encoding = encoding;
+        this.maxTokens = maxTokens;
+    }
+
+    List<String> split(String content) {
+        String text = content.strip();
+        if (text.isEmpty()) {
+            return List.of();
+        }
+        if (encoding.countTokens(text) <= maxTokens) {
+            return List.of(text);
+        }
+
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        for (String part : SENTENCE_BOUNDARY.split(text)) {
+            String sentence = part.strip();
+            if (sentence.isEmpty()) {
+                continue;
+            }
+            int tokens = encoding.countTokens(sentence);
+            if (tokens > maxTokens) {
+                flush(current, chunks);
+                currentTokens = 0;
+                splitByTokens(sentence, chunks);
+                continue;
+            }
+            if (currentTokens + tokens + 1 > maxTokens) {
+                flush(current, chunks);
+                currentTokens = 0;
+            }
+            if (!current.isEmpty()) {
+                current.append(' ');
+                currentTokens++;
+            }
+            current.append(sentence);
+            currentTokens += tokens;
+        }
+        flush(current, chunks);
+        return chunks;
+    }
+
+    private void splitByTokens(String sentence, List<String> chunks) {
+        IntArrayList tokens = encoding.encode(sentence);
+        for (int start = 0; start < tokens.size(); start += maxTokens) {
+            IntArrayList window = new IntArrayList(maxTokens);
+            for (int i = start; i < Math.min(tokens.size(), start + maxTokens); i++) {
+                window.add(tokens.get(i));
+            }
+            String chunk = encoding.decode(window).strip();
+            if (!chunk.isEmpty()) {
+                chunks.add(chunk);
+            }
+        }
+    }
+
+    private static void flush(StringBuilder current, List<String> chunks) {
+        if (!current.isEmpty()) {
+            chunks.add(current.toString());
+            current.setLength(0);
+        }
+    }
+}
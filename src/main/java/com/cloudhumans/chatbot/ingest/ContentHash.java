@@ -0,0 +1,29 @@
+package com.cloudhumans.chatbot.ingest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 em hexadecimal de uma sequência de campos, usado como id dos trechos indexados:
+ * o mesmo conteúdo sempre gera o mesmo id, então trechos inalterados não precisam de novo embedding.
+ */
+public final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    public static String of(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update((part != null ? part : "").getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.cloudhumans.chatbot.ingest;
+
+import com.cloudhumans.chatbot.model.search.IndexDocument;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Lê documentos de um CSV (RFC 4180: campos entre aspas podem ter vírgulas, quebras de linha e aspas
+ * duplicadas) um registro por vez. A primeira linha é o cabeçalho e deve ter as colunas content, type e
+ * projectName, em qualquer ordem; outras colunas são ignoradas.
+ */
+public class CsvDocumentReader implements Iterator<IndexDocument> {
+
+    private final Reader reader;
+    private final int contentColumn;
+    private final int typeColumn;
+    private final int projectColumn;
+    private List<String> nextRecord;
+
+    public CsvDocumentReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV vazio: cabeçalho com content, type e projectName é obrigatório");
+        }
+        List<String> columns = header.stream().map(c -> c.strip().toLowerCase(Locale.ROOT)).toList();
+        this.contentColumn = column(columns, "content");
+        this.typeColumn = column(columns, "type");
+        this.projectColumn = column(columns, "projectname");
+        this.nextRecord = readRecord();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextRecord != null;
+    }
+
+    @Override
+    public IndexDocument next() {
+        if (nextRecord == null) {
+            throw new NoSuchElementException();
+        }
+        List<String> record = nextRecord;
+        nextRecord = readRecord();
+        return new IndexDocument(field(record, contentColumn), field(record, typeColumn),
+                field(record, projectColumn), null);
+    }
+
+    private static int column(List<String> columns, String name) {
+        int index = columns.indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("Coluna obrigatória ausente no CSV: " + name);
+        }
+        return index;
+    }
+
+    private static String field(List<String> record, int column) {
+        return column < record.size() ? record.get(column) : null;
+    }
+
+    /**
+     * Próximo registro, ou null no fim do arquivo. Linhas em branco são ignoradas.
+     */
+    private List<String> readRecord() {
+        try {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r') {
+                    if (c == '\r') {
+                        reader.mark(1);
+                        if (reader.read() != '\n') {
+                            reader.reset();
+                        }
+                    }
+                    if (fields.isEmpty() && field.isEmpty()) {
+                        any = false;
+                        continue;
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            if (!any) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.cloudhumans.chatbot.ingest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids (hashes de conteúdo) dos trechos já indexados de cada projeto, um por linha em
+ * &lt;directory&gt;/&lt;projeto&gt;.ids. Sem diretório fica só em memória, o que serve ao backend local,
+ * cujo índice também não sobrevive a um restart.
+ */
+class IngestionManifest {
+
+    private final Path directory;
+    private final Map<String, Set<String>> memory = new ConcurrentHashMap<>();
+
+    IngestionManifest(Path directory) {
+        this.directory = directory;
+    }
+
+    synchronized Set<String> load(String projectName) {
+        if (directory == null) {
+            return new HashSet<>(memory.getOrDefault(projectName, Set.of()));
+        }
+        Path file = file(projectName);
+        if (!Files.isRegularFile(file)) {
+            return new HashSet<>();
+        }
+        try (var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            Set<String> ids = new HashSet<>();
+            lines.filter(line -> !line.isBlank()).forEach(ids::add);
+            return ids;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    synchronized void save(String projectName, Set<String> ids) {
+        if (directory == null) {
+            memory.put(projectName, Set.copyOf(ids));
+            return;
+        }
+        Path file = file(projectName);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            Files.write(tmp, ids, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path file(String projectName) {
+        String safeName = projectName.replaceAll("[^A-Za-z0-9_-]", "_");
+        return directory.resolve(safeName + "-" + ContentHash.of(projectName).substring(0, 8) + ".ids");
+    }
+}
@@ -0,0 +1,31 @@
+package com.cloudhumans.chatbot.ingest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "cloudhumans.ingest")
+public class IngestionProperties {
+
+    /**
+     * Expõe POST /ingest; desligado por padrão porque altera o índice.
+     */
+    private boolean enabled = false;
+    private int chunkMaxTokens = 400;
+
+    /**
+     * Trechos por chamada à API de embeddings (também limitada por cloudhumans.embedding.max-batch-size).
+     */
+    private int embeddingBatchSize = 512;
+    private int upsertBatchSize = 500;
+
+    /**
+     * Lotes de embedding + upsert em andamento; a leitura da entrada pausa quando todos estão ocupados.
+     */
+    private int parallelism = 4;
+
+    /**
+     * Diretório dos manifestos de hashes já indexados; vazio mantém os manifestos só em memória.
+     */
+    private String manifestDir = "";
+}
@@ -0,0 +1,9 @@
+package com.cloudhumans.chatbot.ingest;
+
+/**
+ * Resumo de uma ingestão: unchanged são trechos já indexados (sem novo embedding), duplicates são trechos
+ * repetidos na própria entrada e failed os que não foram indexados e serão tentados na próxima execução.
+ */
+public record IngestionReport(long documents, long invalid, long chunks, long embedded, long unchanged,
+                              long duplicates, long failed, long deleted, long elapsedMillis) {
+}
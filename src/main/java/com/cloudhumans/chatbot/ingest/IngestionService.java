@@ -0,0 +1,293 @@
+package com.cloudhumans.chatbot.ingest;
+
+import com.cloudhumans.chatbot.cache.SemanticAnswerCache;
+import com.cloudhumans.chatbot.exception.OverloadedException;
+import com.cloudhumans.chatbot.limit.ConcurrencyLimits;
+import com.cloudhumans.chatbot.limit.TenantDispatcher;
+import com.cloudhumans.chatbot.model.search.IndexDocument;
+import com.cloudhumans.chatbot.search.VectorSearchBackend;
+import com.cloudhumans.chatbot.service.ContextBuilder;
+import com.cloudhumans.chatbot.service.EmbeddingService;
+import com.knuddels.jtokkit.api.Encoding;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Ingestão em lote da base de conhecimento: lê os documentos em streaming, divide em trechos, descarta os
+ * que já estão indexados (o id é o hash do conteúdo), gera os embeddings dos demais em lotes grandes e faz
+ * upsert no backend de busca. As chamadas de embedding passam pela fila justa e pelo bulkhead, como as do
+ * chat, para não esgotar o rate limit compartilhado. Até parallelism lotes ficam em andamento; com todos
+ * ocupados a leitura espera, então a memória usada não depende do tamanho da entrada. Ao final, as respostas
+ * em cache dos projetos alterados são invalidadas.
+ */
+@Service
+public class IngestionService {
+
+    private static final Logger logger = LogManager.getLogger(IngestionService.class);
+
+    private final EmbeddingService embeddingService;
+    private final VectorSearchBackend vectorSearchBackend;
+    private final IngestionProperties properties;
+    private final AsyncTaskExecutor taskExecutor;
+    private final MeterRegistry meterRegistry;
+    private final TenantDispatcher tenantDispatcher;
+    private final ConcurrencyLimits concurrencyLimits;
+    private final SemanticAnswerCache semanticAnswerCache;
+    private final Encoding encoding;
+    private final IngestionManifest manifest;
+
+    public IngestionService(EmbeddingService embeddingService, VectorSearchBackend vectorSearchBackend,
+                            IngestionProperties properties, AsyncTaskExecutor taskExecutor, MeterRegistry meterRegistry,
+                            TenantDispatcher tenantDispatcher, ConcurrencyLimits concurrencyLimits,
+                            SemanticAnswerCache semanticAnswerCache) {
+        this.embeddingService = embeddingService;
+        this.vectorSearchBackend = vectorSearchBackend;
+        this.properties = properties;
+        this.taskExecutor = taskExecutor;
+        this.meterRegistry = meterRegistry;
+        this.tenantDispatcher = tenantDispatcher;
+        this.concurrencyLimits = concurrencyLimits;
+        this.semanticAnswerCache = semanticAnswerCache;
+        this.encoding = ContextBuilder.encodingForModel(embeddingService.getEmbeddingModel());
+        this.manifest = new IngestionManifest(
+                properties.getManifestDir().isBlank() ? null : Path.of(properties.getManifestDir()));
+    }
+
+    /**
+     * Indexa os documentos; com prune=true remove do índice os trechos dos projetos da entrada que
+     * não apareceram nela (documentos apagados ou alterados).
+     */
+    public IngestionReport ingest(Iterator<IndexDocument> documents, boolean prune) {
+        long start = System.currentTimeMillis();
+        Chunker chunker = new Chunker(encoding, properties.getChunkMaxTokens());
+        Run run = new Run();
+        List<IndexDocument> batch = new ArrayList<>(properties.getEmbeddingBatchSize());
+        Deque<Pending> window = new ArrayDeque<>();
+
+        boolean completed = false;
+        try {
+            while (documents.hasNext()) {
+                IndexDocument document = documents.next();
+                if (document == null || isBlank(document.getContent()) || isBlank(document.getProjectName())) {
+                    run.invalid++;
+                    continue;
+                }
+                run.documents++;
+                String projectName = document.getProjectName();
+                Set<String> indexed = run.indexed(projectName);
+                Set<String> seen = run.seen.computeIfAbsent(projectName, p -> new HashSet<>());
+
+                for (String chunk : chunker.split(document.getContent())) {
+                    run.chunks++;
+                    String id = ContentHash.of(embeddingService.getEmbeddingModel(), projectName, document.getType(), chunk);
+                    if (!seen.add(id)) {
+                        run.duplicates++;
+                    } else if (indexed.contains(id)) {
+                        run.unchanged++;
+                    } else {
+                        batch.add(new IndexDocument(chunk, document.getType(), projectName, null, id));
+                        if (batch.size() == properties.getEmbeddingBatchSize()) {
+                            submit(batch, window, run);
+                            batch = new ArrayList<>(properties.getEmbeddingBatchSize());
+                        }
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(batch, window, run);
+            }
+            while (!window.isEmpty()) {
+                run.collect(await(window.poll()));
+            }
+
+            if (prune) {
+                run.indexed.keySet().forEach(projectName -> prune(projectName, run));
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                // a leitura falhou ou a thread foi interrompida: aproveita os lotes já concluídos e cancela o resto
+                for (Pending pending : window) {
+                    if (pending.future().isDone() && !pending.future().isCancelled()) {
+                        run.collect(await(pending));
+                    } else {
+                        pending.future().cancel(true);
+                    }
+                }
+            }
+            run.indexed.forEach(manifest::save);
+            run.changed.forEach(semanticAnswerCache::invalidate);
+        }
+
+        IngestionReport report = new IngestionReport(run.documents, run.invalid, run.chunks, run.embedded,
+                run.unchanged, run.duplicates, run.failed, run.deleted, System.currentTimeMillis() - start);
+        record(report);
+        logger.info("Ingestão concluída: {}", report);
+        return report;
+    }
+
+    private void submit(List<IndexDocument> batch, Deque<Pending> window, Run run) {
+        window.add(new Pending(batch.size(), taskExecutor.submit(() -> embedAndUpsert(batch))));
+        if (window.size() >= properties.getParallelism()) {
+            run.collect(await(window.poll()));
+        }
+    }
+
+    private BatchOutcome embedAndUpsert(List<IndexDocument> batch) {
+        Map<String, List<IndexDocument>> byProject = new LinkedHashMap<>();
+        for (IndexDocument document : batch) {
+            byProject.computeIfAbsent(document.getProjectName(), p -> new ArrayList<>()).add(document);
+        }
+        int failed = 0;
+        for (Map.Entry<String, List<IndexDocument>> entry : byProject.entrySet()) {
+            List<IndexDocument> documents = entry.getValue();
+            List<float[]> vectors = embed(entry.getKey(), documents);
+            for (int i = 0; i < documents.size(); i++) {
+                documents.get(i).setEmbeddings(vectors.get(i));
+            }
+            failed += (int) vectors.stream().filter(Objects::isNull).count();
+            documents.removeIf(document -> document.getEmbeddings() == null);
+        }
+
+        Map<String, List<String>> upserted = new HashMap<>();
+        for (Map.Entry<String, List<IndexDocument>> entry : byProject.entrySet()) {
+            List<IndexDocument> documents = entry.getValue();
+            for (int start = 0; start < documents.size(); start += properties.getUpsertBatchSize()) {
+                List<IndexDocument> part = documents.subList(start,
+                        Math.min(documents.size(), start + properties.getUpsertBatchSize()));
+                if (vectorSearchBackend.upsert(entry.getKey(), part)) {
+                    upserted.computeIfAbsent(entry.getKey(), p -> new ArrayList<>())
+                            .addAll(part.stream().map(IndexDocument::getId).toList());
+                } else {
+                    failed += part.size();
+                }
+            }
+        }
+        return new BatchOutcome(upserted, failed);
+    }
+
+    /**
+     * Embeddings dos trechos de um projeto; se a fila justa ou o bulkhead rejeitam, o lote conta como falho
+     * e fica para a próxima ingestão.
+     */
+    private List<float[]> embed(String projectName, List<IndexDocument> documents) {
+        List<String> inputs = documents.stream().map(IndexDocument::getContent).toList();
+        long tokens = inputs.stream().mapToLong(encoding::countTokens).sum();
+        try {
+            return tenantDispatcher.dispatch(ConcurrencyLimits.EMBEDDING, projectName, tokens,
+                    () -> concurrencyLimits.call(ConcurrencyLimits.EMBEDDING,
+                            () -> embeddingService.embedUncached(inputs)));
+        } catch (OverloadedException e) {
+            logger.warn("Embeddings de {} trecho(s) do projeto {} rejeitados: {}", inputs.size(), projectName,
+                    e.getMessage());
+            return Arrays.asList(new float[inputs.size()][]);
+        }
+    }
+
+    private void prune(String projectName, Run run) {
+        Set<String> indexed = run.indexed.get(projectName);
+        Set<String> seen = run.seen.getOrDefault(projectName, Set.of());
+        List<String> stale = indexed.stream().filter(id -> !seen.contains(id)).toList();
+        if (stale.isEmpty()) {
+            return;
+        }
+        for (int start = 0; start < stale.size(); start += properties.getUpsertBatchSize()) {
+            List<String> part = stale.subList(start, Math.min(stale.size(), start + properties.getUpsertBatchSize()));
+            if (vectorSearchBackend.delete(projectName, part)) {
+                part.forEach(indexed::remove);
+                run.deleted += part.size();
+                run.changed.add(projectName);
+            }
+        }
+    }
+
+    /**
+     * Um lote que falhou conta seus trechos como falhos, que ficam para a próxima ingestão, sem abortar as demais.
+     */
+    private static BatchOutcome await(Pending pending) {
+        try {
+            return pending.future().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ingestão interrompida.", e);
+        } catch (ExecutionException e) {
+            logger.warn("Lote de {} trecho(s) falhou na ingestão: {}", pending.size(), e.getCause().toString());
+            return new BatchOutcome(Map.of(), pending.size());
+        }
+    }
+
+    private void record(IngestionReport report) {
+        chunks("embedded", report.embedded());
+        chunks("unchanged", report.unchanged());
+        chunks("duplicate", report.duplicates());
+        chunks("failed", report.failed());
+    }
+
+    private void chunks(String outcome, long count) {
+        Counter.builder("chatbot.ingest.chunks")
+                .description("Trechos processados pela ingestão")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(count);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private record BatchOutcome(Map<String, List<String>> upserted, int failed) {
+    }
+
+    private record Pending(int size, Future<BatchOutcome> future) {
+    }
+
+    /**
+     * Estado de uma execução; só é acessado pela thread que lê a entrada.
+     */
+    private final class Run {
+        private final Map<String, Set<String>> indexed = new LinkedHashMap<>();
+        private final Map<String, Set<String>> seen = new HashMap<>();
+        private final Set<String> changed = new HashSet<>();
+        private long documents;
+        private long invalid;
+        private long chunks;
+        private long embedded;
+        private long unchanged;
+        private long duplicates;
+        private long failed;
+        private long deleted;
+
+        private Set<String> indexed(String projectName) {
+            return indexed.computeIfAbsent(projectName, manifest::load);
+        }
+
+        private void collect(BatchOutcome outcome) {
+            outcome.upserted().forEach((projectName, ids) -> {
+                indexed(projectName).addAll(ids);
+                embedded += ids.size();
+                changed.add(projectName);
+            });
+            failed += outcome.failed();
+        }
+    }
+}
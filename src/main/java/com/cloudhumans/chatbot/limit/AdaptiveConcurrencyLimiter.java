@@ -0,0 +1,147 @@
+package com.cloudhumans.chatbot.limit;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de concorrência adaptativo no estilo gradiente (Gradient2 do Netflix concurrency-limits):
+ * compara a latência recente (média móvel curta) com a de referência (média móvel longa). Enquanto a
+ * latência recente não passa de rttTolerance vezes a de referência o limite cresce em sqrt(limite);
+ * quando passa, o limite é multiplicado pela razão entre as duas, e as requisições acima dele são
+ * rejeitadas em vez de enfileiradas.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int LONG_WINDOW = 600;
+    private static final int SHORT_WINDOW = 10;
+
+    private final String name;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private volatile int minLimit;
+    private volatile int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+
+    private double estimatedLimit;
+    private double longRtt;
+    private double shortRtt;
+    private long samples;
+
+    public AdaptiveConcurrencyLimiter(String name, LimitProperties.Limiter properties) {
+        this.name = name;
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.rttTolerance = properties.getRttTolerance();
+        this.smoothing = properties.getSmoothing();
+        this.estimatedLimit = clamp(properties.getInitialLimit(), minLimit, maxLimit);
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Retorna uma permissão, ou null se já há limit requisições em andamento.
+     */
+    public Permit tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(System.nanoTime(), current + 1);
+            }
+        }
+    }
+
+    synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        if (samples++ == 0) {
+            longRtt = rttNanos;
+            shortRtt = rttNanos;
+        } else {
+            longRtt += (rttNanos - longRtt) / Math.min(samples, LONG_WINDOW);
+            shortRtt += (rttNanos - shortRtt) / Math.min(samples, SHORT_WINDOW);
+        }
+        // depois de um pico a referência fica inflada; aproxima-a da latência atual para o limite voltar a crescer
+        if (longRtt > shortRtt * 2) {
+            longRtt *= 0.95;
+        }
+        // com menos da metade do limite em uso não há evidência para mudá-lo
+        if (inFlightAtStart * 2 < estimatedLimit) {
+            return;
+        }
+
+        double gradient = clamp(rttTolerance * longRtt / shortRtt, 0.5, 1.0);
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = clamp(estimatedLimit * (1 - smoothing) + newLimit * smoothing, minLimit, maxLimit);
+        limit = (int) estimatedLimit;
+    }
+
+    public synchronized void setBounds(int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        estimatedLimit = clamp(estimatedLimit, minLimit, maxLimit);
+        limit = (int) estimatedLimit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public synchronized double getLongRttMillis() {
+        return longRtt / 1e6;
+    }
+
+    public synchronized double getShortRttMillis() {
+        return shortRtt / 1e6;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public class Permit {
+        private final long start;
+        private final int inFlightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long start, int inFlightAtStart) {
+            this.start = start;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * Libera a vaga registrando a latência como amostra.
+         */
+        public void success() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                onSample(System.nanoTime() - start, inFlightAtStart);
+            }
+        }
+
+        /**
+         * Libera a vaga sem amostra (erros costumam ser rápidos e distorceriam a latência).
+         */
+        public void ignore() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.cloudhumans.chatbot.limit;
+
+import com.cloudhumans.chatbot.deadline.Deadline;
+import com.cloudhumans.chatbot.exception.DeadlineExceededException;
+import com.cloudhumans.chatbot.exception.OverloadedException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Limite fixo (ajustável em runtime) de chamadas simultâneas a um destino, para que um destino lento
+ * não ocupe todas as threads do pipeline.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final ResizableSemaphore permits;
+    private final Duration retryAfter;
+    private volatile int maxConcurrent;
+    private volatile Duration maxWait;
+
+    public Bulkhead(String name, LimitProperties.Bulkhead properties, Duration retryAfter) {
+        this.name = name;
+        this.maxConcurrent = properties.getMaxConcurrent();
+        this.maxWait = properties.getMaxWait();
+        this.retryAfter = retryAfter;
+        this.permits = new ResizableSemaphore(maxConcurrent);
+    }
+
+    /**
+     * A espera por uma vaga (maxWait) é limitada ao prazo da requisição; se é o prazo que acaba antes,
+     * lança DeadlineExceededException em vez de OverloadedException.
+     */
+    public <T> T call(Supplier<T> call) {
+        Deadline deadline = Deadline.current();
+        boolean deadlineBound = deadline != null && deadline.remainingNanos() < maxWait.toNanos();
+        if (!acquire(deadlineBound ? Math.max(0, deadline.remainingNanos()) : maxWait.toNanos())) {
+            if (deadlineBound) {
+                throw new DeadlineExceededException(name, deadline.isCancelled());
+            }
+            throw new OverloadedException(name, retryAfter);
+        }
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Vaga sem espera para uma chamada extra (hedge), devolvida com release; false se o bulkhead está cheio.
+     */
+    public boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    private boolean acquire(long waitNanos) {
+        if (waitNanos <= 0) {
+            return permits.tryAcquire();
+        }
+        try {
+            return permits.tryAcquire(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public synchronized void setMaxConcurrent(int newMax) {
+        int delta = newMax - maxConcurrent;
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            permits.reducePermits(-delta);
+        }
+        maxConcurrent = newMax;
+    }
+
+    public void setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    public int getInFlight() {
+        return Math.max(0, maxConcurrent - permits.availablePermits());
+    }
+
+    private static final class ResizableSemaphore extends Semaphore {
+
+        private ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
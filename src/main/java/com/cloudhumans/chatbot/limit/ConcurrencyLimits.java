@@ -0,0 +1,138 @@
+package com.cloudhumans.chatbot.limit;
+
+import com.cloudhumans.chatbot.exception.OverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Limiter adaptativo das requisições de chat e bulkheads por destino (embedding, search, llm),
+ * com gauges de limite/uso e contadores de rejeição. Com cloudhumans.limits.enabled=false nada é limitado.
+ */
+@Component
+public class ConcurrencyLimits {
+
+    public static final String EMBEDDING = "embedding";
+    public static final String SEARCH = "search";
+    public static final String LLM = "llm";
+
+    private final LimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final AdaptiveConcurrencyLimiter chatLimiter;
+    private final Map<String, Bulkhead> bulkheads = new LinkedHashMap<>();
+
+    public ConcurrencyLimits(LimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.chatLimiter = new AdaptiveConcurrencyLimiter("chat", properties.getChat());
+
+        Gauge.builder("chatbot.limiter.limit", chatLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Limite de concorrência atual do limiter adaptativo")
+                .tag("name", chatLimiter.getName())
+                .register(meterRegistry);
+        Gauge.builder("chatbot.limiter.inflight", chatLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("name", chatLimiter.getName())
+                .register(meterRegistry);
+
+        for (String name : new String[]{EMBEDDING, SEARCH, LLM}) {
+            Bulkhead bulkhead = new Bulkhead(name, properties.bulkhead(name), properties.getRetryAfter());
+            bulkheads.put(name, bulkhead);
+            Gauge.builder("chatbot.bulkhead.max", bulkhead, Bulkhead::getMaxConcurrent)
+                    .tag("downstream", name)
+                    .register(meterRegistry);
+            Gauge.builder("chatbot.bulkhead.inflight", bulkhead, Bulkhead::getInFlight)
+                    .tag("downstream", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Executa a requisição de chat dentro do limiter adaptativo: a vaga é liberada quando o future
+     * completa, e só respostas sem erro viram amostras de latência. Lança OverloadedException se o
+     * limite foi atingido.
+     */
+    public <T> CompletableFuture<T> limitChat(Supplier<CompletableFuture<T>> call) {
+        if (!properties.isEnabled()) {
+            return call.get();
+        }
+        AdaptiveConcurrencyLimiter.Permit permit = chatLimiter.tryAcquire();
+        if (permit == null) {
+            rejected("limiter", chatLimiter.getName());
+            throw new OverloadedException(chatLimiter.getName(), properties.getRetryAfter());
+        }
+        try {
+            return call.get().whenComplete((result, error) -> {
+                if (error == null) {
+                    permit.success();
+                } else {
+                    permit.ignore();
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            permit.ignore();
+            throw e;
+        }
+    }
+
+    /**
+     * Executa a chamada ao destino dentro do seu bulkhead.
+     */
+    public <T> T call(String downstream, Supplier<T> call) {
+        if (!properties.isEnabled()) {
+            return call.get();
+        }
+        try {
+            return bulkheads.get(downstream).call(call);
+        } catch (OverloadedException e) {
+            rejected("bulkhead", downstream);
+            throw e;
+        }
+    }
+
+    /**
+     * Vaga extra no bulkhead do destino, sem espera, para um hedge: a chamada original já ocupa uma.
+     * Retorna false (e conta a rejeição) se não há vaga; com os limites desabilitados sempre há.
+     */
+    public boolean tryAcquireHedge(String downstream) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        if (bulkheads.get(downstream).tryAcquire()) {
+            return true;
+        }
+        rejected("hedge", downstream);
+        return false;
+    }
+
+    public void releaseHedge(String downstream) {
+        if (properties.isEnabled()) {
+            bulkheads.get(downstream).release();
+        }
+    }
+
+    public AdaptiveConcurrencyLimiter getChatLimiter() {
+        return chatLimiter;
+    }
+
+    public Bulkhead getBulkhead(String downstream) {
+        return bulkheads.get(downstream);
+    }
+
+    public Map<String, Bulkhead> getBulkheads() {
+        return bulkheads;
+    }
+
+    private void rejected(String type, String name) {
+        Counter.builder("chatbot.limiter.rejected")
+                .description("Requisições rejeitadas por limite de concorrência")
+                .tags("type", type, "name", name)
+                .register(meterRegistry)
+                .increment();
+    }
+}
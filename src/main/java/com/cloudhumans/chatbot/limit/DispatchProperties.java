@@ -0,0 +1,37 @@
+package com.cloudhumans.chatbot.limit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "cloudhumans.dispatch")
+public class DispatchProperties {
+
+    private boolean enabled = true;
+    /**
+     * Fração restante do limite de requisições ou tokens abaixo da qual as chamadas passam a ser espaçadas
+     * até a renovação da janela, em vez de seguirem até o provedor responder 429.
+     */
+    private double smoothingThreshold = 0.2;
+    /**
+     * Espera máxima na fila antes de rejeitar com 503.
+     */
+    private Duration maxWait = Duration.ofSeconds(30);
+    /**
+     * Tokens de resposta estimados somados aos do prompt no custo de uma chamada ao LLM.
+     */
+    private int completionTokens = 300;
+    private double defaultWeight = 1.0;
+    /**
+     * Peso de cada projectName na fila justa: um projeto com peso 2 recebe o dobro da vazão de um com peso 1.
+     */
+    private Map<String, Double> weights = new HashMap<>();
+
+    public double weight(String projectName) {
+        return weights.getOrDefault(projectName, defaultWeight);
+    }
+}
@@ -0,0 +1,160 @@
+package com.cloudhumans.chatbot.limit;
+
+import com.cloudhumans.chatbot.deadline.Deadline;
+import com.cloudhumans.chatbot.exception.DeadlineExceededException;
+import com.cloudhumans.chatbot.exception.OverloadedException;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Fila justa ponderada (weighted fair queuing) na frente de um destino com orçamento de rate limit
+ * compartilhado. Com orçamento folgado as chamadas seguem direto; quando o RateLimitBudget manda esperar,
+ * elas entram na fila e saem uma a uma, no ritmo do orçamento, em ordem de finish tag: cada tenant avança
+ * custo / peso por chamada, de modo que um tenant com muitas chamadas não atrasa os demais além da sua fatia.
+ */
+public class FairQueue {
+
+    private final String name;
+    private final RateLimitBudget budget;
+    private final ToDoubleFunction<String> weights;
+    private final Duration retryAfter;
+    private final LongSupplier clock;
+    private volatile Duration maxWait;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Ticket> queue = new PriorityQueue<>(
+            Comparator.comparingDouble(Ticket::finish).thenComparingLong(Ticket::sequence));
+    private final Map<String, Double> lastFinish = new HashMap<>();
+    private double virtualTime;
+    private long sequence;
+
+    public FairQueue(String name, RateLimitBudget budget, ToDoubleFunction<String> weights, Duration maxWait,
+                     Duration retryAfter, LongSupplier clock) {
+        this.name = name;
+        this.budget = budget;
+        this.weights = weights;
+        this.maxWait = maxWait;
+        this.retryAfter = retryAfter;
+        this.clock = clock;
+    }
+
+    /**
+     * Bloqueia até a vez do tenant e desconta o custo do orçamento. Retorna o tempo de espera em nanos;
+     * lança OverloadedException se a espera passaria de maxWait, ou DeadlineExceededException se passaria
+     * antes do prazo da requisição (Deadline).
+     */
+    public long acquire(String tenant, long cost) {
+        long start = clock.getAsLong();
+        lock.lock();
+        try {
+            if (queue.isEmpty() && budget.delayNanos(cost) == 0) {
+                budget.onDispatch(cost);
+                return 0;
+            }
+
+            double startTag = Math.max(virtualTime, lastFinish.getOrDefault(tenant, 0.0));
+            double weight = Math.max(weights.applyAsDouble(tenant), 1e-3);
+            Ticket ticket = new Ticket(startTag, startTag + Math.max(cost, 1) / weight, sequence++, cost);
+            lastFinish.put(tenant, ticket.finish());
+            queue.add(ticket);
+
+            Deadline requestDeadline = Deadline.current();
+            boolean deadlineBound = requestDeadline != null && requestDeadline.remainingNanos() < maxWait.toNanos();
+            long deadline = start + (deadlineBound ? Math.max(0, requestDeadline.remainingNanos()) : maxWait.toNanos());
+            while (true) {
+                long now = clock.getAsLong();
+                long wait = deadline - now;
+                if (queue.peek() == ticket) {
+                    long delay = budget.delayNanos(cost);
+                    if (delay == 0) {
+                        dispatch(ticket);
+                        return clock.getAsLong() - start;
+                    }
+                    if (delay > wait) {
+                        // nem a vez chegando agora caberia no prazo
+                        remove(ticket);
+                        throw rejected(requestDeadline, deadlineBound);
+                    }
+                    wait = delay;
+                }
+                if (now - deadline >= 0) {
+                    remove(ticket);
+                    throw rejected(requestDeadline, deadlineBound);
+                }
+                try {
+                    changed.awaitNanos(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    remove(ticket);
+                    throw rejected(requestDeadline, deadlineBound);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private RuntimeException rejected(Deadline requestDeadline, boolean deadlineBound) {
+        return deadlineBound
+                ? new DeadlineExceededException(name, requestDeadline.isCancelled())
+                : new OverloadedException(name, retryAfter);
+    }
+
+    private void dispatch(Ticket ticket) {
+        queue.poll();
+        budget.onDispatch(ticket.cost());
+        virtualTime = Math.max(virtualTime, ticket.start());
+        if (queue.isEmpty()) {
+            // sem fila não há a quem ser justo: o histórico dos tenants recomeça do zero
+            lastFinish.clear();
+            virtualTime = 0;
+        }
+        changed.signalAll();
+    }
+
+    private void remove(Ticket ticket) {
+        queue.remove(ticket);
+        if (queue.isEmpty()) {
+            lastFinish.clear();
+            virtualTime = 0;
+        }
+        changed.signalAll();
+    }
+
+    public void setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    public RateLimitBudget getBudget() {
+        return budget;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Ticket(double start, double finish, long sequence, long cost) {
+    }
+}
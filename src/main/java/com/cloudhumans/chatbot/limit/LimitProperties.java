@@ -0,0 +1,46 @@
+package com.cloudhumans.chatbot.limit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "cloudhumans.limits")
+public class LimitProperties {
+
+    private boolean enabled = true;
+    /**
+     * Valor do header Retry-After nas respostas 503 por sobrecarga.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+    private Limiter chat = new Limiter();
+    private Map<String, Bulkhead> bulkheads = new HashMap<>();
+
+    public Bulkhead bulkhead(String name) {
+        return bulkheads.getOrDefault(name, new Bulkhead());
+    }
+
+    @Data
+    public static class Limiter {
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 200;
+        /**
+         * Quanto a latência recente pode superar a de referência antes de o limite diminuir.
+         */
+        private double rttTolerance = 1.5;
+        private double smoothing = 0.2;
+    }
+
+    @Data
+    public static class Bulkhead {
+        private int maxConcurrent = 50;
+        /**
+         * Espera máxima por uma vaga antes de rejeitar; zero rejeita imediatamente.
+         */
+        private Duration maxWait = Duration.ZERO;
+    }
+}
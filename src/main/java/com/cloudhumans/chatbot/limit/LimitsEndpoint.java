@@ -0,0 +1,78 @@
+package com.cloudhumans.chatbot.limit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/limits: estado dos limites e ajuste em runtime.
+ * POST /actuator/limits/chat {"minLimit": 10, "maxLimit": 300}
+ * POST /actuator/limits/llm {"maxConcurrent": 80, "maxWaitMillis": 200}
+ */
+@Component
+@Endpoint(id = "limits")
+public class LimitsEndpoint {
+
+    private final ConcurrencyLimits limits;
+
+    public LimitsEndpoint(ConcurrencyLimits limits) {
+        this.limits = limits;
+    }
+
+    @ReadOperation
+    public Map<String, Object> limits() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put(limits.getChatLimiter().getName(), describe(limits.getChatLimiter()));
+        limits.getBulkheads().forEach((name, bulkhead) -> state.put(name, describe(bulkhead)));
+        return state;
+    }
+
+    @WriteOperation
+    public Map<String, Object> update(@Selector String name, @Nullable Integer minLimit, @Nullable Integer maxLimit,
+                                      @Nullable Integer maxConcurrent, @Nullable Long maxWaitMillis) {
+        AdaptiveConcurrencyLimiter limiter = limits.getChatLimiter();
+        if (limiter.getName().equals(name)) {
+            limiter.setBounds(minLimit != null ? minLimit : limiter.getMinLimit(),
+                    maxLimit != null ? maxLimit : limiter.getMaxLimit());
+            return describe(limiter);
+        }
+
+        Bulkhead bulkhead = limits.getBulkhead(name);
+        if (bulkhead == null) {
+            throw new IllegalArgumentException("Limite desconhecido: " + name);
+        }
+        if (maxConcurrent != null) {
+            bulkhead.setMaxConcurrent(maxConcurrent);
+        }
+        if (maxWaitMillis != null) {
+            bulkhead.setMaxWait(Duration.ofMillis(maxWaitMillis));
+        }
+        return describe(bulkhead);
+    }
+
+    private static Map<String, Object> describe(AdaptiveConcurrencyLimiter limiter) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("limit", limiter.getLimit());
+        state.put("minLimit", limiter.getMinLimit());
+        state.put("maxLimit", limiter.getMaxLimit());
+        state.put("inFlight", limiter.getInFlight());
+        state.put("shortRttMillis", limiter.getShortRttMillis());
+        state.put("longRttMillis", limiter.getLongRttMillis());
+        return state;
+    }
+
+    private static Map<String, Object> describe(Bulkhead bulkhead) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("maxConcurrent", bulkhead.getMaxConcurrent());
+        state.put("maxWaitMillis", bulkhead.getMaxWait().toMillis());
+        state.put("inFlight", bulkhead.getInFlight());
+        return state;
+    }
+}
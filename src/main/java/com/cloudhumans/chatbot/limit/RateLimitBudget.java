@@ -0,0 +1,153 @@
+package com.cloudhumans.chatbot.limit;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Orçamento de requisições e tokens de uma chave de API, lido dos headers x-ratelimit-* das respostas
+ * (limit, remaining e reset, para requests e tokens) e descontado localmente a cada chamada despachada.
+ * Enquanto sobra mais que smoothingThreshold do limite nada é atrasado; abaixo disso o restante é
+ * distribuído até a renovação da janela, e com o orçamento esgotado a próxima chamada espera a renovação.
+ */
+public class RateLimitBudget {
+
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+    private static final Duration DEFAULT_WINDOW = Duration.ofMinutes(1);
+
+    private final double smoothingThreshold;
+    private final LongSupplier clock;
+    private final Dimension requests = new Dimension("requests");
+    private final Dimension tokens = new Dimension("tokens");
+
+    public RateLimitBudget(double smoothingThreshold, LongSupplier clock) {
+        this.smoothingThreshold = smoothingThreshold;
+        this.clock = clock;
+    }
+
+    public synchronized void update(HttpHeaders headers) {
+        long now = clock.getAsLong();
+        requests.update(headers, now);
+        tokens.update(headers, now);
+    }
+
+    /**
+     * Quanto esperar antes de despachar uma chamada que consome tokenCost tokens; zero se pode seguir já.
+     */
+    public synchronized long delayNanos(long tokenCost) {
+        long now = clock.getAsLong();
+        return Math.max(requests.delay(1, now), tokens.delay(tokenCost, now));
+    }
+
+    public synchronized void onDispatch(long tokenCost) {
+        long now = clock.getAsLong();
+        requests.consume(1, now);
+        tokens.consume(tokenCost, now);
+    }
+
+    public synchronized double remainingRequests() {
+        return requests.remaining(clock.getAsLong());
+    }
+
+    public synchronized double remainingTokens() {
+        return tokens.remaining(clock.getAsLong());
+    }
+
+    /**
+     * Durações no formato dos headers de reset da OpenAI ("1s", "6m0s", "20ms", "1h2m3.5s").
+     */
+    static Duration parseDuration(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Matcher matcher = DURATION_PART.matcher(value.trim());
+        double nanos = 0;
+        boolean matched = false;
+        while (matcher.find()) {
+            matched = true;
+            double amount = Double.parseDouble(matcher.group(1));
+            nanos += amount * switch (matcher.group(2)) {
+                case "h" -> 3_600e9;
+                case "m" -> 60e9;
+                case "s" -> 1e9;
+                default -> 1e6;
+            };
+        }
+        return matched ? Duration.ofNanos((long) nanos) : null;
+    }
+
+    private static long longHeader(HttpHeaders headers, String name) {
+        String value = headers.getFirst(name);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private final class Dimension {
+        private final String name;
+        private long limit = -1;
+        private long remaining;
+        private long resetAt;
+        private long lastDispatch;
+        private boolean dispatched;
+
+        private Dimension(String name) {
+            this.name = name;
+        }
+
+        private void update(HttpHeaders headers, long now) {
+            long remainingHeader = longHeader(headers, "x-ratelimit-remaining-" + name);
+            if (remainingHeader < 0) {
+                return;
+            }
+            long limitHeader = longHeader(headers, "x-ratelimit-limit-" + name);
+            if (limitHeader > 0) {
+                limit = limitHeader;
+            } else if (limit < 0) {
+                limit = remainingHeader;
+            }
+            Duration reset = parseDuration(headers.getFirst("x-ratelimit-reset-" + name));
+            remaining = remainingHeader;
+            resetAt = now + (reset != null ? reset : DEFAULT_WINDOW).toNanos();
+        }
+
+        private long delay(long cost, long now) {
+            // sem headers ainda, ou janela já renovada
+            if (limit <= 0 || now - resetAt >= 0) {
+                return 0;
+            }
+            if (remaining - cost >= limit * smoothingThreshold) {
+                return 0;
+            }
+            long window = resetAt - now;
+            if (remaining < cost) {
+                return window;
+            }
+            long interval = (long) ((double) window * cost / remaining);
+            return dispatched ? Math.max(0, lastDispatch + interval - now) : 0;
+        }
+
+        private void consume(long cost, long now) {
+            if (limit > 0 && now - resetAt < 0) {
+                remaining = Math.max(0, remaining - cost);
+            }
+            lastDispatch = now;
+            dispatched = true;
+        }
+
+        private double remaining(long now) {
+            if (limit <= 0) {
+                return Double.NaN;
+            }
+            return now - resetAt >= 0 ? limit : remaining;
+        }
+    }
+}
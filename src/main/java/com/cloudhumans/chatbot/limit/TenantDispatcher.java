@@ -0,0 +1,144 @@
+package com.cloudhumans.chatbot.limit;
+
+import com.cloudhumans.chatbot.exception.OverloadedException;
+import com.cloudhumans.chatbot.metrics.ChatMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Despacho das chamadas ao LLM e à API de embeddings, que compartilham uma chave (e um rate limit) entre
+ * todos os projetos: uma FairQueue por destino, ponderada por projectName, com o ritmo ditado pelo
+ * RateLimitBudget que o RateLimitHeadersInterceptor alimenta com os headers das respostas.
+ * Com cloudhumans.dispatch.enabled=false as chamadas seguem direto.
+ */
+@Component
+public class TenantDispatcher {
+
+    private final DispatchProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ChatMetrics chatMetrics;
+    private final Map<String, FairQueue> queues = new LinkedHashMap<>();
+    private final Map<String, AtomicInteger> depths = new ConcurrentHashMap<>();
+    private final ThreadLocal<Dispatched> dispatched = new ThreadLocal<>();
+
+    public TenantDispatcher(DispatchProperties properties, LimitProperties limitProperties,
+                            MeterRegistry meterRegistry, ChatMetrics chatMetrics) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.chatMetrics = chatMetrics;
+
+        for (String name : new String[]{ConcurrencyLimits.EMBEDDING, ConcurrencyLimits.LLM}) {
+            RateLimitBudget budget = new RateLimitBudget(properties.getSmoothingThreshold(), System::nanoTime);
+            queues.put(name, new FairQueue(name, budget, properties::weight, properties.getMaxWait(),
+                    limitProperties.getRetryAfter(), System::nanoTime));
+            Gauge.builder("chatbot.ratelimit.remaining", budget, RateLimitBudget::remainingRequests)
+                    .description("Requisições restantes na janela de rate limit do provedor")
+                    .tags("downstream", name, "type", "requests")
+                    .register(meterRegistry);
+            Gauge.builder("chatbot.ratelimit.remaining", budget, RateLimitBudget::remainingTokens)
+                    .description("Tokens restantes na janela de rate limit do provedor")
+                    .tags("downstream", name, "type", "tokens")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Executa a chamada quando for a vez do projeto; tokens é o custo estimado da chamada.
+     */
+    public <T> T dispatch(String downstream, String projectName, long tokens, Supplier<T> call) {
+        FairQueue queue = queues.get(downstream);
+        if (!properties.isEnabled() || queue == null) {
+            return call.get();
+        }
+        String project = chatMetrics.projectTag(projectName);
+        AtomicInteger depth = depth(downstream, project);
+        depth.incrementAndGet();
+        long waited;
+        try {
+            waited = queue.acquire(projectName, tokens);
+        } catch (OverloadedException e) {
+            Counter.builder("chatbot.limiter.rejected")
+                    .description("Requisições rejeitadas por limite de concorrência")
+                    .tags("type", "dispatch", "name", downstream)
+                    .register(meterRegistry)
+                    .increment();
+            throw e;
+        } finally {
+            depth.decrementAndGet();
+        }
+        Timer.builder("chatbot.dispatch.wait")
+                .description("Espera na fila justa antes da chamada ao provedor")
+                .tags("downstream", downstream, "project", project)
+                .register(meterRegistry)
+                .record(waited, TimeUnit.NANOSECONDS);
+        Dispatched previous = dispatched.get();
+        dispatched.set(new Dispatched(downstream, tokens));
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                dispatched.set(previous);
+            } else {
+                dispatched.remove();
+            }
+        }
+    }
+
+    /**
+     * Custo estimado da chamada a downstream despachada nesta thread (0 se não há), para cobrar suas repetições.
+     */
+    public long dispatchedTokens(String downstream) {
+        Dispatched current = dispatched.get();
+        return current != null && current.downstream().equals(downstream) ? current.tokens() : 0;
+    }
+
+    /**
+     * Desconta do orçamento do destino uma chamada que não passou pela fila (o hedge de uma já despachada).
+     */
+    public void charge(String downstream, long tokens) {
+        RateLimitBudget budget = budget(downstream);
+        if (properties.isEnabled() && budget != null) {
+            budget.onDispatch(tokens);
+        }
+    }
+
+    /**
+     * Tokens de resposta a somar aos do prompt na estimativa de custo de uma chamada ao LLM.
+     */
+    public int getCompletionTokens() {
+        return properties.getCompletionTokens();
+    }
+
+    public FairQueue getQueue(String downstream) {
+        return queues.get(downstream);
+    }
+
+    public RateLimitBudget budget(String downstream) {
+        FairQueue queue = queues.get(downstream);
+        return queue != null ? queue.getBudget() : null;
+    }
+
+    private AtomicInteger depth(String downstream, String project) {
+        return depths.computeIfAbsent(downstream + '\u0000' + project, key -> {
+            AtomicInteger depth = new AtomicInteger();
+            Gauge.builder("chatbot.dispatch.queue.depth", depth, AtomicInteger::get)
+                    .description("Chamadas aguardando a vez na fila justa")
+                    .tags("downstream", downstream, "project", project)
+                    .register(meterRegistry);
+            return depth;
+        });
+    }
+
+    private record Dispatched(String downstream, long tokens) {
+    }
+}
@@ -0,0 +1,224 @@
+package com.cloudhumans.chatbot.metrics;
+
+import com.cloudhumans.chatbot.model.llm.Usage;
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Métricas e spans do pipeline por projeto. Só os primeiros max-projects projetos ganham tag própria;
+ * os demais são agregados em "other" para limitar a cardinalidade das séries.
+ */
+@Component
+public class ChatMetrics {
+
+    public static final String OTHER_PROJECT = "other";
+
+    private static final double[] SCORE_BUCKETS = {0.5, 0.6, 0.7, 0.75, 0.8, 0.85, 0.9, 0.95, 1.0};
+
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final int maxProjects;
+    private final Set<String> knownProjects = ConcurrentHashMap.newKeySet();
+
+    public ChatMetrics(MeterRegistry meterRegistry, ObservationRegistry observationRegistry,
+                       @Value("${cloudhumans.metrics.max-projects:100}") int maxProjects) {
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        this.maxProjects = maxProjects;
+    }
+
+    /**
+     * Executa uma etapa do pipeline dentro de uma Observation (timer chatbot.pipeline.stage + span
+     * com o nome da etapa); resultado null conta como falha.
+     */
+    public <T> T time(String stage, String projectName, Supplier<T> call) {
+        return time(stage, projectName, call, result -> KeyValues.empty());
+    }
+
+    /**
+     * Como time(stage, projectName, call), adicionando ao span os atributos calculados a partir do resultado.
+     */
+    public <T> T time(String stage, String projectName, Supplier<T> call, Function<T, KeyValues> attributes) {
+        String project = projectTag(projectName);
+        Observation observation = Observation.createNotStarted("chatbot.pipeline.stage", observationRegistry)
+                .contextualName(stage)
+                .lowCardinalityKeyValue("stage", stage)
+                .lowCardinalityKeyValue("project", project)
+                .start();
+        T result = null;
+        try (Observation.Scope scope = observation.openScope()) {
+            result = call.get();
+            return result;
+        } catch (RuntimeException | Error e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", result != null ? "success" : "failure");
+            observation.highCardinalityKeyValues(attributes.apply(result));
+            observation.stop();
+            if (result == null) {
+                Counter.builder("chatbot.pipeline.failures")
+                        .tags("stage", stage, "project", project)
+                        .register(meterRegistry)
+                        .increment();
+            }
+        }
+    }
+
+    /**
+     * Adiciona um atributo ao span da etapa em execução na thread atual, se houver.
+     */
+    public void annotate(String key, Object value) {
+        Observation current = observationRegistry.getCurrentObservation();
+        if (current != null) {
+            current.highCardinalityKeyValue(key, String.valueOf(value));
+        }
+    }
+
+    public void handover(String projectName) {
+        Counter.builder("chatbot.pipeline.handovers")
+                .description("Respostas com handoverToHumanNeeded=true")
+                .tag("project", projectTag(projectName))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void emptyResults(String projectName) {
+        Counter.builder("chatbot.pipeline.empty.results")
+                .description("Buscas sem documentos, respondidas com a mensagem padrão")
+                .tag("project", projectTag(projectName))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Chamadas ao LLM evitadas pelo modelo de confiança da recuperação (reason: insufficient, n2).
+     */
+    public void llmCallAvoided(String projectName, String reason) {
+        Counter.builder("chatbot.llm.calls.avoided")
+                .description("Respostas enviadas para handover sem chamar o LLM")
+                .tags("project", projectTag(projectName), "reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Requisições encerradas com handover porque o prazo acabou (ou o cliente desconectou) antes da etapa.
+     */
+    public void deadlineExceeded(String projectName, String stage, boolean cancelled) {
+        Counter.builder("chatbot.deadline.exceeded")
+                .description("Requisições encaminhadas para handover por prazo esgotado ou cancelamento")
+                .tags("project", projectTag(projectName), "stage", stage, "reason", cancelled ? "cancelled" : "expired")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void searchScores(String projectName, List<SearchResult> results) {
+        DistributionSummary summary = DistributionSummary.builder("chatbot.search.score")
+                .description("Score dos documentos retornados pela busca vetorial")
+                .tag("project", projectTag(projectName))
+                .serviceLevelObjectives(SCORE_BUCKETS)
+                .register(meterRegistry);
+        for (SearchResult result : results) {
+            summary.record(result.getSearchScore());
+        }
+    }
+
+    public void tokens(String projectName, Usage usage) {
+        if (usage == null) {
+            return;
+        }
+        String project = projectTag(projectName);
+        tokenSummary(project, "prompt").record(usage.getPromptTokens());
+        tokenSummary(project, "completion").record(usage.getCompletionTokens());
+        annotate("llm.tokens.prompt", usage.getPromptTokens());
+        annotate("llm.tokens.completion", usage.getCompletionTokens());
+    }
+
+    /**
+     * Tokens do contexto enviado ao LLM e tokens economizados (trechos duplicados ou fora do orçamento).
+     */
+    public void contextTokens(String projectName, int tokens, int savedTokens) {
+        String project = projectTag(projectName);
+        contextSummary("chatbot.context.tokens", "Tokens do contexto enviado ao LLM", project).record(tokens);
+        contextSummary("chatbot.context.tokens.saved", "Tokens de resultados da busca deixados fora do contexto", project)
+                .record(savedTokens);
+    }
+
+    /**
+     * Tier de modelo escolhido pelo roteamento e o motivo (critério que o tier anterior não atendeu).
+     */
+    public void routed(String projectName, String tier, String reason) {
+        Counter.builder("chatbot.routing.decisions")
+                .description("Requisições por tier de modelo escolhido pelo roteamento")
+                .tags("project", projectTag(projectName), "tier", tier, "reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Latência da chamada ao LLM por tier e modelo, para comparar o ganho de cada tier com sua qualidade.
+     */
+    public void tierLatency(String projectName, String tier, String model, long nanos, boolean success) {
+        Timer.builder("chatbot.routing.llm.latency")
+                .description("Latência da chamada ao LLM por tier de modelo")
+                .tags("project", projectTag(projectName), "tier", tier, "model", model,
+                        "outcome", success ? "success" : "failure")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public String projectTag(String projectName) {
+        if (projectName == null || projectName.isBlank()) {
+            return OTHER_PROJECT;
+        }
+        if (knownProjects.contains(projectName)) {
+            return projectName;
+        }
+        synchronized (knownProjects) {
+            if (knownProjects.size() < maxProjects) {
+                knownProjects.add(projectName);
+                return projectName;
+            }
+        }
+        return knownProjects.contains(projectName) ? projectName : OTHER_PROJECT;
+    }
+
+    private DistributionSummary tokenSummary(String project, String type) {
+        return DistributionSummary.builder("chatbot.llm.tokens")
+                .description("Tokens por chamada ao LLM")
+                .baseUnit("tokens")
+                .tags("project", project, "type", type)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(128_000.0)
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary contextSummary(String name, String description, String project) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit("tokens")
+                .tag("project", project)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(128_000.0)
+                .register(meterRegistry);
+    }
+}
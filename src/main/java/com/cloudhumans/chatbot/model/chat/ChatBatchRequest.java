@@ -0,0 +1,15 @@
+package com.cloudhumans.chatbot.model.chat;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ChatBatchRequest {
+    @NotEmpty
+    @Size(max = 1000)
+    private List<@Valid ChatRequest> requests;
+}
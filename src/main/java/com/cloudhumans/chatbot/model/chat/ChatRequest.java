@@ -1,8 +1,11 @@
 package com.cloudhumans.chatbot.model.chat;
 
 import com.cloudhumans.chatbot.model.llm.Message;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 import java.util.List;
@@ -13,5 +16,16 @@ public class ChatRequest {
     private String projectName;
 
     @NotEmpty
-    private List<Message> messages;
+    private List<@Valid Message> messages;
+
+    /**
+     * Opcional: continua uma conversa guardada no servidor, e basta enviar a nova mensagem.
+     */
+    @Size(max = 128)
+    private String conversationId;
+
+    @JsonIgnore
+    public String getLastMessageContent() {
+        return messages.get(messages.size() - 1).getContent();
+    }
 }
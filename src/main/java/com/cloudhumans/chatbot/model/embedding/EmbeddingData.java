@@ -1,12 +1,19 @@
 package com.cloudhumans.chatbot.model.embedding;
 
+import com.cloudhumans.chatbot.model.vector.FloatVectorDeserializer;
+import com.cloudhumans.chatbot.model.vector.FloatVectorSerializer;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
-import java.util.List;
 
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class EmbeddingData {
-    private List<Double> embedding;
+    private int index;
+
+    @JsonSerialize(using = FloatVectorSerializer.class)
+    @JsonDeserialize(using = FloatVectorDeserializer.class)
+    private float[] embedding;
 }
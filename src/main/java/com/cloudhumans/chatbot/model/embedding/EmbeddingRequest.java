@@ -3,9 +3,15 @@ package com.cloudhumans.chatbot.model.embedding;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 @AllArgsConstructor
 public class EmbeddingRequest {
-    private String input;
+    private List<String> input;
     private String model;
+
+    public EmbeddingRequest(String input, String model) {
+        this(List.of(input), model);
+    }
 }
@@ -1,9 +1,11 @@
 package com.cloudhumans.chatbot.model.embedding;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import lombok.Data;
 
+import java.util.Comparator;
 import java.util.List;
 
 @Data
@@ -11,7 +13,13 @@ import java.util.List;
 public class EmbeddingResponse {
     private List<EmbeddingData> data;
 
-    public List<Double> getFirstEmbedding() {
+    @JsonIgnore
+    public float[] getFirstEmbedding() {
         return data != null && !data.isEmpty() ? data.get(0).getEmbedding() : null;
     }
+
+    @JsonIgnore
+    public List<EmbeddingData> getDataInInputOrder() {
+        return data == null ? List.of() : data.stream().sorted(Comparator.comparingInt(EmbeddingData::getIndex)).toList();
+    }
 }
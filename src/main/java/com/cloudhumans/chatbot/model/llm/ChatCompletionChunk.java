@@ -0,0 +1,34 @@
+package com.cloudhumans.chatbot.model.llm;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ChatCompletionChunk {
+    private List<Choice> choices;
+    private Usage usage;
+
+    public String getFirstDeltaContent() {
+        return choices != null && !choices.isEmpty() && choices.get(0).getDelta() != null
+                ? choices.get(0).getDelta().getContent()
+                : null;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Choice {
+        private int index;
+        private Delta delta;
+        private Object finish_reason;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Delta {
+        private String role;
+        private String content;
+    }
+}
@@ -1,5 +1,7 @@
 package com.cloudhumans.chatbot.model.llm;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -7,7 +9,30 @@ import java.util.List;
 
 @Data
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ChatCompletionRequest {
     private String model;
     private List<Message> messages;
+    private Boolean stream;
+
+    @JsonProperty("stream_options")
+    private StreamOptions streamOptions;
+
+    public ChatCompletionRequest(String model, List<Message> messages) {
+        this(model, messages, null, null);
+    }
+
+    /**
+     * Requisição em modo streaming; pede o uso de tokens no último chunk.
+     */
+    public static ChatCompletionRequest streaming(String model, List<Message> messages) {
+        return new ChatCompletionRequest(model, messages, true, new StreamOptions(true));
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class StreamOptions {
+        @JsonProperty("include_usage")
+        private boolean includeUsage;
+    }
 }
@@ -8,6 +8,7 @@ import java.util.List;
 @Data
 public class ChatCompletionResponse {
     private List<Choice> choices;
+    private Usage usage;
 
     @Data
     public static class Choice {
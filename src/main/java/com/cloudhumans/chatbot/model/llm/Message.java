@@ -1,12 +1,22 @@
 package com.cloudhumans.chatbot.model.llm;
 
 
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
 @Data
 @AllArgsConstructor
 public class Message {
+    /**
+     * Validado só nas requisições: as mensagens vão para o histórico guardado, cujo papel cabe em um byte.
+     */
+    @NotBlank
+    @Size(max = 32)
     private String role;
+
+    @NotNull
     private String content;
 }
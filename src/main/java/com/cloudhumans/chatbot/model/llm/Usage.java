@@ -0,0 +1,18 @@
+package com.cloudhumans.chatbot.model.llm;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Usage {
+    @JsonProperty("prompt_tokens")
+    private int promptTokens;
+
+    @JsonProperty("completion_tokens")
+    private int completionTokens;
+
+    @JsonProperty("total_tokens")
+    private int totalTokens;
+}
@@ -0,0 +1,12 @@
+package com.cloudhumans.chatbot.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ChatBatchResponse {
+    private List<ConversationResponse> responses;
+}
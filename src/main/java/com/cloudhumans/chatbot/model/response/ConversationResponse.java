@@ -2,6 +2,7 @@ package com.cloudhumans.chatbot.model.response;
 
 import com.cloudhumans.chatbot.model.llm.Message;
 import com.cloudhumans.chatbot.model.search.SearchResult;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -13,4 +14,11 @@ public class ConversationResponse {
     private List<Message> messages;
     private boolean handoverToHumanNeeded;
     private List<SearchResult> results;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String conversationId;
+
+    public ConversationResponse(List<Message> messages, boolean handoverToHumanNeeded, List<SearchResult> results) {
+        this(messages, handoverToHumanNeeded, results, null);
+    }
 }
@@ -0,0 +1,38 @@
+package com.cloudhumans.chatbot.model.search;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Corpo da indexação em lote do Azure AI Search (POST /indexes/{index}/docs/index).
+ */
+@Data
+@AllArgsConstructor
+public class IndexBatchRequest {
+    private List<IndexAction> value;
+
+    public static IndexBatchRequest mergeOrUpload(List<IndexDocument> documents) {
+        return new IndexBatchRequest(documents.stream().map(d -> new IndexAction("mergeOrUpload", d)).toList());
+    }
+
+    public static IndexBatchRequest delete(Collection<String> ids) {
+        return new IndexBatchRequest(ids.stream()
+                .map(id -> new IndexAction("delete", new IndexDocument(null, null, null, null, id)))
+                .toList());
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class IndexAction {
+        @JsonProperty("@search.action")
+        private String action;
+
+        @JsonUnwrapped
+        private IndexDocument document;
+    }
+}
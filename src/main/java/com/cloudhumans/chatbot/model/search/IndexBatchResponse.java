@@ -0,0 +1,21 @@
+package com.cloudhumans.chatbot.model.search;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class IndexBatchResponse {
+    private List<Result> value;
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Result {
+        private String key;
+        private boolean status;
+        private int statusCode;
+        private String errorMessage;
+    }
+}
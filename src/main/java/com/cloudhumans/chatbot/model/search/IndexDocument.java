@@ -0,0 +1,35 @@
+package com.cloudhumans.chatbot.model.search;
+
+import com.cloudhumans.chatbot.model.vector.FloatVectorDeserializer;
+import com.cloudhumans.chatbot.model.vector.FloatVectorSerializer;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IndexDocument {
+    private String content;
+    private String type;
+    private String projectName;
+
+    @JsonSerialize(using = FloatVectorSerializer.class)
+    @JsonDeserialize(using = FloatVectorDeserializer.class)
+    private float[] embeddings;
+
+    /**
+     * Chave do documento no índice; na ingestão é o hash do conteúdo do trecho.
+     */
+    private String id;
+
+    public IndexDocument(String content, String type, String projectName, float[] embeddings) {
+        this(content, type, projectName, embeddings, null);
+    }
+}
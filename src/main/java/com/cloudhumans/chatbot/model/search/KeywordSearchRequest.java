@@ -0,0 +1,33 @@
+package com.cloudhumans.chatbot.model.search;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Corpo da busca full-text (BM25) do Azure AI Search, sem vetores.
+ */
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class KeywordSearchRequest {
+    private boolean count;
+    private String search;
+    private String searchFields;
+    private String searchMode;
+    private String select;
+    private int top;
+    private String filter;
+
+    public static KeywordSearchRequest forProject(String projectName, String query, int top) {
+        return new KeywordSearchRequest(
+                true,
+                query,
+                "content",
+                "any",
+                "content, type",
+                top,
+                "projectName eq " + VectorSearchRequest.odataString(projectName)
+        );
+    }
+}
@@ -1,5 +1,6 @@
 package com.cloudhumans.chatbot.model.search;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
@@ -12,4 +13,10 @@ public class SearchResult {
     private String content;
 
     private String type;
+
+    /**
+     * Id do documento no índice, quando o backend o devolve (hoje só o local).
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String id;
 }
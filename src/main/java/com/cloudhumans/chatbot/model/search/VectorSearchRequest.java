@@ -0,0 +1,50 @@
+package com.cloudhumans.chatbot.model.search;
+
+import com.cloudhumans.chatbot.model.vector.FloatVectorSerializer;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Corpo da busca vetorial do Azure AI Search (POST /indexes/{index}/docs/search).
+ */
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VectorSearchRequest {
+    private boolean count;
+    private String select;
+    private int top;
+    private String filter;
+    private List<VectorQuery> vectorQueries;
+
+    public static VectorSearchRequest forProject(String projectName, float[] vector, int top) {
+        return new VectorSearchRequest(
+                true,
+                "content, type",
+                top,
+                "projectName eq " + odataString(projectName),
+                List.of(new VectorQuery(vector, top, "embeddings", "vector"))
+        );
+    }
+
+    /**
+     * Literal de string OData: aspas simples são escapadas duplicando-as.
+     */
+    public static String odataString(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class VectorQuery {
+        @JsonSerialize(using = FloatVectorSerializer.class)
+        private float[] vector;
+        private int k;
+        private String fields;
+        private String kind;
+    }
+}
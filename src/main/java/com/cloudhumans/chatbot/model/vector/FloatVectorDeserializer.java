@@ -0,0 +1,48 @@
+package com.cloudhumans.chatbot.model.vector;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.NumberInput;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Lê um array JSON de números direto para float[], token a token, sem passar por List&lt;Double&gt;.
+ */
+public class FloatVectorDeserializer extends StdDeserializer<float[]> {
+
+    private static final int INITIAL_CAPACITY = 1536;
+
+    public FloatVectorDeserializer() {
+        super(float[].class);
+    }
+
+    @Override
+    public float[] deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!p.isExpectedStartArrayToken()) {
+            return (float[]) ctxt.handleUnexpectedToken(float[].class, p);
+        }
+
+        float[] values = new float[INITIAL_CAPACITY];
+        int size = 0;
+        JsonToken token;
+        while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+                // lê direto do buffer do parser com o FastDoubleParser embutido no jackson-core;
+                // getFloatValue() e o parser padrão criariam uma String por número
+                values[size++] = NumberInput.parseFloat(p.getTextCharacters(), p.getTextOffset(), p.getTextLength(), true);
+            } else if (token == JsonToken.VALUE_NUMBER_INT) {
+                values[size++] = p.getFloatValue();
+            } else {
+                return (float[]) ctxt.handleUnexpectedToken(float.class, p);
+            }
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+}
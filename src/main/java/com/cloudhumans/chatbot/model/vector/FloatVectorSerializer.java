@@ -0,0 +1,30 @@
+package com.cloudhumans.chatbot.model.vector;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Escreve float[] como array JSON direto no gerador, sem converter para Double.
+ */
+public class FloatVectorSerializer extends StdSerializer<float[]> {
+
+    public FloatVectorSerializer() {
+        super(float[].class);
+    }
+
+    @Override
+    public void serialize(float[] value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        write(value, gen);
+    }
+
+    public static void write(float[] value, JsonGenerator gen) throws IOException {
+        gen.writeStartArray(value, value.length);
+        for (float v : value) {
+            gen.writeNumber(v);
+        }
+        gen.writeEndArray();
+    }
+}
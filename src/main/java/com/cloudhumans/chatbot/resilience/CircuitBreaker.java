@@ -0,0 +1,116 @@
+package com.cloudhumans.chatbot.resilience;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker por contagem: abre quando a taxa de falhas nas últimas breakerWindow chamadas passa de
+ * breakerFailureRate (com ao menos breakerMinCalls chamadas), rejeita tudo por breakerOpenDuration e então
+ * deixa passar breakerHalfOpenCalls chamadas de teste; se todas derem certo fecha, se uma falhar reabre.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final ResilienceProperties.Policy policy;
+    private final LongSupplier nanoClock;
+    private final boolean[] window;
+
+    private State state = State.CLOSED;
+    private int position;
+    private int calls;
+    private int failures;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(ResilienceProperties.Policy policy) {
+        this(policy, System::nanoTime);
+    }
+
+    CircuitBreaker(ResilienceProperties.Policy policy, LongSupplier nanoClock) {
+        this.policy = policy;
+        this.nanoClock = nanoClock;
+        this.window = new boolean[policy.getBreakerWindow()];
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < policy.getBreakerOpenDuration().toNanos()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermits = 0;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= policy.getBreakerHalfOpenCalls()) {
+                return false;
+            }
+            halfOpenPermits++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= policy.getBreakerHalfOpenCalls()) {
+                reset(State.CLOSED);
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (calls >= policy.getBreakerMinCalls() && failures >= policy.getBreakerFailureRate() * calls) {
+            open();
+        }
+    }
+
+    /**
+     * Chamada terminou com um erro que não indica problema no destino (ex.: 4xx); só devolve a permissão.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (calls == window.length) {
+            if (window[position]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        window[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % window.length;
+    }
+
+    private void open() {
+        reset(State.OPEN);
+        openedAt = nanoClock.getAsLong();
+    }
+
+    private void reset(State newState) {
+        state = newState;
+        calls = 0;
+        failures = 0;
+        position = 0;
+    }
+}
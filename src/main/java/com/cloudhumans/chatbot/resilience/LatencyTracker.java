@@ -0,0 +1,47 @@
+package com.cloudhumans.chatbot.resilience;
+
+import java.util.Arrays;
+
+/**
+ * Últimas latências de sucesso de um destino, para derivar o atraso do hedge de um percentil recente.
+ */
+class LatencyTracker {
+
+    private static final int CAPACITY = 512;
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final long[] samples = new long[CAPACITY];
+    private final double percentile;
+    private int size;
+    private int position;
+    private int sinceRecompute;
+    private long cachedPercentile;
+
+    LatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    synchronized void record(long nanos) {
+        samples[position] = nanos;
+        position = (position + 1) % CAPACITY;
+        size = Math.min(size + 1, CAPACITY);
+        sinceRecompute++;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized long percentileNanos() {
+        if (size == 0) {
+            return 0;
+        }
+        if (cachedPercentile == 0 || sinceRecompute >= RECOMPUTE_EVERY) {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            cachedPercentile = sorted[Math.min(size - 1, (int) Math.ceil(percentile * size) - 1)];
+            sinceRecompute = 0;
+        }
+        return cachedPercentile;
+    }
+}
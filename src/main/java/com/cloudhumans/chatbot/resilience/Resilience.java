@@ -0,0 +1,389 @@
+package com.cloudhumans.chatbot.resilience;
+
+import com.cloudhumans.chatbot.deadline.Deadline;
+import com.cloudhumans.chatbot.exception.CircuitOpenException;
+import com.cloudhumans.chatbot.limit.ConcurrencyLimits;
+import com.cloudhumans.chatbot.limit.TenantDispatcher;
+import com.cloudhumans.chatbot.metrics.ChatMetrics;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker, retries e hedging por destino (cloudhumans.resilience.dependencies.&lt;nome&gt;).
+ * Retries e hedges reenviam a mesma requisição, então só devem ser habilitados para chamadas idempotentes
+ * (embedding e busca); o LLM usa apenas o circuit breaker.
+ */
+@Component
+public class Resilience implements DisposableBean {
+
+    private static final Logger logger = LogManager.getLogger(Resilience.class);
+
+    private final ResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ChatMetrics chatMetrics;
+    private final Map<String, Dependency> dependencies = new ConcurrentHashMap<>();
+    private final ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
+    private final ConcurrencyLimits concurrencyLimits;
+    private final TenantDispatcher tenantDispatcher;
+    private final ThreadPoolExecutor hedgeExecutor;
+    private final ScheduledThreadPoolExecutor hedgeTimer;
+
+    public Resilience(ResilienceProperties properties, MeterRegistry meterRegistry, ChatMetrics chatMetrics,
+                      ConcurrencyLimits concurrencyLimits, TenantDispatcher tenantDispatcher) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.chatMetrics = chatMetrics;
+        this.concurrencyLimits = concurrencyLimits;
+        this.tenantDispatcher = tenantDispatcher;
+        AtomicInteger threads = new AtomicInteger();
+        // sem fila: com todas as threads ocupadas o execute é rejeitado e o hedge não é disparado
+        this.hedgeExecutor = new ThreadPoolExecutor(properties.getHedgeMaxConcurrent(), properties.getHedgeMaxConcurrent(),
+                30, TimeUnit.SECONDS, new SynchronousQueue<>(), daemon(() -> "hedge-" + threads.incrementAndGet()));
+        this.hedgeExecutor.allowCoreThreadTimeOut(true);
+        this.hedgeTimer = new ScheduledThreadPoolExecutor(1, daemon(() -> "hedge-timer"));
+        this.hedgeTimer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Executa a chamada conforme a política do destino. Lança CircuitOpenException sem chamar o destino
+     * se o circuit breaker estiver aberto, ou a exceção da última tentativa se todas falharem. Não faz nova
+     * tentativa cujo backoff passaria do prazo da requisição (Deadline).
+     */
+    public <T> T execute(String dependency, Supplier<T> call) {
+        return execute(dependency, call, true, () -> true);
+    }
+
+    /**
+     * Como execute, para uma chamada que entrega a resposta ao cliente enquanto lê (streaming): sem hedge, que
+     * intercalaria a saída de duas tentativas, e sem nova tentativa depois que started indicar que algo foi entregue.
+     */
+    public <T> T executeStreaming(String dependency, BooleanSupplier started, Supplier<T> call) {
+        return execute(dependency, call, false, () -> !started.getAsBoolean());
+    }
+
+    private <T> T execute(String dependency, Supplier<T> call, boolean hedge, BooleanSupplier retryable) {
+        if (!properties.isEnabled()) {
+            return call.get();
+        }
+        Dependency target = dependency(dependency);
+        ResilienceProperties.Policy policy = target.policy;
+        int attempt = 0;
+        while (true) {
+            attempt++;
+            if (!target.breaker.tryAcquire()) {
+                counter("chatbot.resilience.breaker.rejected", "Chamadas rejeitadas com o circuit breaker aberto",
+                        dependency).increment();
+                throw new CircuitOpenException(dependency);
+            }
+            try {
+                T result = hedge && policy.isHedge() ? hedged(target, call) : attempt(target, call);
+                if (attempt > 1) {
+                    chatMetrics.annotate("retries", attempt - 1);
+                }
+                return result;
+            } catch (RuntimeException e) {
+                if (attempt >= policy.getMaxAttempts() || !isRetryable(e) || !retryable.getAsBoolean()) {
+                    throw e;
+                }
+                long backoff = backoffMillis(policy, attempt, e);
+                Deadline deadline = Deadline.current();
+                if (deadline != null && deadline.remaining().toMillis() <= backoff) {
+                    throw e;
+                }
+                counter("chatbot.resilience.retries", "Novas tentativas após falha transitória", dependency).increment();
+                logger.warn("Falha ao chamar {} (tentativa {} de {}), nova tentativa em {} ms: {}",
+                        dependency, attempt, policy.getMaxAttempts(), backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public CircuitBreaker.State breakerState(String dependency) {
+        return dependency(dependency).breaker.getState();
+    }
+
+    private <T> T attempt(Dependency target, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            target.latencies.record(System.nanoTime() - start);
+            target.breaker.onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            // timeout pelo prazo curto do cliente ou cancelamento não indica falha do destino
+            if (isRetryable(e) && !deadlineExpired()) {
+                target.breaker.onFailure();
+            } else {
+                target.breaker.onIgnored();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A primeira tentativa roda na própria thread. Se ela não responder dentro do percentil configurado das
+     * latências recentes, uma segunda é disparada no pool de hedge (no máximo hedge-max-concurrent), com uma
+     * vaga extra do bulkhead do destino e cobrada no orçamento de rate limit; sem thread ou vaga livre o hedge
+     * não é feito. Cada tentativa tem o seu Deadline: a que responder primeiro cancela a outra, o que aborta a
+     * chamada HTTP em andamento.
+     */
+    private <T> T hedged(Dependency target, Supplier<T> call) {
+        long delay = target.hedgeDelayNanos();
+        if (delay <= 0) {
+            return attempt(target, call);
+        }
+        Deadline parent = Deadline.current();
+        Deadline primary = fork(parent);
+        Hedge<T> hedge = new Hedge<>(target, call, parent, primary, tenantDispatcher.dispatchedTokens(target.name));
+        ScheduledFuture<?> launch = hedgeTimer.schedule(hedge::launch, delay, TimeUnit.NANOSECONDS);
+        try (Deadline.Registration link = link(parent, primary);
+             Deadline.Scope scope = Deadline.bind(primary)) {
+            T result = attempt(target, call);
+            if (hedge.close()) {
+                chatMetrics.annotate("hedged", true);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            // falhou, ou foi abortada porque o hedge respondeu antes
+            return hedge.closeAndAwait(e);
+        } finally {
+            launch.cancel(false);
+        }
+    }
+
+    private static Deadline fork(Deadline parent) {
+        return parent != null ? parent.fork() : Deadline.unbounded();
+    }
+
+    private static Deadline.Registration link(Deadline parent, Deadline child) {
+        return parent != null ? parent.onCancel(child::cancel) : () -> {
+        };
+    }
+
+    private static boolean deadlineExpired() {
+        Deadline deadline = Deadline.current();
+        return deadline != null && deadline.isExpired();
+    }
+
+    /**
+     * Falhas transitórias: erro de I/O ou timeout, 5xx e 429. Outros 4xx e erros de parse não são repetidos
+     * e não contam para o circuit breaker.
+     */
+    static boolean isRetryable(Throwable e) {
+        if (e instanceof HttpStatusCodeException status) {
+            return status.getStatusCode().is5xxServerError() || status.getStatusCode().value() == 429;
+        }
+        return e instanceof ResourceAccessException;
+    }
+
+    /**
+     * Backoff exponencial com full jitter: sorteado entre 0 e min(backoffMax, backoffBase * 2^(tentativa-1)),
+     * respeitando um Retry-After menor que backoffMax.
+     */
+    static long backoffMillis(ResilienceProperties.Policy policy, int attempt, RuntimeException e) {
+        long max = policy.getBackoffMax().toMillis();
+        long ceiling = Math.min(max, policy.getBackoffBase().toMillis() << Math.min(attempt - 1, 20));
+        long backoff = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        if (e instanceof HttpStatusCodeException status && status.getResponseHeaders() != null) {
+            String retryAfter = status.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+            if (retryAfter != null && retryAfter.matches("\\d+")) {
+                backoff = Math.max(backoff, Math.min(max, Duration.ofSeconds(Long.parseLong(retryAfter)).toMillis()));
+            }
+        }
+        return backoff;
+    }
+
+    private Dependency dependency(String name) {
+        return dependencies.computeIfAbsent(name, n -> {
+            Dependency dependency = new Dependency(n, properties.policy(n));
+            Gauge.builder("chatbot.resilience.breaker.state", dependency.breaker, b -> b.getState().ordinal())
+                    .description("Estado do circuit breaker (0 = fechado, 1 = meio aberto, 2 = aberto)")
+                    .tag("dependency", n)
+                    .register(meterRegistry);
+            return dependency;
+        });
+    }
+
+    private Counter counter(String name, String description, String dependency) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("dependency", dependency)
+                .register(meterRegistry);
+    }
+
+    private void skipped(Dependency target, String reason) {
+        Counter.builder("chatbot.resilience.hedges.skipped")
+                .description("Hedges não disparados por falta de thread, vaga no bulkhead ou circuit breaker")
+                .tags("dependency", target.name, "reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static ThreadFactory daemon(Supplier<String> name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name.get());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void destroy() {
+        hedgeTimer.shutdownNow();
+        hedgeExecutor.shutdownNow();
+    }
+
+    /**
+     * Segunda tentativa de uma chamada com hedge: launch roda no hedgeTimer quando o atraso vence, run no
+     * pool de hedge. closed impede o disparo depois que a primeira tentativa terminou.
+     */
+    private final class Hedge<T> {
+        private final Dependency target;
+        private final Supplier<T> call;
+        private final Deadline parent;
+        private final Deadline primary;
+        private final Deadline deadline;
+        private final long tokens;
+        private final ContextSnapshot snapshot = snapshots.captureAll();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private boolean started;
+        private boolean closed;
+
+        private Hedge(Dependency target, Supplier<T> call, Deadline parent, Deadline primary, long tokens) {
+            this.target = target;
+            this.call = call;
+            this.parent = parent;
+            this.primary = primary;
+            this.deadline = fork(parent);
+            this.tokens = tokens;
+        }
+
+        private synchronized void launch() {
+            if (closed) {
+                return;
+            }
+            if (!concurrencyLimits.tryAcquireHedge(target.name)) {
+                skipped(target, "bulkhead");
+                return;
+            }
+            if (!target.breaker.tryAcquire()) {
+                concurrencyLimits.releaseHedge(target.name);
+                skipped(target, "breaker");
+                return;
+            }
+            try {
+                hedgeExecutor.execute(this::run);
+            } catch (RejectedExecutionException e) {
+                target.breaker.onIgnored();
+                concurrencyLimits.releaseHedge(target.name);
+                skipped(target, "executor");
+                return;
+            }
+            started = true;
+            tenantDispatcher.charge(target.name, tokens);
+            counter("chatbot.resilience.hedges", "Requisições duplicadas por latência acima do percentil",
+                    target.name).increment();
+        }
+
+        private void run() {
+            try (ContextSnapshot.Scope scope = snapshot.setThreadLocals();
+                 Deadline.Registration link = link(parent, deadline);
+                 Deadline.Scope bound = Deadline.bind(deadline)) {
+                T value = attempt(target, call);
+                result.complete(value);
+                primary.cancel();
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                concurrencyLimits.releaseHedge(target.name);
+            }
+        }
+
+        /**
+         * A primeira tentativa respondeu: o hedge não é mais disparado e, se já estava em andamento, é abortado.
+         * Retorna se o hedge chegou a ser disparado.
+         */
+        private boolean close() {
+            synchronized (this) {
+                closed = true;
+                if (!started) {
+                    return false;
+                }
+            }
+            deadline.cancel();
+            return true;
+        }
+
+        /**
+         * A primeira tentativa falhou com primaryError: sem hedge em andamento a falha segue; com ele, vale o
+         * resultado do hedge, e primaryError se ele também falhar.
+         */
+        private T closeAndAwait(RuntimeException primaryError) {
+            synchronized (this) {
+                closed = true;
+                if (!started) {
+                    throw primaryError;
+                }
+            }
+            chatMetrics.annotate("hedged", true);
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                throw primaryError;
+            }
+        }
+    }
+
+    private static final class Dependency {
+        private final String name;
+        private final ResilienceProperties.Policy policy;
+        private final CircuitBreaker breaker;
+        private final LatencyTracker latencies;
+
+        private Dependency(String name, ResilienceProperties.Policy policy) {
+            this.name = name;
+            this.policy = policy;
+            this.breaker = new CircuitBreaker(policy);
+            this.latencies = new LatencyTracker(policy.getHedgePercentile());
+        }
+
+        private long hedgeDelayNanos() {
+            if (latencies.size() < policy.getHedgeMinSamples()) {
+                return 0;
+            }
+            return Math.max(policy.getHedgeMinDelay().toNanos(), latencies.percentileNanos());
+        }
+    }
+}
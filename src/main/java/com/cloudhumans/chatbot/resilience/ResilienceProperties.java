@@ -0,0 +1,50 @@
+package com.cloudhumans.chatbot.resilience;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "cloudhumans.resilience")
+public class ResilienceProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Hedges em andamento ao mesmo tempo, somando todos os destinos; com o pool cheio o hedge não é disparado.
+     */
+    private int hedgeMaxConcurrent = 8;
+    private Map<String, Policy> dependencies = new HashMap<>();
+
+    public Policy policy(String name) {
+        return dependencies.getOrDefault(name, new Policy());
+    }
+
+    @Data
+    public static class Policy {
+        /**
+         * Tentativas no total (1 = sem retry); só falhas transitórias (5xx, 429, I/O) são repetidas.
+         */
+        private int maxAttempts = 1;
+        private Duration backoffBase = Duration.ofMillis(50);
+        private Duration backoffMax = Duration.ofSeconds(1);
+
+        /**
+         * Dispara uma segunda tentativa se a primeira não responder dentro do percentil hedge-percentile
+         * das latências recentes (nunca antes de hedge-min-delay) e usa a que responder primeiro.
+         */
+        private boolean hedge = false;
+        private double hedgePercentile = 0.95;
+        private Duration hedgeMinDelay = Duration.ofMillis(20);
+        private int hedgeMinSamples = 20;
+
+        private double breakerFailureRate = 0.5;
+        private int breakerWindow = 20;
+        private int breakerMinCalls = 10;
+        private Duration breakerOpenDuration = Duration.ofSeconds(10);
+        private int breakerHalfOpenCalls = 3;
+    }
+}
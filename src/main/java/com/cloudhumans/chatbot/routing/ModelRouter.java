@@ -0,0 +1,105 @@
+package com.cloudhumans.chatbot.routing;
+
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import com.cloudhumans.chatbot.search.RetrievalConfidence;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Escolhe, a partir dos sinais da recuperação, o modelo que responde cada pergunta: perguntas com um
+ * resultado claramente melhor que os demais e pouco contexto vão para um modelo mais rápido, as demais
+ * para o modelo completo, e matches quase exatos de uma FAQ podem ser devolvidos sem LLM.
+ */
+@Component
+public class ModelRouter {
+
+    public static final String VERBATIM = "verbatim";
+    public static final String DEFAULT_TIER = "default";
+
+    private final RoutingProperties properties;
+
+    public ModelRouter(RoutingProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * reason explica a escolha: o critério que o tier anterior não atendeu (score, margin, context, n2),
+     * "eligible" se o primeiro tier foi aceito, "near-exact" no verbatim e "disabled" sem roteamento.
+     */
+    public Route route(String projectName, Signals signals) {
+        if (!properties.isEnabled()) {
+            return new Route(DEFAULT_TIER, null, "disabled");
+        }
+        RoutingProperties.Verbatim verbatim = properties.verbatim(projectName);
+        if (verbatim.isEnabled() && !signals.hasN2() && !signals.hasHistory()
+                && signals.topScore() >= verbatim.getMinScore() && signals.margin() >= verbatim.getMinMargin()) {
+            return new Route(VERBATIM, null, "near-exact");
+        }
+
+        String reason = "eligible";
+        for (RoutingProperties.Tier tier : properties.tiers(projectName)) {
+            String rejected = rejects(tier, signals);
+            if (rejected == null) {
+                String model = tier.getModel() != null && !tier.getModel().isBlank() ? tier.getModel() : null;
+                return new Route(tier.getName(), model, reason);
+            }
+            reason = rejected;
+        }
+        return new Route(DEFAULT_TIER, null, reason);
+    }
+
+    private static String rejects(RoutingProperties.Tier tier, Signals signals) {
+        if (signals.topScore() < tier.getMinScore()) {
+            return "score";
+        }
+        if (signals.margin() < tier.getMinMargin()) {
+            return "margin";
+        }
+        if (tier.getMaxContextTokens() > 0 && signals.contextTokens() > tier.getMaxContextTokens()) {
+            return "context";
+        }
+        if (!tier.isAllowN2() && signals.hasN2()) {
+            return "n2";
+        }
+        return null;
+    }
+
+    /**
+     * model null significa openai.chat.model; no tier verbatim o LLM não é chamado.
+     */
+    public record Route(String tier, String model, String reason) {
+
+        public boolean verbatim() {
+            return VERBATIM.equals(tier);
+        }
+    }
+
+    /**
+     * topScore e margin vêm da busca vetorial (a margem é a vantagem do melhor resultado sobre o segundo;
+     * infinita com um só resultado); hasN2 considera a lista final enviada ao LLM.
+     */
+    public record Signals(double topScore, double margin, int contextTokens, boolean hasN2, boolean hasHistory) {
+
+        public static Signals of(List<SearchResult> vectorResults, List<SearchResult> results, int contextTokens,
+                                 boolean hasHistory) {
+            double top = Double.NEGATIVE_INFINITY;
+            double second = Double.NEGATIVE_INFINITY;
+            for (SearchResult result : vectorResults) {
+                double score = result.getSearchScore();
+                if (score > top) {
+                    second = top;
+                    top = score;
+                } else if (score > second) {
+                    second = score;
+                }
+            }
+            if (vectorResults.isEmpty()) {
+                top = 0.0;
+            }
+            double margin = second == Double.NEGATIVE_INFINITY ? Double.POSITIVE_INFINITY : top - second;
+            return new Signals(top, margin, contextTokens, results.stream().anyMatch(RetrievalConfidence::isN2),
+                    hasHistory);
+        }
+    }
+}
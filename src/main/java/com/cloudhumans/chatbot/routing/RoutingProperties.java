@@ -0,0 +1,72 @@
+package com.cloudhumans.chatbot.routing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "cloudhumans.routing")
+public class RoutingProperties {
+
+    private boolean enabled = false;
+    /**
+     * Tiers em ordem de preferência: vale o primeiro cujas condições a recuperação satisfaz. Sem nenhum,
+     * todas as requisições usam openai.chat.model.
+     */
+    private List<Tier> tiers = new ArrayList<>();
+    private Verbatim verbatim = new Verbatim();
+    private Map<String, Project> projects = new HashMap<>();
+
+    public List<Tier> tiers(String projectName) {
+        Project project = projects.get(projectName);
+        return project != null && project.getTiers() != null ? project.getTiers() : tiers;
+    }
+
+    public Verbatim verbatim(String projectName) {
+        Project project = projects.get(projectName);
+        return project != null && project.getVerbatim() != null ? project.getVerbatim() : verbatim;
+    }
+
+    @Data
+    public static class Tier {
+        private String name;
+        /**
+         * Modelo do tier; vazio usa openai.chat.model.
+         */
+        private String model;
+        private double minScore = 0.0;
+        /**
+         * Vantagem mínima do melhor resultado vetorial sobre o segundo.
+         */
+        private double minMargin = 0.0;
+        /**
+         * Tokens de contexto máximos; 0 não limita.
+         */
+        private int maxContextTokens = 0;
+        private boolean allowN2 = true;
+    }
+
+    /**
+     * Devolve o conteúdo do melhor resultado como resposta, sem chamar o LLM, quando ele é um match quase
+     * exato de uma FAQ: score e margem acima dos mínimos, nenhum resultado N2 e nenhum histórico de conversa.
+     */
+    @Data
+    public static class Verbatim {
+        private boolean enabled = false;
+        private double minScore = 0.97;
+        private double minMargin = 0.05;
+    }
+
+    /**
+     * Sobrescreve a lista de tiers e/ou a configuração de verbatim para um projectName.
+     */
+    @Data
+    public static class Project {
+        private List<Tier> tiers;
+        private Verbatim verbatim;
+    }
+}
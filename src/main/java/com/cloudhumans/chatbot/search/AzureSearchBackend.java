@@ -0,0 +1,114 @@
+package com.cloudhumans.chatbot.search;
+
+import com.cloudhumans.chatbot.http.JsonExchange;
+import com.cloudhumans.chatbot.limit.ConcurrencyLimits;
+import com.cloudhumans.chatbot.model.search.DatabaseSearchResponse;
+import com.cloudhumans.chatbot.model.search.IndexBatchRequest;
+import com.cloudhumans.chatbot.model.search.IndexBatchResponse;
+import com.cloudhumans.chatbot.model.search.IndexDocument;
+import com.cloudhumans.chatbot.model.search.KeywordSearchRequest;
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import com.cloudhumans.chatbot.model.search.VectorSearchRequest;
+import com.cloudhumans.chatbot.resilience.Resilience;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Collection;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cloudhumans.search.backend", havingValue = "azure", matchIfMissing = true)
+public class AzureSearchBackend implements VectorSearchBackend {
+
+    private static final Logger logger = LogManager.getLogger(AzureSearchBackend.class);
+
+    @Qualifier("searchRestTemplate")
+    private final RestTemplate searchRestTemplate;
+    private final ObjectMapper objectMapper;
+    private final Resilience resilience;
+
+    @Value("${database.search.url}")
+    private String dbSearchUrl;
+
+    @Value("${database.search.api-key}")
+    private String dbApiKey;
+
+    @Value("${database.index.url:}")
+    private String dbIndexUrl;
+
+    @Override
+    public List<SearchResult> search(String projectName, float[] vector, int top) {
+        return query(VectorSearchRequest.forProject(projectName, vector, top), "vector DB");
+    }
+
+    @Override
+    public List<SearchResult> keywordSearch(String projectName, String query, int top) {
+        return query(KeywordSearchRequest.forProject(projectName, query, top), "índice full-text");
+    }
+
+    @Override
+    public boolean upsert(String projectName, List<IndexDocument> documents) {
+        return index(IndexBatchRequest.mergeOrUpload(documents), "indexar");
+    }
+
+    @Override
+    public boolean delete(String projectName, Collection<String> ids) {
+        return index(IndexBatchRequest.delete(ids), "remover");
+    }
+
+    private boolean index(IndexBatchRequest request, String description) {
+        try {
+            IndexBatchResponse response = resilience.execute(ConcurrencyLimits.SEARCH,
+                    () -> searchRestTemplate.execute(
+                            indexUrl(),
+                            HttpMethod.POST,
+                            JsonExchange.jsonBody(objectMapper, request, headers -> headers.set("api-key", dbApiKey)),
+                            JsonExchange.jsonResponse(objectMapper, IndexBatchResponse.class)
+                    ));
+            List<IndexBatchResponse.Result> failed = response.getValue().stream().filter(r -> !r.isStatus()).toList();
+            if (!failed.isEmpty()) {
+                logger.error("Falha ao {} {} de {} documentos; primeiro erro: {}", description, failed.size(),
+                        request.getValue().size(), failed.get(0).getErrorMessage());
+                return false;
+            }
+            logger.info("{} documentos enviados para {} no índice.", request.getValue().size(), description);
+            return true;
+        } catch (Exception e) {
+            logger.error("Erro ao {} documentos no índice:", description, e);
+            return false;
+        }
+    }
+
+    /**
+     * URL de indexação em lote: database.index.url ou a URL de busca com /docs/search trocado por /docs/index.
+     */
+    private String indexUrl() {
+        return dbIndexUrl != null && !dbIndexUrl.isBlank() ? dbIndexUrl : dbSearchUrl.replace("/docs/search", "/docs/index");
+    }
+
+    private List<SearchResult> query(Object request, String description) {
+        try {
+            DatabaseSearchResponse response = resilience.execute(ConcurrencyLimits.SEARCH,
+                    () -> searchRestTemplate.execute(
+                            dbSearchUrl,
+                            HttpMethod.POST,
+                            JsonExchange.jsonBody(objectMapper, request, headers -> headers.set("api-key", dbApiKey)),
+                            JsonExchange.jsonResponse(objectMapper, DatabaseSearchResponse.class)
+                    ));
+            logger.info("Resultados recuperados do {}.", description);
+            return response.getValue();
+        } catch (Exception e) {
+            logger.error("Erro ao consultar o {}:", description, e);
+            return null;
+        }
+    }
+}
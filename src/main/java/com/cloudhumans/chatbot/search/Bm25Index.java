@@ -0,0 +1,101 @@
+package com.cloudhumans.chatbot.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido em memória com ranking BM25 (k1 = 1.2, b = 0.75). Os termos são sequências
+ * de letras e dígitos em minúsculas, de modo que números de peça e nomes de modelo ("1089178-00-A",
+ * "Model 3") casam por seus componentes.
+ */
+final class Bm25Index {
+
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final int[] lengths;
+    private final double averageLength;
+
+    Bm25Index(String[] documents) {
+        lengths = new int[documents.length];
+        long totalLength = 0;
+        for (int doc = 0; doc < documents.length; doc++) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String term : tokenize(documents[doc])) {
+                frequencies.merge(term, 1, Integer::sum);
+                lengths[doc]++;
+            }
+            totalLength += lengths[doc];
+            int row = doc;
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new Postings()).add(row, frequency));
+        }
+        averageLength = documents.length == 0 ? 0 : (double) totalLength / documents.length;
+    }
+
+    /**
+     * Retorna até top pares (documento, score) em ordem decrescente de score; só documentos
+     * com ao menos um termo da consulta.
+     */
+    List<Hit> search(String query, int top) {
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String term : new LinkedHashSet<>(tokenize(query))) {
+            Postings termPostings = postings.get(term);
+            if (termPostings == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (lengths.length - termPostings.size + 0.5) / (termPostings.size + 0.5));
+            for (int i = 0; i < termPostings.size; i++) {
+                int doc = termPostings.docs[i];
+                int frequency = termPostings.frequencies[i];
+                double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                scores.merge(doc, idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed())
+                .limit(top)
+                .map(e -> new Hit(e.getKey(), e.getValue()))
+                .toList();
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        Matcher matcher = TOKEN.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            tokens.add(matcher.group());
+        }
+        return tokens;
+    }
+
+    record Hit(int doc, double score) {
+    }
+
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        private void add(int doc, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+        }
+    }
+}
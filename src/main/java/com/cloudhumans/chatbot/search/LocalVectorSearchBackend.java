@@ -0,0 +1,333 @@
+package com.cloudhumans.chatbot.search;
+
+import com.cloudhumans.chatbot.ingest.ContentHash;
+import com.cloudhumans.chatbot.model.search.IndexDocument;
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+/**
+ * Backend de busca vetorial em processo: os embeddings de cada projeto ficam numa
+ * matriz de floats fora do heap e o top-k é calculado por produto interno.
+ * O score segue a convenção do Azure Search para cosseno (1 / (1 + distância)),
+ * para que thresholds configurados valham para os dois backends. A busca por palavras-chave usa
+ * um índice BM25 sobre o conteúdo dos mesmos documentos. Upserts e remoções ficam pendentes e são
+ * aplicados de uma vez por uma thread de reconstrução, que troca a matriz do projeto quando termina: as buscas
+ * seguem na matriz anterior enquanto isso, como no Azure, em que a indexação também não é imediata.
+ * Cada matriz é um único buffer direto, limitado a Integer.MAX_VALUE bytes.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cloudhumans.search.backend", havingValue = "local")
+public class LocalVectorSearchBackend implements VectorSearchBackend {
+
+    private static final Logger logger = LogManager.getLogger(LocalVectorSearchBackend.class);
+
+    static final long MAX_MATRIX_BYTES = Integer.MAX_VALUE;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, ProjectMatrix> projects = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, IndexDocument>> pending = new ConcurrentHashMap<>();
+    private final ExecutorService rebuilds = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "local-index-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${cloudhumans.search.local.documents-path:}")
+    private String documentsPath;
+
+    @PostConstruct
+    void loadConfiguredDocuments() throws IOException {
+        if (documentsPath != null && !documentsPath.isBlank()) {
+            loadFile(Path.of(documentsPath));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuilds.shutdownNow();
+    }
+
+    public void loadFile(Path path) throws IOException {
+        Map<String, List<IndexDocument>> byProject = new LinkedHashMap<>();
+        try (MappingIterator<IndexDocument> documents = objectMapper.readerFor(IndexDocument.class)
+                .readValues(path.toFile())) {
+            while (documents.hasNext()) {
+                IndexDocument document = documents.next();
+                byProject.computeIfAbsent(document.getProjectName(), p -> new ArrayList<>()).add(document);
+            }
+        }
+        byProject.forEach(this::load);
+    }
+
+    public void load(String projectName, List<IndexDocument> documents) {
+        install(projectName, null, new int[0], documents);
+    }
+
+    /**
+     * Recusa (retorna false) o lote que poderia levar a matriz do projeto além de MAX_MATRIX_BYTES.
+     */
+    @Override
+    public boolean upsert(String projectName, List<IndexDocument> documents) {
+        ProjectMatrix current = projects.get(projectName);
+        int dimension = current != null ? current.dimension() : documents.stream()
+                .filter(d -> d.getEmbeddings() != null && d.getEmbeddings().length > 0)
+                .mapToInt(d -> d.getEmbeddings().length)
+                .findFirst().orElse(0);
+        Map<String, IndexDocument> queued = pending.get(projectName);
+        long maxRows = (current != null ? current.rows() : 0L) + (queued != null ? queued.size() : 0) + documents.size();
+        if (matrixBytes(maxRows, dimension) > MAX_MATRIX_BYTES) {
+            logger.error("Upsert de {} documentos recusado: o projeto {} passaria de {} bytes no índice local.",
+                    documents.size(), projectName, MAX_MATRIX_BYTES);
+            return false;
+        }
+        pending.compute(projectName, (p, changes) -> {
+            Map<String, IndexDocument> updated = changes != null ? changes : new LinkedHashMap<>();
+            documents.forEach(document -> updated.put(id(projectName, document), document));
+            return updated;
+        });
+        scheduleRebuild(projectName);
+        return true;
+    }
+
+    @Override
+    public boolean delete(String projectName, Collection<String> ids) {
+        pending.compute(projectName, (p, changes) -> {
+            Map<String, IndexDocument> updated = changes != null ? changes : new LinkedHashMap<>();
+            // null marca remoção
+            ids.forEach(id -> updated.put(id, null));
+            return updated;
+        });
+        scheduleRebuild(projectName);
+        return true;
+    }
+
+    /**
+     * Espera as reconstruções já agendadas terminarem.
+     */
+    public void awaitRebuilds() {
+        try {
+            rebuilds.submit(() -> {
+            }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void scheduleRebuild(String projectName) {
+        rebuilds.execute(() -> {
+            // lotes seguidos do mesmo projeto viram uma reconstrução só: a primeira tarefa leva todas as mudanças
+            Map<String, IndexDocument> changes = pending.remove(projectName);
+            if (changes == null) {
+                return;
+            }
+            try {
+                applyChanges(projectName, changes);
+            } catch (Exception e) {
+                logger.error("Erro ao reconstruir o índice local do projeto {}:", projectName, e);
+            }
+        });
+    }
+
+    private void applyChanges(String projectName, Map<String, IndexDocument> changes) {
+        ProjectMatrix current = projects.get(projectName);
+        int[] kept = new int[0];
+        if (current != null) {
+            kept = IntStream.range(0, current.rows())
+                    .filter(row -> !changes.containsKey(current.ids()[row]))
+                    .toArray();
+        }
+        install(projectName, current, kept, changes.values().stream().filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * Monta a matriz do projeto com as linhas keptRows de base (já normalizadas) seguidas dos novos documentos.
+     */
+    private synchronized void install(String projectName, ProjectMatrix base, int[] keptRows,
+                                      List<IndexDocument> documents) {
+        List<IndexDocument> valid = documents.stream()
+                .filter(d -> d.getEmbeddings() != null && d.getEmbeddings().length > 0)
+                .toList();
+        int rows = keptRows.length + valid.size();
+        if (rows == 0) {
+            projects.remove(projectName);
+            return;
+        }
+
+        int dimension = keptRows.length > 0 ? base.dimension() : valid.get(0).getEmbeddings().length;
+        long bytes = matrixBytes(rows, dimension);
+        if (bytes > MAX_MATRIX_BYTES) {
+            throw new IllegalArgumentException("Matriz de " + rows + " x " + dimension + " (" + bytes
+                    + " bytes) do projeto " + projectName + " excede o limite de " + MAX_MATRIX_BYTES + " bytes");
+        }
+        FloatBuffer matrix = ByteBuffer.allocateDirect((int) bytes)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        String[] ids = new String[rows];
+        String[] contents = new String[rows];
+        String[] types = new String[rows];
+
+        for (int row = 0; row < keptRows.length; row++) {
+            int source = keptRows[row];
+            matrix.put(row * dimension, base.matrix(), source * dimension, dimension);
+            ids[row] = base.ids()[source];
+            contents[row] = base.contents()[source];
+            types[row] = base.types()[source];
+        }
+        for (int i = 0; i < valid.size(); i++) {
+            int row = keptRows.length + i;
+            IndexDocument document = valid.get(i);
+            if (document.getEmbeddings().length != dimension) {
+                throw new IllegalArgumentException("Documento com dimensão " + document.getEmbeddings().length
+                        + " diferente de " + dimension + " no projeto " + projectName);
+            }
+            float[] normalized = normalize(document.getEmbeddings());
+            matrix.put(row * dimension, normalized);
+            ids[row] = id(projectName, document);
+            contents[row] = document.getContent();
+            types[row] = document.getType();
+        }
+
+        projects.put(projectName, new ProjectMatrix(matrix, rows, dimension, ids, contents, types,
+                new Bm25Index(contents)));
+        logger.info("Projeto {} carregado no índice local com {} documentos.", projectName, rows);
+    }
+
+    static long matrixBytes(long rows, int dimension) {
+        return rows * dimension * Float.BYTES;
+    }
+
+    private static String id(String projectName, IndexDocument document) {
+        return document.getId() != null
+                ? document.getId()
+                : ContentHash.of(projectName, document.getType(), document.getContent());
+    }
+
+    @Override
+    public List<SearchResult> search(String projectName, float[] vector, int top) {
+        ProjectMatrix project = projects.get(projectName);
+        if (project == null || top <= 0) {
+            return List.of();
+        }
+        if (vector.length != project.dimension()) {
+            logger.warn("Vetor com dimensão {} incompatível com o índice local do projeto {} ({}).",
+                    vector.length, projectName, project.dimension());
+            return List.of();
+        }
+
+        float[] query = normalize(vector);
+        int k = Math.min(top, project.rows());
+        int[] bestRows = new int[k];
+        float[] bestScores = new float[k];
+        int found = 0;
+
+        for (int row = 0; row < project.rows(); row++) {
+            float score = dot(project.matrix(), row * project.dimension(), query);
+            if (found < k) {
+                found++;
+            } else if (score <= bestScores[k - 1]) {
+                continue;
+            }
+            int position = found - 1;
+            while (position > 0 && bestScores[position - 1] < score) {
+                bestScores[position] = bestScores[position - 1];
+                bestRows[position] = bestRows[position - 1];
+                position--;
+            }
+            bestScores[position] = score;
+            bestRows[position] = row;
+        }
+
+        List<SearchResult> results = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            SearchResult result = new SearchResult();
+            result.setSearchScore(1.0 / (2.0 - bestScores[i]));
+            result.setContent(project.contents()[bestRows[i]]);
+            result.setType(project.types()[bestRows[i]]);
+            result.setId(project.ids()[bestRows[i]]);
+            results.add(result);
+        }
+        return results;
+    }
+
+    @Override
+    public List<SearchResult> keywordSearch(String projectName, String query, int top) {
+        ProjectMatrix project = projects.get(projectName);
+        if (project == null || top <= 0) {
+            return List.of();
+        }
+        List<SearchResult> results = new ArrayList<>();
+        for (Bm25Index.Hit hit : project.keywords().search(query, top)) {
+            SearchResult result = new SearchResult();
+            result.setSearchScore(hit.score());
+            result.setContent(project.contents()[hit.doc()]);
+            result.setType(project.types()[hit.doc()]);
+            result.setId(project.ids()[hit.doc()]);
+            results.add(result);
+        }
+        return results;
+    }
+
+    static float dot(FloatBuffer matrix, int offset, float[] query) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int n = query.length;
+        int upper = n & ~3;
+        int i = 0;
+        for (; i < upper; i += 4) {
+            s0 += matrix.get(offset + i) * query[i];
+            s1 += matrix.get(offset + i + 1) * query[i + 1];
+            s2 += matrix.get(offset + i + 2) * query[i + 2];
+            s3 += matrix.get(offset + i + 3) * query[i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += matrix.get(offset + i) * query[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = norm > 0 ? (float) (vector[i] / norm) : 0f;
+        }
+        return normalized;
+    }
+
+    private record ProjectMatrix(FloatBuffer matrix, int rows, int dimension, String[] ids, String[] contents,
+                                 String[] types, Bm25Index keywords) {
+    }
+}
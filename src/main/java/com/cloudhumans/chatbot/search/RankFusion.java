@@ -0,0 +1,46 @@
+package com.cloudhumans.chatbot.search;
+
+import com.cloudhumans.chatbot.model.search.SearchResult;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reciprocal rank fusion: cada documento soma 1 / (k + posição) em cada lista em que aparece.
+ * Documentos são identificados pelo conteúdo; o SearchResult mantido (e seu searchScore) é o da
+ * primeira lista em que o documento aparece, para que thresholds sobre o score vetorial continuem valendo.
+ */
+public final class RankFusion {
+
+    private RankFusion() {
+    }
+
+    public static List<SearchResult> reciprocalRank(List<List<SearchResult>> rankings, int k, int top) {
+        Map<String, Fused> fused = new LinkedHashMap<>();
+        for (List<SearchResult> ranking : rankings) {
+            if (ranking == null) {
+                continue;
+            }
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                SearchResult result = ranking.get(rank);
+                fused.computeIfAbsent(result.getContent(), c -> new Fused(result)).score += 1.0 / (k + rank + 1);
+            }
+        }
+        return fused.values().stream()
+                .sorted(Comparator.comparingDouble((Fused f) -> f.score).reversed())
+                .limit(top)
+                .map(f -> f.result)
+                .toList();
+    }
+
+    private static final class Fused {
+        private final SearchResult result;
+        private double score;
+
+        private Fused(SearchResult result) {
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.cloudhumans.chatbot.search;
+
+import com.cloudhumans.chatbot.model.search.SearchResult;
+
+import java.util.List;
+
+/**
+ * Confiança da recuperação calculada sobre os resultados da busca vetorial, cujos scores são comparáveis
+ * entre consultas: melhor score, se o melhor resultado é N2 e a vantagem (margin) do melhor resultado
+ * sobre o melhor do outro nível (N2 x não-N2). Sem resultado do outro nível a margem é infinita.
+ */
+public record RetrievalConfidence(double topScore, boolean topIsN2, double margin) {
+
+    public enum Decision {
+        ANSWER,
+        /**
+         * Nenhum resultado relevante o bastante: o LLM só responderia que não encontrou a informação.
+         */
+        INSUFFICIENT,
+        /**
+         * Claramente um assunto N2: a conversa vai para handover de qualquer forma.
+         */
+        N2
+    }
+
+    public static RetrievalConfidence of(List<SearchResult> scored) {
+        if (scored == null || scored.isEmpty()) {
+            return new RetrievalConfidence(0.0, false, 0.0);
+        }
+        double bestN2 = Double.NEGATIVE_INFINITY;
+        double bestOther = Double.NEGATIVE_INFINITY;
+        for (SearchResult result : scored) {
+            if (isN2(result)) {
+                bestN2 = Math.max(bestN2, result.getSearchScore());
+            } else {
+                bestOther = Math.max(bestOther, result.getSearchScore());
+            }
+        }
+        boolean topIsN2 = bestN2 > bestOther;
+        double top = Math.max(bestN2, bestOther);
+        double runnerUp = topIsN2 ? bestOther : bestN2;
+        return new RetrievalConfidence(top, topIsN2, top - runnerUp);
+    }
+
+    /**
+     * keywordMatched indica que a busca por palavras-chave (modo híbrido) encontrou documentos; como
+     * os scores BM25 não são comparáveis ao threshold, nesse caso a recuperação não é considerada insuficiente.
+     */
+    public Decision decide(double minScore, boolean n2ShortCircuit, double n2Margin, boolean keywordMatched) {
+        if (topScore < minScore && !keywordMatched) {
+            return Decision.INSUFFICIENT;
+        }
+        if (n2ShortCircuit && topIsN2 && margin >= n2Margin) {
+            return Decision.N2;
+        }
+        return Decision.ANSWER;
+    }
+
+    public static boolean isN2(SearchResult result) {
+        return "N2".equalsIgnoreCase(result.getType());
+    }
+}
@@ -0,0 +1,13 @@
+package com.cloudhumans.chatbot.search;
+
+public enum RetrievalMode {
+    /**
+     * Apenas a busca vetorial, após o embedding da pergunta.
+     */
+    VECTOR,
+    /**
+     * Busca por palavras-chave disparada em paralelo ao embedding e combinada com a busca
+     * vetorial por reciprocal rank fusion.
+     */
+    HYBRID
+}
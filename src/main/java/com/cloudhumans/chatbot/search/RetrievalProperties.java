@@ -0,0 +1,58 @@
+package com.cloudhumans.chatbot.search;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "cloudhumans.retrieval")
+public class RetrievalProperties {
+
+    private RetrievalMode mode = RetrievalMode.VECTOR;
+    /**
+     * Constante k do reciprocal rank fusion: score = soma de 1 / (k + posição).
+     */
+    private int rrfK = 60;
+    /**
+     * Score vetorial mínimo do melhor resultado para chamar o LLM; abaixo disso a conversa vai direto
+     * para handover. 0 desativa.
+     */
+    private double minScore = 0.0;
+    /**
+     * Vai direto para handover, sem chamar o LLM, quando o melhor resultado é N2 com vantagem de pelo
+     * menos n2Margin sobre o melhor resultado não-N2.
+     */
+    private boolean n2ShortCircuit = false;
+    private double n2Margin = 0.05;
+    private Map<String, Project> projects = new HashMap<>();
+
+    public RetrievalMode mode(String projectName) {
+        Project project = projects.get(projectName);
+        return project != null && project.getMode() != null ? project.getMode() : mode;
+    }
+
+    public double minScore(String projectName) {
+        Project project = projects.get(projectName);
+        return project != null && project.getMinScore() != null ? project.getMinScore() : minScore;
+    }
+
+    public boolean n2ShortCircuit(String projectName) {
+        Project project = projects.get(projectName);
+        return project != null && project.getN2ShortCircuit() != null ? project.getN2ShortCircuit() : n2ShortCircuit;
+    }
+
+    public double n2Margin(String projectName) {
+        Project project = projects.get(projectName);
+        return project != null && project.getN2Margin() != null ? project.getN2Margin() : n2Margin;
+    }
+
+    @Data
+    public static class Project {
+        private RetrievalMode mode;
+        private Double minScore;
+        private Boolean n2ShortCircuit;
+        private Double n2Margin;
+    }
+}
@@ -0,0 +1,30 @@
+package com.cloudhumans.chatbot.search;
+
+import com.cloudhumans.chatbot.model.search.IndexDocument;
+import com.cloudhumans.chatbot.model.search.SearchResult;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface VectorSearchBackend {
+
+    List<SearchResult> search(String projectName, float[] vector, int top);
+
+    /**
+     * Busca por palavras-chave (BM25) no texto dos documentos, sem embedding; usada no modo híbrido.
+     * Backends sem índice full-text não retornam resultados.
+     */
+    default List<SearchResult> keywordSearch(String projectName, String query, int top) {
+        return List.of();
+    }
+
+    /**
+     * Insere ou substitui (pelo id) documentos já com embeddings. Retorna false se algum não foi indexado.
+     */
+    boolean upsert(String projectName, List<IndexDocument> documents);
+
+    /**
+     * Remove documentos pelo id. Retorna false se algum não foi removido.
+     */
+    boolean delete(String projectName, Collection<String> ids);
+}
@@ -0,0 +1,190 @@
+package com.cloudhumans.chatbot.service;
+
+import com.cloudhumans.chatbot.exception.OverloadedException;
+import com.cloudhumans.chatbot.limit.ConcurrencyLimits;
+import com.cloudhumans.chatbot.limit.TenantDispatcher;
+import com.cloudhumans.chatbot.model.chat.ChatRequest;
+import com.cloudhumans.chatbot.model.llm.Message;
+import com.cloudhumans.chatbot.model.response.ConversationResponse;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Responde lotes de perguntas: os embeddings de cada bloco são gerados numa única chamada por projeto
+ * e busca + LLM rodam com paralelismo limitado, entregando as respostas na ordem de entrada.
+ */
+@Service
+@RequiredArgsConstructor
+public class BatchChatService {
+
+    private static final Logger logger = LogManager.getLogger(BatchChatService.class);
+
+    private final ChatService chatService;
+    private final EmbeddingService embeddingService;
+    private final AsyncTaskExecutor taskExecutor;
+    private final Validator validator;
+    private final TenantDispatcher tenantDispatcher;
+    private final ConcurrencyLimits concurrencyLimits;
+    private final ContextBuilder contextBuilder;
+
+    @Value("${cloudhumans.batch.parallelism:8}")
+    private int parallelism = 8;
+
+    @Value("${cloudhumans.batch.chunk-size:512}")
+    private int chunkSize = 512;
+
+    public List<ConversationResponse> getAnswers(List<ChatRequest> requests) {
+        List<ConversationResponse> responses = new ArrayList<>(requests.size());
+        streamAnswers(requests.iterator(), responses::add);
+        return responses;
+    }
+
+    public void streamAnswers(Iterator<ChatRequest> requests, Consumer<ConversationResponse> sink) {
+        List<ChatRequest> chunk = new ArrayList<>(chunkSize);
+        while (requests.hasNext()) {
+            chunk.add(requests.next());
+            if (chunk.size() == chunkSize) {
+                answerChunk(chunk, sink);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            answerChunk(chunk, sink);
+        }
+    }
+
+    private void answerChunk(List<ChatRequest> chunk, Consumer<ConversationResponse> sink) {
+        List<Integer> validPositions = new ArrayList<>();
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (validator.validate(chunk.get(i)).isEmpty()) {
+                validPositions.add(i);
+                messages.add(chunk.get(i).getLastMessageContent());
+            }
+        }
+
+        logger.info("Processando lote de {} perguntas ({} válidas).", chunk.size(), messages.size());
+        List<float[]> vectors = embed(chunk, validPositions, messages);
+
+        Deque<Item> window = new ArrayDeque<>();
+        boolean completed = false;
+        try {
+            int next = 0;
+            for (int i = 0; i < chunk.size(); i++) {
+                ChatRequest request = chunk.get(i);
+                if (next < validPositions.size() && validPositions.get(next) == i) {
+                    String userMessage = messages.get(next);
+                    float[] vector = vectors.get(next);
+                    window.add(new Item(userMessage, taskExecutor.submit(
+                            () -> chatService.getAnswer(request.getProjectName(), userMessage, vector))));
+                    next++;
+                } else {
+                    window.add(new Item(null, CompletableFuture.completedFuture(invalidRequest(request))));
+                }
+
+                if (window.size() >= parallelism) {
+                    sink.accept(await(window.poll()));
+                }
+            }
+            while (!window.isEmpty()) {
+                sink.accept(await(window.poll()));
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                // o cliente desconectou ou a thread foi interrompida: ninguém vai ler as respostas restantes
+                window.forEach(item -> item.future().cancel(true));
+            }
+        }
+    }
+
+    /**
+     * Embeddings do bloco agrupados por projeto, cada grupo pela fila justa e pelo bulkhead de embedding
+     * como as perguntas avulsas. Se o grupo é rejeitado, suas posições ficam null e as perguntas viram handover.
+     */
+    private List<float[]> embed(List<ChatRequest> chunk, List<Integer> validPositions, List<String> messages) {
+        Map<String, List<Integer>> byProject = new LinkedHashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            byProject.computeIfAbsent(chunk.get(validPositions.get(i)).getProjectName(), p -> new ArrayList<>()).add(i);
+        }
+
+        float[][] vectors = new float[messages.size()][];
+        byProject.forEach((projectName, positions) -> {
+            List<String> inputs = positions.stream().map(messages::get).toList();
+            long tokens = inputs.stream()
+                    .filter(input -> !embeddingService.isCached(input))
+                    .mapToLong(contextBuilder::countTokens)
+                    .sum();
+            List<float[]> projectVectors;
+            try {
+                projectVectors = tokens == 0
+                        ? embeddingService.embedAll(inputs)
+                        : tenantDispatcher.dispatch(ConcurrencyLimits.EMBEDDING, projectName, tokens,
+                                () -> concurrencyLimits.call(ConcurrencyLimits.EMBEDDING,
+                                        () -> embeddingService.embedAll(inputs)));
+            } catch (OverloadedException e) {
+                logger.warn("Embeddings do lote rejeitados para o projeto {}: {}", projectName, e.getMessage());
+                return;
+            }
+            for (int i = 0; i < positions.size(); i++) {
+                vectors[positions.get(i)] = projectVectors.get(i);
+            }
+        });
+        return Arrays.asList(vectors);
+    }
+
+    /**
+     * A falha de uma pergunta (sobrecarga, circuit breaker aberto, prazo esgotado) vira handover só dela,
+     * sem derrubar o lote.
+     */
+    private static ConversationResponse await(Item item) {
+        try {
+            return item.future().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Processamento do lote interrompido.", e);
+        } catch (ExecutionException e) {
+            logger.warn("Falha ao responder pergunta do lote; encaminhada para handover: {}", e.getCause().toString());
+            return handover(item.userMessage(), "Sua solicitação será encaminhada para um atendente humano.");
+        }
+    }
+
+    private static ConversationResponse invalidRequest(ChatRequest request) {
+        String userMessage = request.getMessages() != null && !request.getMessages().isEmpty()
+                ? request.getLastMessageContent()
+                : "";
+        return handover(userMessage, "Requisição inválida: projectName e messages são obrigatórios.");
+    }
+
+    private static ConversationResponse handover(String userMessage, String agentMessage) {
+        return new ConversationResponse(
+                List.of(
+                        new Message("USER", userMessage),
+                        new Message("AGENT", agentMessage)
+                ),
+                true,
+                List.of()
+        );
+    }
+
+    private record Item(String userMessage, Future<ConversationResponse> future) {
+    }
+}
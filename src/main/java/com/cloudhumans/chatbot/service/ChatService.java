@@ -1,23 +1,57 @@
 package com.cloudhumans.chatbot.service;
 
-import com.cloudhumans.chatbot.model.embedding.EmbeddingRequest;
-import com.cloudhumans.chatbot.model.embedding.EmbeddingResponse;
+import com.cloudhumans.chatbot.cache.SemanticAnswerCache;
+import com.cloudhumans.chatbot.conversation.ConversationProperties;
+import com.cloudhumans.chatbot.conversation.ConversationStore;
+import com.cloudhumans.chatbot.deadline.Deadline;
+import com.cloudhumans.chatbot.deadline.DeadlineProperties;
+import com.cloudhumans.chatbot.exception.DeadlineExceededException;
+import com.cloudhumans.chatbot.limit.ConcurrencyLimits;
+import com.cloudhumans.chatbot.limit.TenantDispatcher;
+import com.cloudhumans.chatbot.metrics.ChatMetrics;
+import com.cloudhumans.chatbot.model.llm.ChatCompletionChunk;
 import com.cloudhumans.chatbot.model.llm.ChatCompletionRequest;
 import com.cloudhumans.chatbot.model.llm.ChatCompletionResponse;
 import com.cloudhumans.chatbot.model.llm.Message;
 import com.cloudhumans.chatbot.model.response.ConversationResponse;
-import com.cloudhumans.chatbot.model.search.DatabaseSearchResponse;
 import com.cloudhumans.chatbot.model.search.SearchResult;
+import com.cloudhumans.chatbot.resilience.Resilience;
+import com.cloudhumans.chatbot.routing.ModelRouter;
+import com.cloudhumans.chatbot.search.RankFusion;
+import com.cloudhumans.chatbot.search.RetrievalConfidence;
+import com.cloudhumans.chatbot.search.RetrievalMode;
+import com.cloudhumans.chatbot.search.RetrievalProperties;
+import com.cloudhumans.chatbot.search.VectorSearchBackend;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.common.KeyValues;
 import lombok.RequiredArgsConstructor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -25,23 +59,26 @@ public class ChatService {
 
     private static final Logger logger = LogManager.getLogger(ChatService.class);
 
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
-
-    @Value("${cloudhumans.embedding.url}")
-    private String embeddingApiUrl;
-
-    @Value("${cloudhumans.embedding.api-key}")
-    private String embeddingApiKey;
-
-    @Value("${cloudhumans.embedding.model}")
-    private String embeddingModel;
+    private static final int SEARCH_TOP_K = 10;
 
-    @Value("${database.search.url}")
-    private String dbSearchUrl;
-
-    @Value("${database.search.api-key}")
-    private String dbApiKey;
+    @Qualifier("llmRestTemplate")
+    private final RestTemplate llmRestTemplate;
+    private final ObjectMapper objectMapper;
+    private final EmbeddingService embeddingService;
+    private final SemanticAnswerCache semanticAnswerCache;
+    private final VectorSearchBackend vectorSearchBackend;
+    private final RequestCoalescer requestCoalescer;
+    private final ChatMetrics chatMetrics;
+    private final ContextBuilder contextBuilder;
+    private final ConversationStore conversationStore;
+    private final ConversationProperties conversationProperties;
+    private final RetrievalProperties retrievalProperties;
+    private final ModelRouter modelRouter;
+    private final DeadlineProperties deadlineProperties;
+    private final ConcurrencyLimits concurrencyLimits;
+    private final TenantDispatcher tenantDispatcher;
+    private final Resilience resilience;
+    private final AsyncTaskExecutor taskExecutor;
 
     @Value("${openai.chat.url}")
     private String openAiChatUrl;
@@ -53,8 +90,111 @@ public class ChatService {
     private String openAiModel;
 
     public ConversationResponse getAnswer(String projectName, String userMessage) {
-        List<Double> vector = fetchEmbeddingVector(userMessage);
+        return countHandover(projectName, withinDeadline(projectName, userMessage,
+                () -> requestCoalescer.execute(projectName, userMessage,
+                        () -> answer(projectName, userMessage, List.of(), null))));
+    }
+
+    public ConversationResponse streamAnswer(String projectName, String userMessage, Consumer<String> onToken) {
+        return countHandover(projectName, withinDeadline(projectName, userMessage,
+                () -> answer(projectName, userMessage, List.of(), onToken)));
+    }
+
+    public ConversationResponse getAnswer(String projectName, String userMessage, float[] vector) {
+        return countHandover(projectName,
+                answer(projectName, userMessage, vector, startKeywordSearch(projectName, userMessage), List.of(), null));
+    }
+
+    /**
+     * Responde a última mensagem no contexto da conversa conversationId (criada se for null). O histórico é o
+     * guardado no servidor ou, para uma conversa nova, as mensagens anteriores enviadas na requisição; o turno
+     * respondido é acrescentado à conversa. Com onToken != null a resposta do LLM é transmitida token a token.
+     */
+    public ConversationResponse converse(String projectName, String conversationId, List<Message> messages,
+                                         Consumer<String> onToken) {
+        String id = conversationId != null ? conversationId : UUID.randomUUID().toString();
+        String userMessage = messages.get(messages.size() - 1).getContent();
+        List<Message> stored = conversationStore.history(projectName, id);
+        List<Message> history = stored.isEmpty() ? messages.subList(0, messages.size() - 1) : stored;
+
+        ConversationResponse response;
+        if (history.isEmpty()) {
+            response = onToken == null
+                    ? getAnswer(projectName, userMessage)
+                    : streamAnswer(projectName, userMessage, onToken);
+        } else {
+            response = countHandover(projectName, withinDeadline(projectName, userMessage,
+                    () -> answer(projectName, userMessage, history, onToken)));
+        }
+
+        List<Message> turns = new ArrayList<>(stored.isEmpty() ? history : List.of());
+        turns.add(new Message("USER", userMessage));
+        turns.add(response.getMessages().get(response.getMessages().size() - 1));
+        conversationStore.append(projectName, id, turns);
+        return new ConversationResponse(response.getMessages(), response.isHandoverToHumanNeeded(),
+                response.getResults(), id);
+    }
+
+    private ConversationResponse countHandover(String projectName, ConversationResponse response) {
+        if (response.isHandoverToHumanNeeded()) {
+            chatMetrics.handover(projectName);
+        }
+        return response;
+    }
+
+    /**
+     * Cada etapa confere o prazo da requisição (Deadline) antes de começar; se ele acabou, ou o cliente
+     * desconectou, a conversa vai para o handover sem esperar as etapas restantes.
+     */
+    private ConversationResponse withinDeadline(String projectName, String userMessage,
+                                                Supplier<ConversationResponse> pipeline) {
+        try {
+            return pipeline.get();
+        } catch (DeadlineExceededException e) {
+            logger.warn("{}; conversa encaminhada para handover.", e.getMessage());
+            chatMetrics.deadlineExceeded(projectName, e.getStage(), e.isCancelled());
+            return new ConversationResponse(
+                    List.of(
+                            new Message("USER", userMessage),
+                            new Message("AGENT", "Sua solicitação será encaminhada para um atendente humano.")
+                    ),
+                    true,
+                    List.of()
+            );
+        }
+    }
+
+    private ConversationResponse answer(String projectName, String userMessage, List<Message> history,
+                                        Consumer<String> onToken) {
+        Deadline.check(ConcurrencyLimits.EMBEDDING);
+        String query = searchQuery(history, userMessage, conversationProperties.getQueryTurns());
+        FutureTask<List<SearchResult>> keywordSearch = startKeywordSearch(projectName, query);
+        float[] vector = chatMetrics.time("embedding", projectName, () -> embed(projectName, query),
+                result -> KeyValues.of(
+                        "embedding.model", embeddingService.getEmbeddingModel(),
+                        "embedding.input.chars", String.valueOf(query.length()),
+                        "embedding.dimension", String.valueOf(result != null ? result.length : 0)
+                ));
+        return answer(projectName, userMessage, vector, keywordSearch, history, onToken);
+    }
+
+    /**
+     * Só o que vai de fato à API de embeddings (fora do cache) passa pela fila justa do rate limit.
+     */
+    private float[] embed(String projectName, String query) {
+        if (embeddingService.isCached(query)) {
+            return embeddingService.embed(query);
+        }
+        return tenantDispatcher.dispatch(ConcurrencyLimits.EMBEDDING, projectName, contextBuilder.countTokens(query),
+                () -> concurrencyLimits.call(ConcurrencyLimits.EMBEDDING, () -> embeddingService.embed(query)));
+    }
+
+    private ConversationResponse answer(String projectName, String userMessage, float[] vector,
+                                        FutureTask<List<SearchResult>> keywordSearch, List<Message> history,
+                                        Consumer<String> onToken) {
         if (vector == null) {
+            cancel(keywordSearch);
+            Deadline.check(ConcurrencyLimits.EMBEDDING);
             return new ConversationResponse(
                     List.of(
                             new Message("USER", userMessage),
@@ -65,8 +205,30 @@ public class ChatService {
             );
         }
 
-        List<SearchResult> results = queryDatabase(vector, projectName);
+        // com histórico a resposta depende dos turnos anteriores, não só do vetor da consulta
+        ConversationResponse cached = history.isEmpty() ? semanticAnswerCache.lookup(projectName, vector) : null;
+        if (cached != null) {
+            cancel(keywordSearch);
+            logger.info("Resposta recuperada do cache semântico.");
+            return new ConversationResponse(
+                    List.of(
+                            new Message("USER", userMessage),
+                            cached.getMessages().get(cached.getMessages().size() - 1)
+                    ),
+                    cached.isHandoverToHumanNeeded(),
+                    cached.getResults()
+            );
+        }
+
+        Deadline.check(ConcurrencyLimits.SEARCH);
+        Retrieval retrieval = retrieve(projectName, vector, keywordSearch);
+        List<SearchResult> results = retrieval != null ? retrieval.results() : null;
         if (results == null || results.isEmpty()) {
+            if (results != null) {
+                chatMetrics.emptyResults(projectName);
+            } else {
+                Deadline.check(ConcurrencyLimits.SEARCH);
+            }
             return new ConversationResponse(
                     List.of(
                             new Message("USER", userMessage),
@@ -77,15 +239,77 @@ public class ChatService {
             );
         }
 
-        String context = results.stream()
-                .map(SearchResult::getContent)
-                .reduce("", (a, b) -> a + "\n" + b);
+        chatMetrics.searchScores(projectName, retrieval.vectorResults());
+        RetrievalConfidence confidence = RetrievalConfidence.of(retrieval.vectorResults());
+        RetrievalConfidence.Decision decision = confidence.decide(
+                retrievalProperties.minScore(projectName),
+                retrievalProperties.n2ShortCircuit(projectName),
+                retrievalProperties.n2Margin(projectName),
+                retrieval.keywordMatched());
+        if (decision != RetrievalConfidence.Decision.ANSWER) {
+            logger.info("LLM não chamado ({}): top score {}, margem {}.", decision, confidence.topScore(), confidence.margin());
+            chatMetrics.llmCallAvoided(projectName, decision.name().toLowerCase(Locale.ROOT));
+            return new ConversationResponse(
+                    List.of(
+                            new Message("USER", userMessage),
+                            new Message("AGENT", decision == RetrievalConfidence.Decision.N2
+                                    ? "Sua solicitação será encaminhada para um atendente humano."
+                                    : "Desculpe, não encontrei uma resposta para sua pergunta.")
+                    ),
+                    true,
+                    results
+            );
+        }
+
+        ContextBuilder.Context packed = contextBuilder.build(results);
+        chatMetrics.contextTokens(projectName, packed.tokens(), packed.savedTokens());
+        String context = packed.text();
+        List<Message> turns = contextBuilder.recentTurns(history, conversationProperties.getHistoryMaxTokens());
+
+        ModelRouter.Route chosen = modelRouter.route(projectName, ModelRouter.Signals.of(
+                retrieval.vectorResults(), results, packed.tokens(), !history.isEmpty()));
+        SearchResult verbatimMatch = chosen.verbatim() ? bestVectorResult(retrieval).orElse(null) : null;
+        // no híbrido só a busca por palavras-chave pode ter encontrado algo: sem resultado vetorial, segue para o LLM
+        ModelRouter.Route route = chosen.verbatim() && verbatimMatch == null
+                ? new ModelRouter.Route(ModelRouter.DEFAULT_TIER, null, "no-vector-match")
+                : chosen;
+        chatMetrics.routed(projectName, route.tier(), route.reason());
+        if (verbatimMatch != null) {
+            return verbatimAnswer(projectName, userMessage, vector, retrieval, verbatimMatch);
+        }
 
-        String llmResponse = callGpt4(userMessage, context);
+        // sem tempo para uma resposta do LLM, o handover imediato é melhor que um timeout no cliente
+        Deadline.require(deadlineProperties.getLlmMinBudget(), ConcurrencyLimits.LLM);
+        String model = route.model() != null ? route.model() : openAiModel;
+        long llmTokens = packed.tokens() + contextBuilder.countTokens(userMessage)
+                + turns.stream().mapToInt(turn -> contextBuilder.countTokens(turn.getContent())).sum()
+                + tenantDispatcher.getCompletionTokens();
+
+        long llmStart = System.nanoTime();
+        String llmResponse = chatMetrics.time("llm", projectName, () -> tenantDispatcher.dispatch(ConcurrencyLimits.LLM,
+                        projectName, llmTokens, () -> concurrencyLimits.call(ConcurrencyLimits.LLM,
+                                () -> onToken == null
+                                        ? callGpt4(projectName, model, userMessage, context, turns)
+                                        : streamGpt4(projectName, model, userMessage, context, turns, onToken))),
+                result -> KeyValues.of(
+                        "llm.model", model,
+                        "llm.tier", route.tier(),
+                        "llm.route.reason", route.reason(),
+                        "llm.streaming", String.valueOf(onToken != null),
+                        "llm.context.chars", String.valueOf(context.length()),
+                        "llm.context.tokens", String.valueOf(packed.tokens()),
+                        "llm.context.chunks", String.valueOf(packed.included()),
+                        "llm.history.turns", String.valueOf(turns.size()),
+                        "llm.completion.chars", String.valueOf(result != null ? result.length() : 0)
+                ));
+        chatMetrics.tierLatency(projectName, route.tier(), model, System.nanoTime() - llmStart, llmResponse != null);
+        if (llmResponse == null) {
+            Deadline.check(ConcurrencyLimits.LLM);
+        }
 
-        boolean hasN2 = results.stream().anyMatch(r -> "N2".equalsIgnoreCase(r.getType()));
+        boolean hasN2 = results.stream().anyMatch(RetrievalConfidence::isN2);
 
-        return new ConversationResponse(
+        ConversationResponse response = new ConversationResponse(
                 List.of(
                         new Message("USER", userMessage),
                         new Message("AGENT", llmResponse != null ? llmResponse : "Erro ao gerar resposta via LLM.")
@@ -93,96 +317,152 @@ public class ChatService {
                 hasN2,
                 results
         );
+        if (llmResponse != null && history.isEmpty()) {
+            semanticAnswerCache.store(projectName, vector, response);
+        }
+        return response;
     }
 
-    private List<Double> fetchEmbeddingVector(String input) {
-        EmbeddingRequest request = new EmbeddingRequest(input, embeddingModel);
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(embeddingApiKey);
+    /**
+     * Match quase exato de uma FAQ: o conteúdo do melhor resultado vetorial é a resposta, sem LLM.
+     */
+    private ConversationResponse verbatimAnswer(String projectName, String userMessage, float[] vector,
+                                                Retrieval retrieval, SearchResult match) {
+        logger.info("LLM não chamado: resposta verbatim do melhor resultado (score {}).", match.getSearchScore());
+        chatMetrics.llmCallAvoided(projectName, ModelRouter.VERBATIM);
+        ConversationResponse response = new ConversationResponse(
+                List.of(
+                        new Message("USER", userMessage),
+                        new Message("AGENT", match.getContent())
+                ),
+                false,
+                retrieval.results()
+        );
+        semanticAnswerCache.store(projectName, vector, response);
+        return response;
+    }
 
-        HttpEntity<EmbeddingRequest> entity = new HttpEntity<>(request, headers);
+    private static Optional<SearchResult> bestVectorResult(Retrieval retrieval) {
+        return retrieval.vectorResults().stream().max(Comparator.comparingDouble(SearchResult::getSearchScore));
+    }
 
-        logger.info("Enviando texto para embedding API...");
+    private Retrieval retrieve(String projectName, float[] vector, FutureTask<List<SearchResult>> keywordSearch) {
+        List<SearchResult> vectorResults = chatMetrics.time("search", projectName,
+                () -> concurrencyLimits.call(ConcurrencyLimits.SEARCH,
+                        () -> vectorSearchBackend.search(projectName, vector, SEARCH_TOP_K)),
+                result -> KeyValues.of(
+                        "search.top", String.valueOf(SEARCH_TOP_K),
+                        "search.results", String.valueOf(result != null ? result.size() : 0)
+                ));
+        if (keywordSearch == null) {
+            return vectorResults != null ? new Retrieval(vectorResults, vectorResults, false) : null;
+        }
 
-        try {
-            ResponseEntity<String> rawResponse = restTemplate.exchange(
-                    embeddingApiUrl,
-                    HttpMethod.POST,
-                    entity,
-                    String.class
-            );
-            logger.info("Embedding gerado com sucesso.");
-            EmbeddingResponse response = objectMapper.readValue(rawResponse.getBody(), EmbeddingResponse.class);
-            return response.getFirstEmbedding();
-        } catch (Exception e) {
-            logger.error("Erro ao chamar a API de embeddings:", e);
+        List<SearchResult> keywordResults = await(keywordSearch);
+        if (vectorResults == null && keywordResults == null) {
             return null;
         }
+        List<SearchResult> fused = RankFusion.reciprocalRank(Arrays.asList(vectorResults, keywordResults),
+                retrievalProperties.getRrfK(), SEARCH_TOP_K);
+        return new Retrieval(fused, vectorResults != null ? vectorResults : List.of(),
+                keywordResults != null && !keywordResults.isEmpty());
     }
 
-    private List<SearchResult> queryDatabase(List<Double> vector, String projectName) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("api-key", dbApiKey);
+    /**
+     * results é a lista final (fundida no modo híbrido); vectorResults são os resultados da busca vetorial,
+     * os únicos com scores comparáveis aos thresholds.
+     */
+    private record Retrieval(List<SearchResult> results, List<SearchResult> vectorResults, boolean keywordMatched) {
+    }
 
-        String vectorJson;
-        try {
-            vectorJson = objectMapper.writeValueAsString(vector);
-        } catch (Exception e) {
-            logger.error("Erro ao converter vetor para JSON:", e);
+    /**
+     * No modo híbrido dispara a busca por palavras-chave, que não depende do embedding,
+     * para rodar em paralelo com a chamada de embedding.
+     */
+    private FutureTask<List<SearchResult>> startKeywordSearch(String projectName, String userMessage) {
+        if (retrievalProperties.mode(projectName) != RetrievalMode.HYBRID) {
             return null;
         }
+        FutureTask<List<SearchResult>> task = new FutureTask<>(() -> chatMetrics.time("keyword", projectName,
+                () -> concurrencyLimits.call(ConcurrencyLimits.SEARCH,
+                        () -> vectorSearchBackend.keywordSearch(projectName, userMessage, SEARCH_TOP_K)),
+                result -> KeyValues.of(
+                        "search.top", String.valueOf(SEARCH_TOP_K),
+                        "search.results", String.valueOf(result != null ? result.size() : 0)
+                )));
+        try {
+            taskExecutor.execute(task);
+        } catch (TaskRejectedException e) {
+            logger.warn("Busca por palavras-chave rejeitada pelo executor; será executada na thread do pipeline.");
+        }
+        return task;
+    }
 
-        String requestBody = String.format("""
-                {
-                  "count": true,
-                  "select": "content, type",
-                  "top": 10,
-                  "filter": "projectName eq '%s'",
-                  "vectorQueries": [
-                    {
-                      "vector": %s,
-                      "k": 10,
-                      "fields": "embeddings",
-                      "kind": "vector"
-                    }
-                  ]
-                }
-                """, projectName, vectorJson);
-
-        HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
-
+    private static List<SearchResult> await(FutureTask<List<SearchResult>> keywordSearch) {
+        // se a tarefa ainda está na fila do executor, roda aqui mesmo em vez de esperar por uma thread livre
+        keywordSearch.run();
         try {
-            ResponseEntity<String> rawResponse = restTemplate.exchange(
-                    dbSearchUrl,
-                    HttpMethod.POST,
-                    entity,
-                    String.class
-            );
-            logger.info("Resultados recuperados do vector DB.");
-            DatabaseSearchResponse typedResponse = objectMapper.readValue(rawResponse.getBody(), DatabaseSearchResponse.class);
-            return typedResponse.getValue();
-        } catch (Exception e) {
-            logger.error("Erro ao consultar o vector DB:", e);
+            return keywordSearch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            logger.error("Erro na busca por palavras-chave:", e.getCause());
             return null;
         }
     }
 
-    private String callGpt4(String userMessage, String context) {
-        List<Message> messages = List.of(
-                new Message("system", """
+    private static void cancel(FutureTask<?> task) {
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * Consulta de busca de um turno: as últimas perguntas do usuário seguidas da atual, para que
+     * perguntas de continuação ("e quanto custa?") encontrem o assunto dos turnos anteriores.
+     */
+    static String searchQuery(List<Message> history, String userMessage, int turns) {
+        List<String> questions = new ArrayList<>();
+        for (int i = history.size() - 1; i >= 0 && questions.size() < turns; i--) {
+            Message message = history.get(i);
+            if (!isAgent(message) && message.getContent() != null && !message.getContent().isBlank()) {
+                questions.add(0, message.getContent());
+            }
+        }
+        questions.add(userMessage);
+        return String.join("\n", questions);
+    }
+
+    private static boolean isAgent(Message message) {
+        return "AGENT".equalsIgnoreCase(message.getRole()) || "assistant".equalsIgnoreCase(message.getRole());
+    }
+
+    static List<Message> buildGptMessages(String userMessage, String context) {
+        return buildGptMessages(userMessage, context, List.of());
+    }
+
+    static List<Message> buildGptMessages(String userMessage, String context, List<Message> history) {
+        List<Message> messages = new ArrayList<>(history.size() + 2);
+        messages.add(new Message("system", """
                         You are a Tesla support assistant. 
                         Only answer questions using the provided context. 
                         If the answer is not explicitly mentioned in the context, respond with:
                         "I'm sorry, I couldn't find this information in our records. I will escalate this request to a human assistant."
 
                         Never use external or general knowledge, even if you know the answer.
-                        """),
-                new Message("user", "Context:\n" + context + "\n\nQuestion: " + userMessage)
-        );
+                        """));
+        for (Message turn : history) {
+            if (turn.getContent() != null && !"system".equalsIgnoreCase(turn.getRole())) {
+                messages.add(new Message(isAgent(turn) ? "assistant" : "user", turn.getContent()));
+            }
+        }
+        messages.add(new Message("user", "Context:\n" + context + "\n\nQuestion: " + userMessage));
+        return messages;
+    }
 
-        ChatCompletionRequest request = new ChatCompletionRequest(openAiModel, messages);
+    private String callGpt4(String projectName, String model, String userMessage, String context, List<Message> history) {
+        ChatCompletionRequest request = new ChatCompletionRequest(model, buildGptMessages(userMessage, context, history));
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -191,16 +471,72 @@ public class ChatService {
         HttpEntity<ChatCompletionRequest> entity = new HttpEntity<>(request, headers);
 
         try {
-            ResponseEntity<ChatCompletionResponse> response = restTemplate.exchange(
-                    openAiChatUrl,
-                    HttpMethod.POST,
-                    entity,
-                    ChatCompletionResponse.class
-            );
+            ResponseEntity<ChatCompletionResponse> response = resilience.execute(ConcurrencyLimits.LLM,
+                    () -> llmRestTemplate.exchange(
+                            openAiChatUrl,
+                            HttpMethod.POST,
+                            entity,
+                            ChatCompletionResponse.class
+                    ));
+            chatMetrics.tokens(projectName, response.getBody().getUsage());
             return response.getBody().getChoices().get(0).getMessage().getContent();
         } catch (Exception e) {
             logger.error("Erro ao chamar o modelo GPT-4:", e);
             return null;
         }
     }
-}
\ No newline at end of file
+
+    private String streamGpt4(String projectName, String model, String userMessage, String context,
+                              List<Message> history, Consumer<String> onToken) {
+        ChatCompletionRequest request = ChatCompletionRequest.streaming(model,
+                buildGptMessages(userMessage, context, history));
+
+        // tokens já entregues ao cliente não podem ser repetidos por outra tentativa
+        AtomicBoolean started = new AtomicBoolean();
+        Consumer<String> forward = token -> {
+            started.set(true);
+            onToken.accept(token);
+        };
+        try {
+            return resilience.executeStreaming(ConcurrencyLimits.LLM, started::get, () -> llmRestTemplate.execute(
+                    openAiChatUrl,
+                    HttpMethod.POST,
+                    httpRequest -> {
+                        httpRequest.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                        httpRequest.getHeaders().setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+                        httpRequest.getHeaders().setBearerAuth(openAiApiKey);
+                        objectMapper.writeValue(httpRequest.getBody(), request);
+                    },
+                    httpResponse -> readCompletionStream(projectName, httpResponse.getBody(), forward)
+            ));
+        } catch (Exception e) {
+            logger.error("Erro ao chamar o modelo GPT-4 em modo streaming:", e);
+            return null;
+        }
+    }
+
+    private String readCompletionStream(String projectName, InputStream body, Consumer<String> onToken) throws IOException {
+        StringBuilder completion = new StringBuilder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            String data = line.substring("data:".length()).trim();
+            if ("[DONE]".equals(data)) {
+                break;
+            }
+            Deadline.check(ConcurrencyLimits.LLM);
+
+            ChatCompletionChunk chunk = objectMapper.readValue(data, ChatCompletionChunk.class);
+            chatMetrics.tokens(projectName, chunk.getUsage());
+            String token = chunk.getFirstDeltaContent();
+            if (token != null && !token.isEmpty()) {
+                completion.append(token);
+                onToken.accept(token);
+            }
+        }
+        return completion.toString();
+    }
+}
@@ -0,0 +1,159 @@
+package com.cloudhumans.chatbot.service;
+
+import com.cloudhumans.chatbot.model.llm.Message;
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Monta o contexto enviado ao LLM a partir dos resultados da busca, já ordenados por relevância
+ * (searchScore do backend ou reciprocal rank fusion no modo híbrido): descarta trechos quase idênticos
+ * a um já incluído e empacota os demais, na ordem, até o orçamento de tokens do modelo.
+ */
+@Component
+public class ContextBuilder {
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final String SEPARATOR = "\n";
+
+    private final Encoding encoding;
+    private final int maxTokens;
+    private final double duplicateSimilarity;
+
+    @Autowired
+    public ContextBuilder(@Value("${openai.chat.model}") String model,
+                          @Value("${cloudhumans.context.max-tokens:2000}") int maxTokens,
+                          @Value("${cloudhumans.context.duplicate-similarity:0.9}") double duplicateSimilarity) {
+        this(encodingForModel(model), maxTokens, duplicateSimilarity);
+    }
+
+    ContextBuilder(Encoding encoding, int maxTokens, double duplicateSimilarity) {
+        this.encoding = encoding;
+        this.maxTokens = maxTokens;
+        this.duplicateSimilarity = duplicateSimilarity;
+    }
+
+    public Context build(List<SearchResult> results) {
+        StringBuilder text = new StringBuilder();
+        List<Set<String>> includedWords = new ArrayList<>();
+        int tokens = 0;
+        int candidateTokens = 0;
+        int duplicates = 0;
+        SearchResult first = null;
+
+        for (SearchResult result : results) {
+            String content = result.getContent();
+            if (content == null || content.isBlank()) {
+                continue;
+            }
+            int contentTokens = encoding.countTokens(content);
+            candidateTokens += contentTokens;
+
+            Set<String> words = words(content);
+            if (isDuplicate(words, includedWords)) {
+                duplicates++;
+                continue;
+            }
+            if (first == null) {
+                first = result;
+            }
+            if (tokens + contentTokens > maxTokens) {
+                continue;
+            }
+            if (!text.isEmpty()) {
+                text.append(SEPARATOR);
+            }
+            text.append(content);
+            tokens += contentTokens;
+            includedWords.add(words);
+        }
+
+        if (includedWords.isEmpty() && first != null) {
+            // nenhum trecho cabe inteiro: usa o início do mais relevante
+            String truncated = encoding.decode(encoding.encode(first.getContent(), maxTokens).getTokens());
+            text.append(truncated);
+            tokens = encoding.countTokens(truncated);
+            includedWords.add(words(truncated));
+        }
+
+        return new Context(text.toString(), tokens, Math.max(0, candidateTokens - tokens),
+                includedWords.size(), duplicates);
+    }
+
+    /**
+     * Turnos mais recentes da conversa, em ordem cronológica, cujo conteúdo cabe em maxTokens.
+     */
+    public List<Message> recentTurns(List<Message> turns, int maxTokens) {
+        int tokens = 0;
+        int first = turns.size();
+        while (first > 0) {
+            String content = turns.get(first - 1).getContent();
+            tokens += content != null ? encoding.countTokens(content) : 0;
+            if (tokens > maxTokens) {
+                break;
+            }
+            first--;
+        }
+        return turns.subList(first, turns.size());
+    }
+
+    public int countTokens(String text) {
+        return text != null ? encoding.countTokens(text) : 0;
+    }
+
+    private boolean isDuplicate(Set<String> words, List<Set<String>> includedWords) {
+        for (Set<String> included : includedWords) {
+            if (jaccard(words, included) >= duplicateSimilarity) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() && b.isEmpty()) {
+            return 1.0;
+        }
+        Set<String> smaller = a.size() <= b.size() ? a : b;
+        Set<String> larger = smaller == a ? b : a;
+        int intersection = 0;
+        for (String word : smaller) {
+            if (larger.contains(word)) {
+                intersection++;
+            }
+        }
+        return (double) intersection / (a.size() + b.size() - intersection);
+    }
+
+    private static Set<String> words(String content) {
+        Set<String> words = new HashSet<>();
+        Matcher matcher = WORD.matcher(content.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            words.add(matcher.group());
+        }
+        return words;
+    }
+
+    public static Encoding encodingForModel(String model) {
+        var registry = Encodings.newLazyEncodingRegistry();
+        return registry.getEncodingForModel(model).orElseGet(() -> registry.getEncoding(EncodingType.O200K_BASE));
+    }
+
+    /**
+     * Contexto montado; savedTokens são os tokens dos trechos descartados (duplicados ou fora do orçamento).
+     */
+    public record Context(String text, int tokens, int savedTokens, int included, int duplicates) {
+    }
+}
@@ -0,0 +1,153 @@
+package com.cloudhumans.chatbot.service;
+
+import com.cloudhumans.chatbot.cache.EmbeddingCache;
+import com.cloudhumans.chatbot.http.JsonExchange;
+import com.cloudhumans.chatbot.limit.ConcurrencyLimits;
+import com.cloudhumans.chatbot.model.embedding.EmbeddingData;
+import com.cloudhumans.chatbot.model.embedding.EmbeddingRequest;
+import com.cloudhumans.chatbot.model.embedding.EmbeddingResponse;
+import com.cloudhumans.chatbot.resilience.Resilience;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class EmbeddingService {
+
+    private static final Logger logger = LogManager.getLogger(EmbeddingService.class);
+
+    @Qualifier("embeddingRestTemplate")
+    private final RestTemplate embeddingRestTemplate;
+    private final ObjectMapper objectMapper;
+    private final EmbeddingCache embeddingCache;
+    private final Resilience resilience;
+
+    @Value("${cloudhumans.embedding.url}")
+    private String embeddingApiUrl;
+
+    @Value("${cloudhumans.embedding.api-key}")
+    private String embeddingApiKey;
+
+    @Value("${cloudhumans.embedding.model}")
+    private String embeddingModel;
+
+    @Value("${cloudhumans.embedding.max-batch-size:512}")
+    private int maxBatchSize = 512;
+
+    public String getEmbeddingModel() {
+        return embeddingModel;
+    }
+
+    /**
+     * Não conta nas métricas do cache: o embed/embedAll seguinte faz a única consulta contabilizada.
+     */
+    public boolean isCached(String input) {
+        return embeddingCache.contains(EmbeddingCache.key(embeddingModel, input));
+    }
+
+    public float[] embed(String input) {
+        return embedAll(List.of(input)).get(0);
+    }
+
+    /**
+     * Gera os embeddings de todas as entradas, na mesma ordem, enviando apenas as que não
+     * estão no cache (sem repetições) em lotes de até max-batch-size entradas por chamada.
+     * Posições cujo lote falhou ficam null.
+     */
+    public List<float[]> embedAll(List<String> inputs) {
+        float[][] vectors = new float[inputs.size()][];
+        Map<String, List<Integer>> pending = new LinkedHashMap<>();
+        Map<String, String> textByKey = new LinkedHashMap<>();
+
+        for (int i = 0; i < inputs.size(); i++) {
+            String cacheKey = EmbeddingCache.key(embeddingModel, inputs.get(i));
+            float[] cached = embeddingCache.get(cacheKey);
+            if (cached != null) {
+                vectors[i] = cached;
+            } else {
+                pending.computeIfAbsent(cacheKey, k -> new ArrayList<>()).add(i);
+                textByKey.putIfAbsent(cacheKey, inputs.get(i));
+            }
+        }
+
+        if (pending.isEmpty()) {
+            logger.info("Embedding recuperado do cache.");
+            return Arrays.asList(vectors);
+        }
+
+        List<String> keys = new ArrayList<>(pending.keySet());
+        for (int start = 0; start < keys.size(); start += maxBatchSize) {
+            List<String> batchKeys = keys.subList(start, Math.min(keys.size(), start + maxBatchSize));
+            List<float[]> batchVectors = requestEmbeddings(batchKeys.stream().map(textByKey::get).toList());
+            if (batchVectors == null) {
+                continue;
+            }
+            for (int i = 0; i < batchKeys.size(); i++) {
+                float[] vector = batchVectors.get(i);
+                embeddingCache.put(batchKeys.get(i), vector);
+                for (int position : pending.get(batchKeys.get(i))) {
+                    vectors[position] = vector;
+                }
+            }
+        }
+        return Arrays.asList(vectors);
+    }
+
+    /**
+     * Gera embeddings sem consultar nem preencher o cache, para a ingestão: textos vistos uma única vez
+     * não devem expulsar as perguntas frequentes. Posições cujo lote falhou ficam null.
+     */
+    public List<float[]> embedUncached(List<String> inputs) {
+        float[][] vectors = new float[inputs.size()][];
+        for (int start = 0; start < inputs.size(); start += maxBatchSize) {
+            int end = Math.min(inputs.size(), start + maxBatchSize);
+            List<float[]> batchVectors = requestEmbeddings(inputs.subList(start, end));
+            if (batchVectors == null) {
+                continue;
+            }
+            for (int i = 0; i < batchVectors.size(); i++) {
+                vectors[start + i] = batchVectors.get(i);
+            }
+        }
+        return Arrays.asList(vectors);
+    }
+
+    private List<float[]> requestEmbeddings(List<String> inputs) {
+        EmbeddingRequest request = new EmbeddingRequest(inputs, embeddingModel);
+
+        logger.info("Enviando {} texto(s) para embedding API...", inputs.size());
+
+        try {
+            EmbeddingResponse response = resilience.execute(ConcurrencyLimits.EMBEDDING,
+                    () -> embeddingRestTemplate.execute(
+                            embeddingApiUrl,
+                            HttpMethod.POST,
+                            JsonExchange.jsonBody(objectMapper, request, headers -> headers.setBearerAuth(embeddingApiKey)),
+                            JsonExchange.jsonResponse(objectMapper, EmbeddingResponse.class)
+                    ));
+            logger.info("Embedding gerado com sucesso.");
+            List<EmbeddingData> data = response.getDataInInputOrder();
+            if (data.size() != inputs.size()) {
+                logger.error("API de embeddings retornou {} vetores para {} entradas.", data.size(), inputs.size());
+                return null;
+            }
+            return data.stream().map(EmbeddingData::getEmbedding).toList();
+        } catch (Exception e) {
+            logger.error("Erro ao chamar a API de embeddings:", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.cloudhumans.chatbot.service;
+
+public enum PipelineMode {
+    /**
+     * O pipeline roda na própria thread do Tomcat (thread-per-request).
+     */
+    BLOCKING,
+    /**
+     * A thread do Tomcat é liberada e o pipeline roda no applicationTaskExecutor, que usa
+     * virtual threads quando spring.threads.virtual.enabled=true em Java 21+.
+     */
+    ASYNC
+}
@@ -0,0 +1,98 @@
+package com.cloudhumans.chatbot.service;
+
+import com.cloudhumans.chatbot.cache.EmbeddingCache;
+import com.cloudhumans.chatbot.deadline.Deadline;
+import com.cloudhumans.chatbot.exception.DeadlineExceededException;
+import com.cloudhumans.chatbot.model.response.ConversationResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight: perguntas idênticas (mesmo projeto e mensagem normalizada) que chegam
+ * enquanto o pipeline da primeira ainda está em execução aguardam e recebem a mesma resposta.
+ */
+@Component
+public class RequestCoalescer {
+
+    private static final String STAGE = "coalescing";
+
+    private final ConcurrentHashMap<Key, CompletableFuture<ConversationResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter leaders;
+    private final Counter followers;
+
+    @Value("${cloudhumans.coalescing.enabled:true}")
+    private boolean enabled = true;
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.leaders = Counter.builder("chatbot.coalescing.requests").tag("role", "leader").register(meterRegistry);
+        this.followers = Counter.builder("chatbot.coalescing.requests").tag("role", "coalesced").register(meterRegistry);
+        Gauge.builder("chatbot.coalescing.in-flight", inFlight, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    public ConversationResponse execute(String projectName, String userMessage, Supplier<ConversationResponse> pipeline) {
+        if (!enabled) {
+            return pipeline.get();
+        }
+
+        Key key = new Key(projectName, EmbeddingCache.normalize(userMessage));
+        CompletableFuture<ConversationResponse> created = new CompletableFuture<>();
+        CompletableFuture<ConversationResponse> existing = inFlight.putIfAbsent(key, created);
+
+        if (existing != null) {
+            followers.increment();
+            try {
+                return await(existing);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof DeadlineExceededException) {
+                    // o prazo esgotado (ou o cancelamento) é do líder; este seguidor tem o seu próprio
+                    return pipeline.get();
+                }
+                throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+            }
+        }
+
+        leaders.increment();
+        try {
+            ConversationResponse response = pipeline.get();
+            created.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    /**
+     * O seguidor espera o líder só até o fim do próprio prazo, que pode ser mais curto que o do líder.
+     */
+    private static ConversationResponse await(CompletableFuture<ConversationResponse> leader) throws ExecutionException {
+        Deadline deadline = Deadline.current();
+        try {
+            if (deadline == null) {
+                return leader.get();
+            }
+            return leader.get(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException(STAGE, deadline.isCancelled());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeadlineExceededException(STAGE, true);
+        }
+    }
+
+    private record Key(String projectName, String normalizedMessage) {
+    }
+}
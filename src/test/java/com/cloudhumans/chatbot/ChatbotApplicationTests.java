@@ -3,7 +3,14 @@ package com.cloudhumans.chatbot;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+		"cloudhumans.embedding.url=http://localhost/v1/embeddings",
+		"cloudhumans.embedding.api-key=test-key",
+		"cloudhumans.embedding.model=text-embedding-3-large",
+		"database.search.url=http://localhost/indexes/test/docs/search",
+		"database.search.api-key=test-key",
+		"openai.chat.api-key=test-key"
+})
 class ChatbotApplicationTests {
 
 	@Test
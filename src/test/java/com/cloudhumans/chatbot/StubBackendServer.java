@@ -0,0 +1,177 @@
+package com.cloudhumans.chatbot;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor HTTP local que imita as APIs de embedding, Azure Search e OpenAI,
+ * com latência configurável por endpoint, para testes de carga e benchmarks. Falhas (503) e lentidão
+ * podem ser injetadas em uma fração das requisições de cada endpoint, distribuída de forma uniforme
+ * e determinística (fração 0.5 = uma sim, uma não).
+ */
+public class StubBackendServer implements AutoCloseable {
+
+    public static final String EMBEDDING_PATH = "/embeddings";
+    public static final String SEARCH_PATH = "/search";
+    public static final String CHAT_PATH = "/chat/completions";
+
+    static {
+        // sem TCP_NODELAY o HttpServer do JDK soma ~40ms (Nagle + delayed ACK) em conexões keep-alive
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, Duration> latencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> lastHeaders = new ConcurrentHashMap<>();
+    private final Map<String, Double> failureRates = new ConcurrentHashMap<>();
+    private final Map<String, Slowdown> slowdowns = new ConcurrentHashMap<>();
+    private final String embeddingBody;
+
+    public StubBackendServer(int embeddingDimension) throws IOException {
+        this.embeddingBody = embeddingJson(embeddingDimension);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.server.setExecutor(executor);
+        this.server.createContext(EMBEDDING_PATH, exchange -> respond(exchange, EMBEDDING_PATH, embeddingBody));
+        this.server.createContext(SEARCH_PATH, exchange -> respond(exchange, SEARCH_PATH, """
+                {"value": [
+                  {"@search.score": 0.91, "content": "Tesla batteries last between 300,000 and 500,000 miles.", "type": "N1"},
+                  {"@search.score": 0.84, "content": "Battery replacement is covered by the warranty for 8 years.", "type": "N1"}
+                ]}
+                """));
+        this.server.createContext(CHAT_PATH, exchange -> respond(exchange, CHAT_PATH, """
+                {"choices": [{"index": 0, "message": {"role": "assistant", "content": "Between 300,000 and 500,000 miles."}, "finish_reason": "stop"}],
+                 "usage": {"prompt_tokens": 120, "completion_tokens": 12, "total_tokens": 132}}
+                """));
+    }
+
+    public StubBackendServer start() {
+        server.start();
+        return this;
+    }
+
+    public String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    public StubBackendServer latency(String path, Duration latency) {
+        latencies.put(path, latency);
+        return this;
+    }
+
+    public StubBackendServer failures(String path, double rate) {
+        failureRates.put(path, rate);
+        return this;
+    }
+
+    public StubBackendServer slowdowns(String path, double rate, Duration extraLatency) {
+        slowdowns.put(path, new Slowdown(rate, extraLatency));
+        return this;
+    }
+
+    public long requestCount(String path) {
+        AtomicLong count = requestCounts.get(path);
+        return count != null ? count.get() : 0;
+    }
+
+    public String lastHeader(String path, String name) {
+        Map<String, String> headers = lastHeaders.get(path);
+        return headers != null ? headers.get(name.toLowerCase()) : null;
+    }
+
+    public Map<String, Object> applicationProperties() {
+        return Map.of(
+                "cloudhumans.embedding.url", url(EMBEDDING_PATH),
+                "cloudhumans.embedding.api-key", "stub-key",
+                "cloudhumans.embedding.model", "text-embedding-3-large",
+                "database.search.url", url(SEARCH_PATH),
+                "database.search.api-key", "stub-key",
+                "openai.chat.url", url(CHAT_PATH),
+                "openai.chat.api-key", "stub-key"
+        );
+    }
+
+    /**
+     * Propriedades como argumentos de linha de comando: SpringApplicationBuilder.properties() só define
+     * valores padrão, que perdem para o application.properties.
+     */
+    public static String[] asArguments(Map<String, Object> properties) {
+        return properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+    }
+
+    private void respond(HttpExchange exchange, String path, String body) throws IOException {
+        long request = requestCounts.computeIfAbsent(path, p -> new AtomicLong()).incrementAndGet();
+        Map<String, String> headers = new HashMap<>();
+        exchange.getRequestHeaders().forEach((name, values) -> headers.put(name.toLowerCase(), values.get(0)));
+        lastHeaders.put(path, headers);
+        exchange.getRequestBody().readAllBytes();
+
+        Duration latency = latencies.getOrDefault(path, Duration.ZERO);
+        Slowdown slowdown = slowdowns.get(path);
+        if (slowdown != null && selected(request, slowdown.rate())) {
+            latency = latency.plus(slowdown.extraLatency());
+        }
+        if (!latency.isZero()) {
+            try {
+                Thread.sleep(latency.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int status = 200;
+        if (selected(request, failureRates.getOrDefault(path, 0.0))) {
+            status = 503;
+            body = "{\"error\": \"injected failure\"}";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * A n-ésima requisição é selecionada quando floor(n * rate) avança, o que seleciona exatamente
+     * a fração rate das requisições, espaçadas uniformemente.
+     */
+    private static boolean selected(long request, double rate) {
+        return rate > 0 && (long) (request * rate) > (long) ((request - 1) * rate);
+    }
+
+    private static String embeddingJson(int dimension) {
+        StringBuilder json = new StringBuilder("{\"data\": [{\"index\": 0, \"embedding\": [");
+        for (int i = 0; i < dimension; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(Math.sin(i) * 0.05);
+        }
+        return json.append("]}]}").toString();
+    }
+
+    private record Slowdown(double rate, Duration extraLatency) {
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -1,8 +1,42 @@
 package com.cloudhumans.chatbot;
 
+import com.cloudhumans.chatbot.limit.ConcurrencyLimits;
+import com.cloudhumans.chatbot.limit.DispatchProperties;
+import com.cloudhumans.chatbot.limit.LimitProperties;
+import com.cloudhumans.chatbot.limit.TenantDispatcher;
+import com.cloudhumans.chatbot.metrics.ChatMetrics;
+import com.cloudhumans.chatbot.resilience.Resilience;
+import com.cloudhumans.chatbot.resilience.ResilienceProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+
 import java.lang.reflect.Field;
 
 public class TestUtils {
+    /**
+     * ObservationRegistry que, como no Spring Boot, transforma observations em timers.
+     */
+    public static ObservationRegistry observationRegistry(MeterRegistry meterRegistry) {
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        return registry;
+    }
+
+    /**
+     * Resilience com a política padrão (uma tentativa, sem hedge, só circuit breaker).
+     */
+    public static Resilience resilience(MeterRegistry meterRegistry) {
+        return new Resilience(new ResilienceProperties(), meterRegistry,
+                new ChatMetrics(meterRegistry, observationRegistry(meterRegistry), 100),
+                new ConcurrencyLimits(new LimitProperties(), meterRegistry), tenantDispatcher(meterRegistry));
+    }
+
+    public static TenantDispatcher tenantDispatcher(MeterRegistry meterRegistry) {
+        return new TenantDispatcher(new DispatchProperties(), new LimitProperties(), meterRegistry,
+                new ChatMetrics(meterRegistry, observationRegistry(meterRegistry), 100));
+    }
+
     public static void setField(Object target, String fieldName, Object value) {
         try {
             Field field = target.getClass().getDeclaredField(fieldName);
@@ -0,0 +1,89 @@
+package com.cloudhumans.chatbot.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CaffeineEmbeddingCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testKeyNormalizesWhitespaceAndCase() {
+        assertThat(EmbeddingCache.key("model", "  How do I   charge my TESLA? "))
+                .isEqualTo(EmbeddingCache.key("model", "how do i charge my tesla?"));
+        assertThat(EmbeddingCache.key("model-a", "question"))
+                .isNotEqualTo(EmbeddingCache.key("model-b", "question"));
+    }
+
+    @Test
+    void testBoundedSizeEvictsEntries() {
+        CaffeineEmbeddingCache cache = new CaffeineEmbeddingCache(10, Duration.ofMinutes(5), null, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("key-" + i, new float[]{i});
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    void testExpiredEntriesAreNotReturned() throws Exception {
+        CaffeineEmbeddingCache cache = new CaffeineEmbeddingCache(10, Duration.ofMillis(50), null, new SimpleMeterRegistry());
+        cache.put("key", new float[]{1f});
+
+        Thread.sleep(100);
+
+        assertThat(cache.get("key")).isNull();
+    }
+
+    @Test
+    void testCallersCannotCorruptCachedVectors() {
+        CaffeineEmbeddingCache cache = new CaffeineEmbeddingCache(10, Duration.ofMinutes(5), null, new SimpleMeterRegistry());
+        float[] vector = {1f, 2f};
+        cache.put("key", vector);
+        vector[0] = 99f;
+
+        cache.get("key")[1] = -1f;
+
+        assertThat(cache.get("key")).containsExactly(1f, 2f);
+    }
+
+    @Test
+    void testContainsDoesNotCountAsAHitOrMiss() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CaffeineEmbeddingCache cache = new CaffeineEmbeddingCache(10, Duration.ofMinutes(5), null, meterRegistry);
+        cache.put("key", new float[]{1f});
+
+        assertThat(cache.contains("key")).isTrue();
+        assertThat(cache.contains("other")).isFalse();
+        cache.get("key");
+
+        assertThat(meterRegistry.get("cache.gets").tags("cache", "embeddings", "result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tags("cache", "embeddings", "result", "miss")
+                .functionCounter().count()).isZero();
+        assertThat(meterRegistry.get("chatbot.embedding.cache.tokens.saved").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testSnapshotRestoresWarmCache() {
+        Path snapshot = tempDir.resolve("embeddings.bin");
+        CaffeineEmbeddingCache original = new CaffeineEmbeddingCache(100, Duration.ofHours(1), snapshot, new SimpleMeterRegistry());
+        original.put("question-1", new float[]{0.1f, 0.2f, 0.3f});
+        original.put("pergunta-ção", new float[]{-1f, 2.5f});
+        original.snapshot();
+
+        CaffeineEmbeddingCache restarted = new CaffeineEmbeddingCache(100, Duration.ofHours(1), snapshot, new SimpleMeterRegistry());
+        restarted.restore();
+
+        assertThat(restarted.get("question-1")).containsExactly(0.1f, 0.2f, 0.3f);
+        assertThat(restarted.get("pergunta-ção")).containsExactly(-1f, 2.5f);
+    }
+}
@@ -0,0 +1,109 @@
+package com.cloudhumans.chatbot.cache;
+
+import com.cloudhumans.chatbot.model.llm.Message;
+import com.cloudhumans.chatbot.model.response.ConversationResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LshSemanticAnswerCacheTest {
+
+    private static final int DIMENSION = 256;
+
+    private final Random random = new Random(42);
+
+    private LshSemanticAnswerCache newCache(int maxEntries) {
+        return new LshSemanticAnswerCache(maxEntries, 0.95, Duration.ofHours(1), 4, 12, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testNearDuplicateQuestionHitsCache() {
+        LshSemanticAnswerCache cache = newCache(1000);
+        float[] question = randomVector();
+        ConversationResponse answer = response("Use the Supercharger network.");
+
+        cache.store("tesla_motors", question, answer);
+
+        assertThat(cache.lookup("tesla_motors", perturb(question, 0.01f))).isSameAs(answer);
+    }
+
+    @Test
+    void testDissimilarQuestionMisses() {
+        LshSemanticAnswerCache cache = newCache(1000);
+        cache.store("tesla_motors", randomVector(), response("Use the Supercharger network."));
+
+        assertThat(cache.lookup("tesla_motors", randomVector())).isNull();
+    }
+
+    @Test
+    void testEntriesAreIsolatedAndInvalidatedPerProject() {
+        LshSemanticAnswerCache cache = newCache(1000);
+        float[] question = randomVector();
+        cache.store("tesla_motors", question, response("A"));
+        cache.store("other_project", question, response("B"));
+
+        assertThat(cache.lookup("tesla_motors", question).getMessages().get(1).getContent()).isEqualTo("A");
+
+        cache.invalidate("tesla_motors");
+
+        assertThat(cache.lookup("tesla_motors", question)).isNull();
+        assertThat(cache.lookup("other_project", question).getMessages().get(1).getContent()).isEqualTo("B");
+    }
+
+    @Test
+    void testKeepsOnlyLastEntriesPerProject() {
+        LshSemanticAnswerCache cache = newCache(100);
+        float[] first = randomVector();
+        cache.store("tesla_motors", first, response("first"));
+        for (int i = 0; i < 100; i++) {
+            cache.store("tesla_motors", randomVector(), response("filler"));
+        }
+
+        assertThat(cache.lookup("tesla_motors", first)).isNull();
+    }
+
+    @Test
+    void testFindsStoredQuestionsAmongManyEntries() {
+        LshSemanticAnswerCache cache = newCache(20000);
+        float[][] questions = new float[20000][];
+        for (int i = 0; i < questions.length; i++) {
+            questions[i] = randomVector();
+            cache.store("tesla_motors", questions[i], response("answer-" + i));
+        }
+
+        for (int i = 0; i < questions.length; i += 997) {
+            ConversationResponse cached = cache.lookup("tesla_motors", perturb(questions[i], 0.005f));
+            assertThat(cached).isNotNull();
+            assertThat(cached.getMessages().get(1).getContent()).isEqualTo("answer-" + i);
+        }
+    }
+
+    private ConversationResponse response(String answer) {
+        return new ConversationResponse(
+                List.of(new Message("USER", "question"), new Message("AGENT", answer)),
+                false,
+                List.of()
+        );
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private float[] perturb(float[] vector, float noise) {
+        float[] copy = vector.clone();
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] += (float) random.nextGaussian() * noise;
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,33 @@
+package com.cloudhumans.chatbot.config;
+
+import com.cloudhumans.chatbot.model.embedding.EmbeddingData;
+import com.cloudhumans.chatbot.model.llm.Message;
+import com.cloudhumans.chatbot.model.search.IndexBatchRequest;
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import com.cloudhumans.chatbot.model.vector.FloatVectorDeserializer;
+import com.cloudhumans.chatbot.model.vector.FloatVectorSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeConfigTest {
+
+    @Test
+    void testRegistersNestedJsonTypesSerializersAndTokenizerResources() {
+        RuntimeHints hints = new RuntimeHints();
+        new NativeConfig.ChatbotRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        for (Class<?> type : new Class<?>[]{EmbeddingData.class, Message.class, SearchResult.class,
+                IndexBatchRequest.IndexAction.class}) {
+            assertThat(RuntimeHintsPredicates.reflection().onType(type)
+                    .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+        }
+        assertThat(RuntimeHintsPredicates.reflection().onType(FloatVectorDeserializer.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(FloatVectorSerializer.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("com/knuddels/jtokkit/o200k_base.tiktoken"))
+                .accepts(hints);
+    }
+}
@@ -0,0 +1,192 @@
+package com.cloudhumans.chatbot.controller;
+
+import com.cloudhumans.chatbot.TestUtils;
+import com.cloudhumans.chatbot.deadline.Deadline;
+import com.cloudhumans.chatbot.deadline.DeadlineProperties;
+import com.cloudhumans.chatbot.exception.GlobalExceptionHandler;
+import com.cloudhumans.chatbot.limit.ConcurrencyLimits;
+import com.cloudhumans.chatbot.limit.LimitProperties;
+import com.cloudhumans.chatbot.model.llm.Message;
+import com.cloudhumans.chatbot.model.response.ConversationResponse;
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import com.cloudhumans.chatbot.service.BatchChatService;
+import com.cloudhumans.chatbot.service.ChatService;
+import com.cloudhumans.chatbot.service.PipelineMode;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ChatControllerTest {
+
+    private static final String BODY = """
+            {"projectName": "tesla_motors", "messages": [{"role": "USER", "content": "Hi"}]}
+            """;
+
+    private final ChatService chatService = mock(ChatService.class);
+    private final DeadlineProperties deadlineProperties = new DeadlineProperties();
+    private ChatController controller;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        controller = new ChatController(chatService, mock(BatchChatService.class), executor,
+                new ObjectMapper(), new ConcurrencyLimits(new LimitProperties(), new SimpleMeterRegistry()),
+                deadlineProperties);
+        TestUtils.setField(controller, "pipelineMode", PipelineMode.ASYNC);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void testTimeoutHeaderBecomesTheDeadlineOfThePipelineThread() throws Exception {
+        AtomicReference<Duration> remaining = new AtomicReference<>();
+        when(chatService.converse(eq("tesla_motors"), isNull(), any(), isNull())).thenAnswer(invocation -> {
+            remaining.set(Deadline.current().remaining());
+            return new ConversationResponse(List.of(new Message("AGENT", "Hello")), false, List.of());
+        });
+
+        MvcResult result = mockMvc.perform(post("/chat")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Request-Timeout", "1500")
+                        .content(BODY))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        assertThat(remaining.get()).isPositive().isLessThanOrEqualTo(Duration.ofMillis(1500));
+        assertThat(Deadline.current()).isNull();
+    }
+
+    @Test
+    void testBlockingModeAnswersWithoutStartingAsyncProcessing() throws Exception {
+        TestUtils.setField(controller, "pipelineMode", PipelineMode.BLOCKING);
+        answerWith(result("1", "Battery lasts 300k miles."));
+
+        mockMvc.perform(post("/chat").contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void testRequestedTimeoutIsCappedAndInvalidValuesAreRejected() throws Exception {
+        deadlineProperties.setMaxTimeout(Duration.ofSeconds(5));
+        assertThat(deadlineProperties.deadline("tesla_motors", Duration.ofMinutes(10)).remaining())
+                .isLessThanOrEqualTo(Duration.ofSeconds(5));
+
+        mockMvc.perform(post("/chat")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Request-Timeout", "soon")
+                        .content(BODY))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(chatService);
+    }
+
+    @Test
+    void testMessagesWithoutRoleOrContentAreRejected() throws Exception {
+        mockMvc.perform(post("/chat")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"projectName": "tesla_motors", "messages": [{"content": "Hi"}]}
+                                """))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/chat")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"projectName": "tesla_motors", "messages": [{"role": "%s", "content": "Hi"}]}
+                                """.formatted("x".repeat(300))))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(chatService);
+    }
+
+    @Test
+    void testCompactViewKeepsOnlyTheAnswerAndResultsWithoutContent() throws Exception {
+        answerWith(result("1", "Battery lasts 300k miles. Warranty covers 8 years."));
+
+        JsonNode body = new ObjectMapper().readTree(chat("/chat?view=compact&fields=messages,results",
+                MediaType.APPLICATION_JSON).getResponse().getContentAsString());
+
+        assertThat(body.fieldNames()).toIterable().containsExactly("messages", "results");
+        assertThat(body.get("messages")).hasSize(1);
+        assertThat(body.at("/messages/0/content").asText()).isEqualTo("Hello");
+        assertThat(body.at("/results/0/id").asText()).isEqualTo("1");
+        assertThat(body.at("/results/0").has("content")).isFalse();
+
+        JsonNode truncated = new ObjectMapper().readTree(chat("/chat?maxContentChars=7",
+                MediaType.APPLICATION_JSON).getResponse().getContentAsString());
+        assertThat(truncated.at("/results/0/content").asText()).isEqualTo("Battery…");
+        assertThat(truncated.get("messages")).hasSize(2);
+
+        mockMvc.perform(post("/chat?view=tiny").contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCborIsNegotiatedFromTheAcceptHeader() throws Exception {
+        answerWith(result("1", "Battery lasts 300k miles."));
+
+        MvcResult result = chat("/chat", MediaType.parseMediaType("application/cbor"));
+
+        assertThat(result.getResponse().getContentType()).startsWith("application/cbor");
+        JsonNode body = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertThat(body.at("/messages/1/content").asText()).isEqualTo("Hello");
+        assertThat(body.at("/results/0/@search.score").asDouble()).isEqualTo(0.9);
+    }
+
+    private MvcResult chat(String uri, MediaType accept) throws Exception {
+        MvcResult result = mockMvc.perform(post(uri)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(accept)
+                        .content(BODY))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(accept))
+                .andReturn();
+    }
+
+    private void answerWith(SearchResult result) {
+        when(chatService.converse(eq("tesla_motors"), isNull(), any(), isNull())).thenReturn(
+                new ConversationResponse(List.of(new Message("USER", "Hi"), new Message("AGENT", "Hello")), false,
+                        List.of(result)));
+    }
+
+    private static SearchResult result(String id, String content) {
+        SearchResult result = new SearchResult();
+        result.setId(id);
+        result.setSearchScore(0.9);
+        result.setContent(content);
+        result.setType("N1");
+        return result;
+    }
+}
@@ -0,0 +1,32 @@
+package com.cloudhumans.chatbot.conversation;
+
+import com.cloudhumans.chatbot.model.llm.Message;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConversationCodecTest {
+
+    @Test
+    void testRoundTripKeepsRolesAndUnicodeContent() {
+        List<Message> turns = List.of(new Message("USER", "Olá 🚗"), new Message("AGENT", null));
+
+        List<Message> decoded = ConversationCodec.decode(ConversationCodec.encode(turns));
+
+        assertThat(decoded).extracting(Message::getRole).containsExactly("USER", "AGENT");
+        assertThat(decoded).extracting(Message::getContent).containsExactly("Olá 🚗", "");
+    }
+
+    @Test
+    void testTurnsWithoutRoleOrWithAnOverLongRoleAreRejected() {
+        assertThatThrownBy(() -> ConversationCodec.encode(List.of(new Message(null, "Oi"))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("sem papel");
+        assertThatThrownBy(() -> ConversationCodec.encode(List.of(new Message("é".repeat(128), "Oi"))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("256 bytes");
+    }
+}
@@ -0,0 +1,59 @@
+package com.cloudhumans.chatbot.conversation;
+
+import com.cloudhumans.chatbot.model.llm.Message;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryConversationStoreTest {
+
+    @Test
+    void testAppendsTurnsAndKeepsOnlyTheLatest() {
+        InMemoryConversationStore store = new InMemoryConversationStore(1024 * 1024, Duration.ofMinutes(30), 3,
+                new SimpleMeterRegistry());
+
+        store.append("p1", "c1", List.of(new Message("USER", "Olá"), new Message("AGENT", "Como posso ajudar? 🚗")));
+        store.append("p1", "c1", List.of(new Message("USER", "Quanto custa a bateria?"), new Message("AGENT", "Cerca de $13,000.")));
+
+        assertThat(store.history("p1", "c1")).extracting(Message::getContent)
+                .containsExactly("Como posso ajudar? 🚗", "Quanto custa a bateria?", "Cerca de $13,000.");
+        assertThat(store.history("p1", "c1").get(0).getRole()).isEqualTo("AGENT");
+        assertThat(store.history("p1", "unknown")).isEmpty();
+    }
+
+    @Test
+    void testSameConversationIdInAnotherProjectIsAnotherConversation() {
+        InMemoryConversationStore store = new InMemoryConversationStore(1024 * 1024, Duration.ofMinutes(30), 20,
+                new SimpleMeterRegistry());
+
+        store.append("p1", "c1", List.of(new Message("USER", "Qual o meu saldo?")));
+        store.append("p2", "c1", List.of(new Message("USER", "Olá")));
+
+        assertThat(store.history("p1", "c1")).extracting(Message::getContent).containsExactly("Qual o meu saldo?");
+        assertThat(store.history("p2", "c1")).extracting(Message::getContent).containsExactly("Olá");
+    }
+
+    @Test
+    void testEvictsConversationsOverTheByteBudget() {
+        InMemoryConversationStore store = new InMemoryConversationStore(4 * 1024, Duration.ofMinutes(30), 20,
+                new SimpleMeterRegistry());
+        String content = "x".repeat(500);
+
+        for (int i = 0; i < 50; i++) {
+            store.append("p1", "conversation-" + i, List.of(new Message("USER", content)));
+        }
+
+        assertThat(store.weightedSize()).isLessThanOrEqualTo(4 * 1024);
+    }
+
+    @Test
+    void testCodecRoundTrip() {
+        List<Message> turns = List.of(new Message("USER", "Quanto tempo dura?"), new Message("AGENT", ""));
+
+        assertThat(ConversationCodec.decode(ConversationCodec.encode(turns))).isEqualTo(turns);
+    }
+}
@@ -0,0 +1,86 @@
+package com.cloudhumans.chatbot.http;
+
+import com.cloudhumans.chatbot.StubBackendServer;
+import com.cloudhumans.chatbot.deadline.Deadline;
+import com.cloudhumans.chatbot.exception.DeadlineExceededException;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeadlineRequestFactoryTest {
+
+    private final CloseableHttpClient httpClient = HttpClients.custom().build();
+    private final RestTemplate restTemplate = new RestTemplate(new DeadlineRequestFactory(httpClient));
+    private StubBackendServer stub;
+
+    @BeforeEach
+    void setup() throws Exception {
+        stub = new StubBackendServer(8).latency(StubBackendServer.SEARCH_PATH, Duration.ofSeconds(5)).start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        stub.close();
+        httpClient.close();
+    }
+
+    @Test
+    void testResponseTimeoutIsCappedByTheRequestDeadline() {
+        long start = System.nanoTime();
+        try (Deadline.Scope scope = Deadline.bind(Deadline.after(Duration.ofMillis(300)))) {
+            assertThatThrownBy(() -> restTemplate.getForObject(stub.url(StubBackendServer.SEARCH_PATH), String.class))
+                    .isInstanceOf(ResourceAccessException.class);
+        }
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void testCancellingTheDeadlineAbortsTheInFlightRequest() {
+        Deadline deadline = Deadline.unbounded();
+        CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS).execute(deadline::cancel);
+
+        long start = System.nanoTime();
+        try (Deadline.Scope scope = Deadline.bind(deadline)) {
+            // abortada antes de conectar, a requisição falha com IllegalStateException em vez de I/O
+            assertThatThrownBy(() -> restTemplate.getForObject(stub.url(StubBackendServer.SEARCH_PATH), String.class))
+                    .isInstanceOfAny(ResourceAccessException.class, IllegalStateException.class);
+        }
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void testCancelActionIsReleasedWhenTheResponseIsClosed() {
+        Deadline deadline = Deadline.after(Duration.ofSeconds(5));
+
+        try (Deadline.Scope scope = Deadline.bind(deadline)) {
+            for (int i = 0; i < 3; i++) {
+                assertThat(restTemplate.getForObject(stub.url(StubBackendServer.EMBEDDING_PATH), String.class)).isNotEmpty();
+            }
+        }
+        assertThat(deadline.pendingCancellations()).isZero();
+    }
+
+    @Test
+    void testExpiredDeadlineFailsWithoutSendingTheRequest() {
+        Deadline deadline = Deadline.unbounded();
+        deadline.cancel();
+
+        try (Deadline.Scope scope = Deadline.bind(deadline)) {
+            assertThatThrownBy(() -> restTemplate.getForObject(stub.url(StubBackendServer.SEARCH_PATH), String.class))
+                    .isInstanceOf(DeadlineExceededException.class);
+        }
+        assertThat(stub.requestCount(StubBackendServer.SEARCH_PATH)).isZero();
+        assertThat(Deadline.current()).isNull();
+    }
+}
@@ -0,0 +1,225 @@
+package com.cloudhumans.chatbot.ingest;
+
+import com.cloudhumans.chatbot.cache.SemanticAnswerCache;
+import com.cloudhumans.chatbot.exception.OverloadedException;
+import com.cloudhumans.chatbot.limit.ConcurrencyLimits;
+import com.cloudhumans.chatbot.limit.LimitProperties;
+import com.cloudhumans.chatbot.limit.TenantDispatcher;
+import com.cloudhumans.chatbot.model.search.IndexDocument;
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import com.cloudhumans.chatbot.search.LocalVectorSearchBackend;
+import com.cloudhumans.chatbot.service.EmbeddingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IngestionServiceTest {
+
+    private static final String PROJECT = "tesla_motors";
+
+    @TempDir
+    Path manifestDir;
+
+    private final EmbeddingService embeddingService = mock(EmbeddingService.class);
+    private final LocalVectorSearchBackend backend = new LocalVectorSearchBackend(new ObjectMapper());
+    private final IngestionProperties properties = new IngestionProperties();
+    private final TenantDispatcher tenantDispatcher = mock(TenantDispatcher.class);
+    private final SemanticAnswerCache semanticAnswerCache = mock(SemanticAnswerCache.class);
+
+    @BeforeEach
+    void setup() {
+        when(embeddingService.getEmbeddingModel()).thenReturn("text-embedding-ada-002");
+        when(embeddingService.embedUncached(anyList())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0)
+                .stream().map(IngestionServiceTest::vector).toList());
+        when(tenantDispatcher.dispatch(anyString(), anyString(), anyLong(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(3).get());
+        properties.setEmbeddingBatchSize(2);
+        properties.setParallelism(2);
+        properties.setChunkMaxTokens(20);
+        properties.setManifestDir(manifestDir.toString());
+    }
+
+    @Test
+    void testChunksEmbedsInBatchesAndSkipsUnchangedChunksOnResync() {
+        List<IndexDocument> documents = List.of(
+                document("Tesla batteries last between 300,000 and 500,000 miles."),
+                document("Tesla batteries last between 300,000 and 500,000 miles."),
+                document("Supercharging adds up to 200 miles in 15 minutes. Home charging with a Wall Connector "
+                        + "adds about 44 miles of range per hour. Charging stops automatically at the set limit."),
+                document("Collision repair requires an inspection at a service center."),
+                new IndexDocument(" ", "N1", PROJECT, null));
+
+        IngestionReport first = newService().ingest(documents.iterator(), false);
+
+        assertThat(first.documents()).isEqualTo(4);
+        assertThat(first.invalid()).isEqualTo(1);
+        assertThat(first.chunks()).isGreaterThan(4);
+        assertThat(first.duplicates()).isEqualTo(1);
+        assertThat(first.embedded()).isEqualTo(first.chunks() - 1);
+        assertThat(first.failed()).isZero();
+        verify(embeddingService, times((int) (first.embedded() + 1) / 2)).embedUncached(anyList());
+        backend.awaitRebuilds();
+        assertThat(backend.keywordSearch(PROJECT, "Wall Connector", 5)).extracting(SearchResult::getContent)
+                .anyMatch(content -> content.contains("Wall Connector"));
+
+        clearInvocations(embeddingService);
+        IngestionReport resync = newService().ingest(documents.iterator(), false);
+
+        assertThat(resync.embedded()).isZero();
+        assertThat(resync.unchanged()).isEqualTo(first.embedded());
+        verify(embeddingService, never()).embedUncached(anyList());
+    }
+
+    @Test
+    void testPruneRemovesChunksMissingFromTheInput() {
+        IngestionService service = newService();
+        service.ingest(List.of(document("Model 3 has a range of up to 358 miles."),
+                document("Warranty covers the battery for 8 years.")).iterator(), true);
+
+        IngestionReport report = service.ingest(List.of(document("Model 3 has a range of up to 358 miles."),
+                document("Warranty covers the battery for 8 years or 120,000 miles.")).iterator(), true);
+
+        assertThat(report.unchanged()).isEqualTo(1);
+        assertThat(report.embedded()).isEqualTo(1);
+        assertThat(report.deleted()).isEqualTo(1);
+        backend.awaitRebuilds();
+        assertThat(backend.keywordSearch(PROJECT, "warranty", 5)).extracting(SearchResult::getContent)
+                .containsExactly("Warranty covers the battery for 8 years or 120,000 miles.");
+    }
+
+    @Test
+    void testFailedEmbeddingBatchesAreRetriedOnTheNextRun() {
+        when(embeddingService.embedUncached(anyList())).thenAnswer(invocation -> {
+            List<String> inputs = invocation.getArgument(0);
+            return inputs.stream().map(input -> (float[]) null).toList();
+        });
+        List<IndexDocument> documents = List.of(document("Autopilot requires active driver supervision."));
+
+        assertThat(newService().ingest(documents.iterator(), false).failed()).isEqualTo(1);
+
+        when(embeddingService.embedUncached(anyList())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0)
+                .stream().map(IngestionServiceTest::vector).toList());
+        assertThat(newService().ingest(documents.iterator(), false).embedded()).isEqualTo(1);
+    }
+
+    @Test
+    void testReadsCsvWithQuotedFields() {
+        String csv = """
+                projectName,type,content
+                tesla_motors,N1,"Range: up to 358 miles, EPA estimated"
+                tesla_motors,N2,"Say ""hi"" to
+                the service team"
+                """;
+
+        List<IndexDocument> documents = new java.util.ArrayList<>();
+        new CsvDocumentReader(new StringReader(csv)).forEachRemaining(documents::add);
+
+        assertThat(documents).extracting(IndexDocument::getContent)
+                .containsExactly("Range: up to 358 miles, EPA estimated", "Say \"hi\" to\nthe service team");
+        assertThat(documents).extracting(IndexDocument::getType).containsExactly("N1", "N2");
+        assertThat(documents).extracting(IndexDocument::getProjectName).containsOnly(PROJECT);
+    }
+
+    @Test
+    void testRejectedEmbeddingDispatchCountsTheChunksAsFailedAndRetriesThemOnTheNextRun() {
+        List<IndexDocument> documents = List.of(
+                document("Tesla batteries last between 300,000 and 500,000 miles."),
+                new IndexDocument("Charging at home takes about 8 hours.", "N1", "busy_project", null));
+        when(tenantDispatcher.dispatch(eq(ConcurrencyLimits.EMBEDDING), eq("busy_project"), anyLong(), any()))
+                .thenThrow(new OverloadedException(ConcurrencyLimits.EMBEDDING, Duration.ofSeconds(1)));
+
+        IngestionReport first = newService().ingest(documents.iterator(), false);
+
+        assertThat(first.embedded()).isEqualTo(1);
+        assertThat(first.failed()).isEqualTo(1);
+        verify(tenantDispatcher).dispatch(eq(ConcurrencyLimits.EMBEDDING), eq(PROJECT), anyLong(), any());
+
+        reset(tenantDispatcher);
+        when(tenantDispatcher.dispatch(anyString(), anyString(), anyLong(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(3).get());
+        IngestionReport second = newService().ingest(documents.iterator(), false);
+
+        assertThat(second.unchanged()).isEqualTo(1);
+        assertThat(second.embedded()).isEqualTo(1);
+    }
+
+    @Test
+    void testFailedBatchIsCountedWithoutAbortingTheRun() {
+        properties.setEmbeddingBatchSize(1);
+        when(embeddingService.embedUncached(List.of("Collision repair requires an inspection.")))
+                .thenThrow(new IllegalStateException("resposta inválida"));
+
+        IngestionReport report = newService().ingest(List.of(
+                document("Collision repair requires an inspection."),
+                document("Warranty covers the battery for 8 years.")).iterator(), false);
+
+        assertThat(report.failed()).isEqualTo(1);
+        assertThat(report.embedded()).isEqualTo(1);
+        verify(semanticAnswerCache).invalidate(PROJECT);
+    }
+
+    @Test
+    void testAbortedRunKeepsTheManifestOfWhatWasUpserted() {
+        properties.setEmbeddingBatchSize(1);
+        properties.setParallelism(1);
+        IndexDocument first = document("Warranty covers the battery for 8 years.");
+        Iterator<IndexDocument> failing = new Iterator<>() {
+            private boolean served;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public IndexDocument next() {
+                if (served) {
+                    throw new IllegalStateException("linha inválida");
+                }
+                served = true;
+                return first;
+            }
+        };
+
+        assertThatThrownBy(() -> newService().ingest(failing, false)).hasMessage("linha inválida");
+        verify(semanticAnswerCache).invalidate(PROJECT);
+
+        IngestionReport resync = newService().ingest(List.of(first).iterator(), false);
+
+        assertThat(resync.unchanged()).isEqualTo(1);
+        assertThat(resync.embedded()).isZero();
+    }
+
+    private IngestionService newService() {
+        return new IngestionService(embeddingService, backend, properties, new SimpleAsyncTaskExecutor(),
+                new SimpleMeterRegistry(), tenantDispatcher,
+                new ConcurrencyLimits(new LimitProperties(), new SimpleMeterRegistry()), semanticAnswerCache);
+    }
+
+    private static IndexDocument document(String content) {
+        return new IndexDocument(content, "N1", PROJECT, null);
+    }
+
+    private static float[] vector(String text) {
+        return new float[]{text.length(), text.hashCode() % 97, 1};
+    }
+}
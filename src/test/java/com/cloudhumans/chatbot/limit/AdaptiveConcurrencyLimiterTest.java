@@ -0,0 +1,61 @@
+package com.cloudhumans.chatbot.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void testRejectsAboveTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("chat", limiter(2, 1, 10));
+
+        AdaptiveConcurrencyLimiter.Permit first = limiter.tryAcquire();
+        AdaptiveConcurrencyLimiter.Permit second = limiter.tryAcquire();
+
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        assertThat(limiter.tryAcquire()).isNull();
+
+        first.ignore();
+        first.ignore();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.tryAcquire()).isNotNull();
+    }
+
+    @Test
+    void testGrowsWhileLatencyIsStableAndShrinksWhenItRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("chat", limiter(20, 4, 200));
+
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(100_000_000L, limiter.getLimit());
+        }
+        int grown = limiter.getLimit();
+        assertThat(grown).isGreaterThan(20);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(400_000_000L, limiter.getLimit());
+        }
+        assertThat(limiter.getLimit()).isLessThan(grown);
+        assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    void testDoesNotGrowWhenMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("chat", limiter(20, 4, 200));
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire().success();
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    private static LimitProperties.Limiter limiter(int initial, int min, int max) {
+        LimitProperties.Limiter properties = new LimitProperties.Limiter();
+        properties.setInitialLimit(initial);
+        properties.setMinLimit(min);
+        properties.setMaxLimit(max);
+        return properties;
+    }
+}
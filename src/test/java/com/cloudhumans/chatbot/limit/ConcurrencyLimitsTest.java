@@ -0,0 +1,66 @@
+package com.cloudhumans.chatbot.limit;
+
+import com.cloudhumans.chatbot.TestUtils;
+import com.cloudhumans.chatbot.controller.ChatController;
+import com.cloudhumans.chatbot.deadline.DeadlineProperties;
+import com.cloudhumans.chatbot.exception.GlobalExceptionHandler;
+import com.cloudhumans.chatbot.service.BatchChatService;
+import com.cloudhumans.chatbot.service.ChatService;
+import com.cloudhumans.chatbot.service.PipelineMode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ConcurrencyLimitsTest {
+
+    @Test
+    void testChatOverTheLimitGets503WithRetryAfter() throws Exception {
+        LimitProperties properties = new LimitProperties();
+        properties.setRetryAfter(Duration.ofSeconds(2));
+        properties.getChat().setInitialLimit(1);
+        properties.getChat().setMinLimit(1);
+        properties.getChat().setMaxLimit(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ConcurrencyLimits limits = new ConcurrencyLimits(properties, meterRegistry);
+
+        ChatService chatService = mock(ChatService.class);
+        ChatController controller = new ChatController(chatService, mock(BatchChatService.class),
+                new SimpleAsyncTaskExecutor(), new ObjectMapper(), limits, new DeadlineProperties());
+        TestUtils.setField(controller, "pipelineMode", PipelineMode.BLOCKING);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        CompletableFuture<Void> inProgress = new CompletableFuture<>();
+        limits.limitChat(() -> inProgress);
+
+        mockMvc.perform(post("/chat")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"projectName": "tesla_motors", "messages": [{"role": "USER", "content": "Hi"}]}
+                                """))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+
+        verifyNoInteractions(chatService);
+        assertThat(meterRegistry.get("chatbot.limiter.rejected").tags("type", "limiter", "name", "chat")
+                .counter().count()).isEqualTo(1);
+
+        inProgress.complete(null);
+        assertThat(limits.getChatLimiter().getInFlight()).isZero();
+    }
+}
@@ -0,0 +1,92 @@
+package com.cloudhumans.chatbot.limit;
+
+import com.cloudhumans.chatbot.TestUtils;
+import com.cloudhumans.chatbot.exception.OverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FairQueueTest {
+
+    private final List<Long> dispatched = new CopyOnWriteArrayList<>();
+    private final RateLimitBudget budget = new RateLimitBudget(0.2, System::nanoTime) {
+        @Override
+        public synchronized void onDispatch(long tokenCost) {
+            super.onDispatch(tokenCost);
+            dispatched.add(tokenCost);
+        }
+    };
+
+    @Test
+    void testDispatchesImmediatelyWhileTheBudgetIsHealthy() {
+        FairQueue queue = new FairQueue("llm", budget, tenant -> 1.0, Duration.ofSeconds(1), Duration.ofSeconds(1),
+                System::nanoTime);
+
+        assertThat(queue.acquire("tesla_motors", 500)).isZero();
+        assertThat(queue.size()).isZero();
+        assertThat(dispatched).containsExactly(500L);
+    }
+
+    @Test
+    void testInterleavesTenantsByWeightedFinishTagWhenTheBudgetRunsOut() throws Exception {
+        FairQueue queue = new FairQueue("llm", budget, Map.of("noisy", 1.0, "quiet", 2.0)::get,
+                Duration.ofSeconds(5), Duration.ofSeconds(1), System::nanoTime);
+        budget.update(RateLimitBudgetTest.headers(100, 0, "2s", 100_000, 50_000, "2s"));
+
+        // costs únicos identificam cada chamada na ordem de despacho
+        List<Thread> threads = new ArrayList<>();
+        long[][] calls = {{100, 0}, {101, 0}, {102, 0}, {103, 0}, {200, 1}, {201, 1}};
+        for (long[] call : calls) {
+            String tenant = call[1] == 0 ? "noisy" : "quiet";
+            Thread thread = new Thread(() -> queue.acquire(tenant, call[0]));
+            thread.start();
+            threads.add(thread);
+            long deadline = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+            while (queue.size() < threads.size() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+
+        // finish tags: noisy 100, 201, 303, 406; quiet (peso 2) 100, 200.5 — quem chegou depois não espera o noisy esvaziar
+        assertThat(dispatched).containsExactly(100L, 200L, 201L, 101L, 102L, 103L);
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    void testRejectsWhenTheWaitWouldExceedMaxWait() {
+        FairQueue queue = new FairQueue("embedding", budget, tenant -> 1.0, Duration.ofMillis(50),
+                Duration.ofSeconds(2), System::nanoTime);
+        budget.update(RateLimitBudgetTest.headers(100, 0, "10s", 100_000, 50_000, "10s"));
+
+        assertThatThrownBy(() -> queue.acquire("tesla_motors", 10))
+                .isInstanceOf(OverloadedException.class)
+                .extracting("retryAfter").isEqualTo(Duration.ofSeconds(2));
+        assertThat(queue.size()).isZero();
+        assertThat(dispatched).isEmpty();
+    }
+
+    @Test
+    void testRecordsQueueDepthAndWaitPerProject() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TenantDispatcher dispatcher = TestUtils.tenantDispatcher(meterRegistry);
+
+        String result = dispatcher.dispatch(ConcurrencyLimits.LLM, "tesla_motors", 800, () -> "ok");
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(meterRegistry.get("chatbot.dispatch.wait").tags("downstream", "llm", "project", "tesla_motors")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chatbot.dispatch.queue.depth").tags("project", "tesla_motors")
+                .gauge().value()).isZero();
+    }
+}
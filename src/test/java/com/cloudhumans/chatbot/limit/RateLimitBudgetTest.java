@@ -0,0 +1,73 @@
+package com.cloudhumans.chatbot.limit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitBudgetTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final RateLimitBudget budget = new RateLimitBudget(0.2, now::get);
+
+    @Test
+    void testParsesResetDurations() {
+        assertThat(RateLimitBudget.parseDuration("1s")).isEqualTo(Duration.ofSeconds(1));
+        assertThat(RateLimitBudget.parseDuration("6m0s")).isEqualTo(Duration.ofMinutes(6));
+        assertThat(RateLimitBudget.parseDuration("20ms")).isEqualTo(Duration.ofMillis(20));
+        assertThat(RateLimitBudget.parseDuration("1h2m3.5s")).isEqualTo(Duration.ofMillis(3_723_500));
+        assertThat(RateLimitBudget.parseDuration("soon")).isNull();
+    }
+
+    @Test
+    void testDoesNotDelayWithoutHeadersOrAboveTheThreshold() {
+        assertThat(budget.delayNanos(5_000)).isZero();
+        assertThat(budget.remainingRequests()).isNaN();
+
+        budget.update(headers(100, 50, "10s", 100_000, 90_000, "10s"));
+
+        assertThat(budget.delayNanos(5_000)).isZero();
+        assertThat(budget.remainingRequests()).isEqualTo(50);
+        assertThat(budget.remainingTokens()).isEqualTo(90_000);
+    }
+
+    @Test
+    void testSpreadsTheRemainingRequestsUntilTheWindowResets() {
+        budget.update(headers(100, 11, "10s", 100_000, 90_000, "10s"));
+
+        assertThat(budget.delayNanos(100)).isZero();
+        budget.onDispatch(100);
+
+        // 10 requisições restantes em 10s: uma por segundo
+        assertThat(budget.delayNanos(100)).isEqualTo(Duration.ofSeconds(1).toNanos());
+        now.addAndGet(Duration.ofMillis(400).toNanos());
+        assertThat(budget.delayNanos(100)).isBetween(Duration.ofMillis(500).toNanos(), Duration.ofMillis(600).toNanos());
+        assertThat(budget.remainingRequests()).isEqualTo(10);
+    }
+
+    @Test
+    void testWaitsForTheResetWhenTokensAreExhausted() {
+        budget.update(headers(100, 90, "1s", 100_000, 1_000, "6s"));
+
+        assertThat(budget.delayNanos(2_000)).isEqualTo(Duration.ofSeconds(6).toNanos());
+
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+        assertThat(budget.delayNanos(2_000)).isZero();
+        assertThat(budget.remainingTokens()).isEqualTo(100_000);
+    }
+
+    static HttpHeaders headers(long limitRequests, long remainingRequests, String resetRequests,
+                               long limitTokens, long remainingTokens, String resetTokens) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("x-ratelimit-limit-requests", String.valueOf(limitRequests));
+        headers.set("x-ratelimit-remaining-requests", String.valueOf(remainingRequests));
+        headers.set("x-ratelimit-reset-requests", resetRequests);
+        headers.set("x-ratelimit-limit-tokens", String.valueOf(limitTokens));
+        headers.set("x-ratelimit-remaining-tokens", String.valueOf(remainingTokens));
+        headers.set("x-ratelimit-reset-tokens", resetTokens);
+        return headers;
+    }
+}
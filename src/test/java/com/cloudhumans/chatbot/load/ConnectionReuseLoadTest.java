@@ -0,0 +1,79 @@
+package com.cloudhumans.chatbot.load;
+
+import com.cloudhumans.chatbot.StubBackendServer;
+import com.cloudhumans.chatbot.TestUtils;
+import com.cloudhumans.chatbot.config.HttpClientConfig;
+import com.cloudhumans.chatbot.http.HttpClientProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mede a latência economizada pelo reuso de conexões do pool em relação a abrir
+ * uma conexão nova por chamada. Executar com: mvn test -Pload-test
+ */
+@Tag("load")
+class ConnectionReuseLoadTest {
+
+    private static final int REQUESTS = 2000;
+
+    @Test
+    void compareNewConnectionPerRequestWithPooledConnections() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        HttpClientConfig config = new HttpClientConfig(new HttpClientProperties(), meterRegistry,
+                TestUtils.tenantDispatcher(meterRegistry));
+        RestTemplate restTemplate = config.searchRestTemplate(new RestTemplateBuilder());
+
+        try (StubBackendServer stub = new StubBackendServer(8).start()) {
+            String url = stub.url(StubBackendServer.SEARCH_PATH);
+            run(restTemplate, url, false);
+
+            long[] closed = run(restTemplate, url, true);
+            long[] pooled = run(restTemplate, url, false);
+
+            System.out.printf("%-22s %10s %10s %10s%n", "strategy", "mean(us)", "p50(us)", "p99(us)");
+            print("new connection/request", closed);
+            print("pooled keep-alive", pooled);
+
+            assertThat(mean(pooled)).isLessThan(mean(closed));
+            assertThat(meterRegistry.find("httpcomponents.httpclient.pool.total.max").gauge()).isNotNull();
+        } finally {
+            config.destroy();
+        }
+    }
+
+    private long[] run(RestTemplate restTemplate, String url, boolean closeConnection) {
+        HttpHeaders headers = new HttpHeaders();
+        if (closeConnection) {
+            headers.setConnection("close");
+        }
+        HttpEntity<String> entity = new HttpEntity<>("{}", headers);
+
+        long[] latencies = new long[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            long start = System.nanoTime();
+            restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
+            latencies[i] = (System.nanoTime() - start) / 1000;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void print(String strategy, long[] sorted) {
+        System.out.printf("%-22s %10.1f %10d %10d%n", strategy, mean(sorted),
+                sorted[sorted.length / 2], sorted[(int) (sorted.length * 0.99)]);
+    }
+
+    private static double mean(long[] values) {
+        return Arrays.stream(values).average().orElse(0);
+    }
+}
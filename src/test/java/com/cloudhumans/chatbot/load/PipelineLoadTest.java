@@ -0,0 +1,130 @@
+package com.cloudhumans.chatbot.load;
+
+import com.cloudhumans.chatbot.ChatbotApplication;
+import com.cloudhumans.chatbot.StubBackendServer;
+import com.cloudhumans.chatbot.service.PipelineMode;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compara concorrência x p99 entre o modelo thread-per-request e o pipeline assíncrono,
+ * contra um backend local com latência fixa. Executar com: mvn test -Pload-test
+ */
+@Tag("load")
+class PipelineLoadTest {
+
+    private static final int[] CONCURRENCY_LEVELS = {50, 200, 800};
+    private static final int REQUESTS_PER_CLIENT = 4;
+
+    @Test
+    void compareConcurrencyVersusLatency() throws Exception {
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-14s %11s %9s %9s %9s %8s", "mode", "concurrency", "p50(ms)", "p99(ms)", "req/s", "errors"));
+
+        try (StubBackendServer stub = new StubBackendServer(1536)
+                .latency(StubBackendServer.EMBEDDING_PATH, Duration.ofMillis(50))
+                .latency(StubBackendServer.SEARCH_PATH, Duration.ofMillis(50))
+                .latency(StubBackendServer.CHAT_PATH, Duration.ofMillis(200))
+                .start()) {
+
+            List<String> variants = new ArrayList<>(List.of("blocking", "async"));
+            if (Runtime.version().feature() >= 21) {
+                variants.add("async-virtual");
+            }
+
+            for (String variant : variants) {
+                try (ConfigurableApplicationContext app = startApplication(stub, variant)) {
+                    int port = Integer.parseInt(app.getEnvironment().getProperty("local.server.port"));
+                    for (int concurrency : CONCURRENCY_LEVELS) {
+                        long llmCallsBefore = stub.requestCount(StubBackendServer.CHAT_PATH);
+                        LoadResult result = run(port, concurrency, concurrency * REQUESTS_PER_CLIENT);
+                        assertThat(stub.requestCount(StubBackendServer.CHAT_PATH) - llmCallsBefore)
+                                .isEqualTo(concurrency * REQUESTS_PER_CLIENT - result.errors());
+                        report.add(String.format("%-14s %11d %9d %9d %9.1f %8d", variant, concurrency,
+                                result.percentile(50), result.percentile(99), result.throughput(), result.errors()));
+                        assertThat(result.errors()).isLessThan(concurrency * REQUESTS_PER_CLIENT);
+                    }
+                }
+            }
+        }
+
+        report.forEach(System.out::println);
+    }
+
+    private ConfigurableApplicationContext startApplication(StubBackendServer stub, String variant) {
+        Map<String, Object> properties = new HashMap<>(stub.applicationProperties());
+        properties.put("server.port", 0);
+        properties.put("cloudhumans.embedding.cache.enabled", false);
+        properties.put("cloudhumans.semantic-cache.enabled", false);
+        // mede o pipeline sem load shedding
+        properties.put("cloudhumans.limits.enabled", false);
+        properties.put("cloudhumans.pipeline.mode", variant.startsWith("async") ? PipelineMode.ASYNC : PipelineMode.BLOCKING);
+        properties.put("spring.threads.virtual.enabled", variant.endsWith("virtual"));
+        return new SpringApplicationBuilder(ChatbotApplication.class).run(StubBackendServer.asArguments(properties));
+    }
+
+    private LoadResult run(int port, int concurrency, int totalRequests) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(16))
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Semaphore inFlight = new Semaphore(concurrency);
+        long[] latencies = new long[totalRequests];
+        AtomicInteger errors = new AtomicInteger();
+        List<CompletableFuture<?>> futures = new ArrayList<>(totalRequests);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < totalRequests; i++) {
+            inFlight.acquire();
+            int index = i;
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/chat"))
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("""
+                            {"projectName": "tesla_motors", "messages": [{"role": "USER", "content": "How long does battery %d last?"}]}
+                            """.formatted(i)))
+                    .build();
+            long sent = System.nanoTime();
+            futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies[index] = (System.nanoTime() - sent) / 1_000_000;
+                        if (error != null || response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        return new LoadResult(latencies, totalRequests / elapsedSeconds, errors.get());
+    }
+
+    private record LoadResult(long[] sortedLatencies, double throughput, int errors) {
+
+        long percentile(int p) {
+            int index = (int) Math.ceil(p / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)];
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.cloudhumans.chatbot.metrics;
+
+import com.cloudhumans.chatbot.TestUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ChatMetrics chatMetrics = new ChatMetrics(meterRegistry, TestUtils.observationRegistry(meterRegistry), 2);
+
+    @Test
+    void testProjectsBeyondLimitAreGroupedAsOther() {
+        chatMetrics.handover("tesla_motors");
+        chatMetrics.handover("spacex");
+        chatMetrics.handover("boring_company");
+        chatMetrics.handover("neuralink");
+        chatMetrics.handover("tesla_motors");
+
+        assertThat(meterRegistry.get("chatbot.pipeline.handovers").counters()).hasSize(3);
+        assertThat(meterRegistry.get("chatbot.pipeline.handovers").tag("project", "tesla_motors").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("chatbot.pipeline.handovers").tag("project", ChatMetrics.OTHER_PROJECT).counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void testNullResultIsRecordedAsFailure() {
+        String result = chatMetrics.time("search", "tesla_motors", () -> null);
+
+        assertThat(result).isNull();
+        assertThat(meterRegistry.get("chatbot.pipeline.stage").tags("stage", "search", "outcome", "failure").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("chatbot.pipeline.failures").tag("stage", "search").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,48 @@
+package com.cloudhumans.chatbot.model.vector;
+
+import com.cloudhumans.chatbot.model.embedding.EmbeddingData;
+import com.cloudhumans.chatbot.model.embedding.EmbeddingResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FloatVectorSerializationTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testEmbeddingResponseIsReadIntoFloatArrays() throws Exception {
+        EmbeddingResponse response = objectMapper.readValue("""
+                {"object": "list", "data": [
+                  {"object": "embedding", "index": 1, "embedding": [1, -0.5, 2.5e-3]},
+                  {"object": "embedding", "index": 0, "embedding": []}
+                ]}
+                """, EmbeddingResponse.class);
+
+        assertThat(response.getDataInInputOrder()).extracting(EmbeddingData::getEmbedding)
+                .containsExactly(new float[0], new float[]{1f, -0.5f, 0.0025f});
+    }
+
+    @Test
+    void testVectorsLargerThanInitialCapacityRoundTrip() throws Exception {
+        float[] vector = new float[3072];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) Math.sin(i);
+        }
+        EmbeddingData data = new EmbeddingData();
+        data.setEmbedding(vector);
+
+        EmbeddingData parsed = objectMapper.readValue(objectMapper.writeValueAsBytes(data), EmbeddingData.class);
+
+        assertThat(parsed.getEmbedding()).containsExactly(vector);
+    }
+
+    @Test
+    void testNonNumericElementIsRejected() {
+        assertThatThrownBy(() -> objectMapper.readValue("{\"embedding\": [0.1, \"x\"]}", EmbeddingData.class))
+                .isInstanceOf(MismatchedInputException.class);
+    }
+}
@@ -0,0 +1,83 @@
+package com.cloudhumans.chatbot.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void testOpensWhenFailureRateIsReachedAndRejectsWhileOpen() {
+        CircuitBreaker breaker = new CircuitBreaker(policy(), now::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onSuccess();
+        }
+        for (int i = 0; i < 4; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onFailure();
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        breaker.tryAcquire();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void testHalfOpenClosesAfterSuccessfulProbesAndReopensOnFailure() {
+        CircuitBreaker breaker = new CircuitBreaker(policy(), now::get);
+        for (int i = 0; i < 10; i++) {
+            breaker.tryAcquire();
+            breaker.onFailure();
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+        breaker.onSuccess();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        breaker.tryAcquire();
+        breaker.tryAcquire();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void testIgnoredOutcomesDoNotCount() {
+        CircuitBreaker breaker = new CircuitBreaker(policy(), now::get);
+
+        for (int i = 0; i < 50; i++) {
+            breaker.tryAcquire();
+            breaker.onIgnored();
+        }
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private static ResilienceProperties.Policy policy() {
+        ResilienceProperties.Policy policy = new ResilienceProperties.Policy();
+        policy.setBreakerWindow(10);
+        policy.setBreakerMinCalls(10);
+        policy.setBreakerFailureRate(0.5);
+        policy.setBreakerOpenDuration(Duration.ofSeconds(10));
+        policy.setBreakerHalfOpenCalls(2);
+        return policy;
+    }
+}
@@ -0,0 +1,264 @@
+package com.cloudhumans.chatbot.resilience;
+
+import com.cloudhumans.chatbot.StubBackendServer;
+import com.cloudhumans.chatbot.TestUtils;
+import com.cloudhumans.chatbot.cache.NoOpEmbeddingCache;
+import com.cloudhumans.chatbot.deadline.Deadline;
+import com.cloudhumans.chatbot.exception.CircuitOpenException;
+import com.cloudhumans.chatbot.http.DeadlineRequestFactory;
+import com.cloudhumans.chatbot.limit.ConcurrencyLimits;
+import com.cloudhumans.chatbot.limit.LimitProperties;
+import com.cloudhumans.chatbot.metrics.ChatMetrics;
+import com.cloudhumans.chatbot.service.EmbeddingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResilienceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResilienceProperties properties = new ResilienceProperties();
+    private final ConcurrencyLimits concurrencyLimits = new ConcurrencyLimits(new LimitProperties(), meterRegistry);
+
+    @Test
+    void testRetriesTransientFailuresUntilSuccess() {
+        properties.getDependencies().put("search", retrying(3));
+        Resilience resilience = resilience();
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = resilience.execute("search", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(calls).hasValue(3);
+        assertThat(meterRegistry.get("chatbot.resilience.retries").tag("dependency", "search").counter().count())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void testDoesNotRetryClientErrors() {
+        properties.getDependencies().put("search", retrying(3));
+        Resilience resilience = resilience();
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> resilience.execute("search", () -> {
+            calls.incrementAndGet();
+            throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+        })).isInstanceOf(HttpClientErrorException.class);
+
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void testDoesNotRetryPastTheRequestDeadline() {
+        properties.getDependencies().put("search", retrying(3));
+        Resilience resilience = resilience();
+        AtomicInteger calls = new AtomicInteger();
+
+        try (Deadline.Scope scope = Deadline.bind(Deadline.after(Duration.ofMillis(50)))) {
+            assertThatThrownBy(() -> resilience.execute("search", () -> {
+                calls.incrementAndGet();
+                sleep(60);
+                throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+            })).isInstanceOf(HttpServerErrorException.class);
+        }
+
+        assertThat(calls).hasValue(1);
+        assertThat(meterRegistry.find("chatbot.resilience.retries").counter()).isNull();
+    }
+
+    @Test
+    void testOpenBreakerFailsFastWithoutCallingTheDependency() {
+        ResilienceProperties.Policy policy = new ResilienceProperties.Policy();
+        policy.setBreakerMinCalls(4);
+        policy.setBreakerWindow(4);
+        properties.getDependencies().put("llm", policy);
+        Resilience resilience = resilience();
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> resilience.execute("llm", () -> {
+                calls.incrementAndGet();
+                throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+            })).isInstanceOf(HttpServerErrorException.class);
+        }
+
+        assertThatThrownBy(() -> resilience.execute("llm", calls::incrementAndGet))
+                .isInstanceOf(CircuitOpenException.class);
+        assertThat(calls).hasValue(4);
+        assertThat(resilience.breakerState("llm")).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void testHedgeAnswersWhenThePrimaryIsSlowAndAbortsIt() {
+        properties.getDependencies().put("embedding", hedging());
+        Resilience resilience = resilience();
+        AtomicInteger calls = new AtomicInteger();
+        AtomicReference<Thread> primaryThread = new AtomicReference<>();
+
+        long start = System.nanoTime();
+        String result = resilience.execute("embedding", () -> {
+            if (calls.incrementAndGet() == 1) {
+                primaryThread.set(Thread.currentThread());
+                // como uma chamada HTTP da DeadlineRequestFactory, abortada pelo cancelamento do Deadline
+                CountDownLatch aborted = new CountDownLatch(1);
+                Deadline.current().onCancel(aborted::countDown);
+                await(aborted, 2_000);
+                throw new ResourceAccessException("aborted");
+            }
+            return "hedge";
+        });
+
+        assertThat(result).isEqualTo("hedge");
+        assertThat(primaryThread.get()).isSameAs(Thread.currentThread());
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(meterRegistry.get("chatbot.resilience.hedges").counter().count()).isEqualTo(1.0);
+        assertThat(resilience.breakerState("embedding")).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void testHedgeIsSkippedWithoutAFreeBulkheadPermit() {
+        properties.getDependencies().put("embedding", hedging());
+        concurrencyLimits.getBulkhead("embedding").setMaxConcurrent(0);
+        Resilience resilience = resilience();
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = resilience.execute("embedding", () -> {
+            calls.incrementAndGet();
+            sleep(200);
+            return "primary";
+        });
+
+        assertThat(result).isEqualTo("primary");
+        assertThat(calls).hasValue(1);
+        assertThat(meterRegistry.get("chatbot.resilience.hedges.skipped").tag("reason", "bulkhead").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.find("chatbot.resilience.hedges").counter()).isNull();
+    }
+
+    @Test
+    void testStreamingIsNeverHedgedAndNotRetriedOnceTokensWereDelivered() {
+        ResilienceProperties.Policy policy = retrying(3);
+        policy.setHedge(true);
+        policy.setHedgeMinSamples(0);
+        policy.setHedgeMinDelay(Duration.ofMillis(20));
+        properties.getDependencies().put("llm", policy);
+        Resilience resilience = resilience();
+        AtomicInteger calls = new AtomicInteger();
+        AtomicBoolean started = new AtomicBoolean();
+
+        String result = resilience.executeStreaming("llm", started::get, () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            sleep(100);
+            return "streamed";
+        });
+
+        assertThat(result).isEqualTo("streamed");
+        assertThat(calls).hasValue(2);
+        assertThat(meterRegistry.find("chatbot.resilience.hedges").counter()).isNull();
+
+        calls.set(0);
+        assertThatThrownBy(() -> resilience.executeStreaming("llm", started::get, () -> {
+            calls.incrementAndGet();
+            started.set(true);
+            throw new ResourceAccessException("stream reset");
+        })).isInstanceOf(ResourceAccessException.class);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void testEmbeddingSurvivesInjectedFailuresAndSlowdowns() throws Exception {
+        ResilienceProperties.Policy policy = retrying(3);
+        policy.setHedge(true);
+        properties.getDependencies().put("embedding", policy);
+        Resilience resilience = resilience();
+
+        try (StubBackendServer stub = new StubBackendServer(8).start();
+             CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            EmbeddingService embeddingService = new EmbeddingService(
+                    new RestTemplate(new DeadlineRequestFactory(httpClient)), new ObjectMapper(),
+                    new NoOpEmbeddingCache(), resilience);
+            TestUtils.setField(embeddingService, "embeddingApiUrl", stub.url(StubBackendServer.EMBEDDING_PATH));
+            TestUtils.setField(embeddingService, "embeddingApiKey", "abc123");
+            TestUtils.setField(embeddingService, "embeddingModel", "text-embedding-ada-002");
+
+            stub.failures(StubBackendServer.EMBEDDING_PATH, 0.5);
+            for (int i = 0; i < 30; i++) {
+                assertThat(embeddingService.embed("question " + i)).hasSize(8);
+            }
+
+            stub.failures(StubBackendServer.EMBEDDING_PATH, 0)
+                    .slowdowns(StubBackendServer.EMBEDDING_PATH, 0.1, Duration.ofSeconds(2));
+            long slowest = 0;
+            for (int i = 0; i < 30; i++) {
+                long start = System.nanoTime();
+                assertThat(embeddingService.embed("slow question " + i)).hasSize(8);
+                slowest = Math.max(slowest, System.nanoTime() - start);
+            }
+            assertThat(Duration.ofNanos(slowest)).isLessThan(Duration.ofSeconds(1));
+        }
+        assertThat(meterRegistry.get("chatbot.resilience.hedges").counter().count()).isGreaterThanOrEqualTo(3.0);
+    }
+
+    private Resilience resilience() {
+        return new Resilience(properties, meterRegistry,
+                new ChatMetrics(meterRegistry, TestUtils.observationRegistry(meterRegistry), 100),
+                concurrencyLimits, TestUtils.tenantDispatcher(meterRegistry));
+    }
+
+    private static ResilienceProperties.Policy hedging() {
+        ResilienceProperties.Policy policy = new ResilienceProperties.Policy();
+        policy.setHedge(true);
+        policy.setHedgeMinSamples(0);
+        policy.setHedgeMinDelay(Duration.ofMillis(20));
+        return policy;
+    }
+
+    private static ResilienceProperties.Policy retrying(int maxAttempts) {
+        ResilienceProperties.Policy policy = new ResilienceProperties.Policy();
+        policy.setMaxAttempts(maxAttempts);
+        policy.setBackoffBase(Duration.ofMillis(1));
+        policy.setBreakerMinCalls(100);
+        policy.setBreakerWindow(100);
+        return policy;
+    }
+
+    private static void await(CountDownLatch latch, long millis) {
+        try {
+            latch.await(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.cloudhumans.chatbot.routing;
+
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class ModelRouterTest {
+
+    private final RoutingProperties properties = new RoutingProperties();
+    private final ModelRouter router = new ModelRouter(properties);
+
+    ModelRouterTest() {
+        properties.setEnabled(true);
+        properties.setTiers(List.of(tier("fast", "gpt-4o-mini", 0.85, 0.05, 800), tier("full", null, 0, 0, 0)));
+    }
+
+    @Test
+    void testPicksTheFirstTierWhoseThresholdsTheRetrievalMeets() {
+        assertThat(router.route("tesla_motors", new ModelRouter.Signals(0.9, 0.1, 300, false, false)))
+                .isEqualTo(new ModelRouter.Route("fast", "gpt-4o-mini", "eligible"));
+        assertThat(router.route("tesla_motors", new ModelRouter.Signals(0.8, 0.1, 300, false, false)))
+                .isEqualTo(new ModelRouter.Route("full", null, "score"));
+        assertThat(router.route("tesla_motors", new ModelRouter.Signals(0.9, 0.01, 300, false, false)).reason())
+                .isEqualTo("margin");
+        assertThat(router.route("tesla_motors", new ModelRouter.Signals(0.9, 0.1, 1500, false, false)).reason())
+                .isEqualTo("context");
+        assertThat(router.route("tesla_motors", new ModelRouter.Signals(0.9, 0.1, 300, true, false)).reason())
+                .isEqualTo("n2");
+    }
+
+    @Test
+    void testProjectOverridesAndVerbatimMatches() {
+        RoutingProperties.Project strict = new RoutingProperties.Project();
+        strict.setTiers(List.of(tier("fast", "gpt-4o-mini", 0.95, 0.05, 800)));
+        RoutingProperties.Verbatim verbatim = new RoutingProperties.Verbatim();
+        verbatim.setEnabled(true);
+        strict.setVerbatim(verbatim);
+        properties.getProjects().put("strict", strict);
+
+        assertThat(router.route("strict", new ModelRouter.Signals(0.9, 0.1, 300, false, false)))
+                .isEqualTo(new ModelRouter.Route(ModelRouter.DEFAULT_TIER, null, "score"));
+        assertThat(router.route("strict", new ModelRouter.Signals(0.98, 0.1, 300, false, false)).verbatim()).isTrue();
+        assertThat(router.route("strict", new ModelRouter.Signals(0.98, 0.1, 300, false, true)).verbatim()).isFalse();
+        assertThat(router.route("tesla_motors", new ModelRouter.Signals(0.98, 0.1, 300, false, false)).verbatim()).isFalse();
+
+        properties.setEnabled(false);
+        assertThat(router.route("strict", new ModelRouter.Signals(0.98, 0.1, 300, false, false)))
+                .isEqualTo(new ModelRouter.Route(ModelRouter.DEFAULT_TIER, null, "disabled"));
+    }
+
+    @Test
+    void testSignalsUseTheGapBetweenTheTwoBestVectorScores() {
+        ModelRouter.Signals signals = ModelRouter.Signals.of(
+                List.of(result(0.7, "N1"), result(0.92, "N1"), result(0.85, "N1")),
+                List.of(result(0.92, "N1"), result(0.5, "N2")), 420, false);
+
+        assertThat(signals.topScore()).isEqualTo(0.92);
+        assertThat(signals.margin()).isCloseTo(0.07, offset(1e-9));
+        assertThat(signals.hasN2()).isTrue();
+        assertThat(ModelRouter.Signals.of(List.of(result(0.9, "N1")), List.of(), 0, false).margin()).isInfinite();
+    }
+
+    private static RoutingProperties.Tier tier(String name, String model, double minScore, double minMargin,
+                                               int maxContextTokens) {
+        RoutingProperties.Tier tier = new RoutingProperties.Tier();
+        tier.setName(name);
+        tier.setModel(model);
+        tier.setMinScore(minScore);
+        tier.setMinMargin(minMargin);
+        tier.setMaxContextTokens(maxContextTokens);
+        tier.setAllowN2(!"fast".equals(name));
+        return tier;
+    }
+
+    private static SearchResult result(double score, String type) {
+        SearchResult result = new SearchResult();
+        result.setSearchScore(score);
+        result.setType(type);
+        return result;
+    }
+}
@@ -0,0 +1,118 @@
+package com.cloudhumans.chatbot.search;
+
+import com.cloudhumans.chatbot.TestUtils;
+import com.cloudhumans.chatbot.model.search.IndexDocument;
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class AzureSearchBackendTest {
+
+    @Test
+    void testRequestBodyIsTypedAndProjectNameIsEscaped() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        AzureSearchBackend backend = new AzureSearchBackend(restTemplate, new ObjectMapper(),
+                TestUtils.resilience(new SimpleMeterRegistry()));
+        TestUtils.setField(backend, "dbSearchUrl", "http://fake-vector-db");
+        TestUtils.setField(backend, "dbApiKey", "dbkey123");
+
+        server.expect(requestTo("http://fake-vector-db"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("api-key", "dbkey123"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.count").value(true))
+                .andExpect(jsonPath("$.top").value(5))
+                .andExpect(jsonPath("$.filter").value("projectName eq 'o''reilly'' or 1 eq 1'"))
+                .andExpect(jsonPath("$.vectorQueries[0].vector.length()").value(2))
+                .andExpect(jsonPath("$.vectorQueries[0].vector[0]").value(0.5))
+                .andExpect(jsonPath("$.vectorQueries[0].vector[1]").value(-0.25))
+                .andExpect(jsonPath("$.vectorQueries[0].k").value(5))
+                .andExpect(jsonPath("$.vectorQueries[0].fields").value("embeddings"))
+                .andExpect(jsonPath("$.vectorQueries[0].kind").value("vector"))
+                .andRespond(withSuccess("""
+                        {"@odata.count": 1, "value": [{"@search.score": 0.8, "content": "Doc", "type": "N1"}]}
+                        """, MediaType.APPLICATION_JSON));
+
+        List<SearchResult> results = backend.search("o'reilly' or 1 eq 1", new float[]{0.5f, -0.25f}, 5);
+
+        server.verify();
+        assertThat(results).singleElement().satisfies(result -> {
+            assertThat(result.getContent()).isEqualTo("Doc");
+            assertThat(result.getSearchScore()).isEqualTo(0.8);
+        });
+    }
+
+    @Test
+    void testKeywordSearchSendsFullTextQueryWithoutVectors() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        AzureSearchBackend backend = new AzureSearchBackend(restTemplate, new ObjectMapper(),
+                TestUtils.resilience(new SimpleMeterRegistry()));
+        TestUtils.setField(backend, "dbSearchUrl", "http://fake-vector-db");
+        TestUtils.setField(backend, "dbApiKey", "dbkey123");
+
+        server.expect(requestTo("http://fake-vector-db"))
+                .andExpect(jsonPath("$.search").value("part 1089178-00-A"))
+                .andExpect(jsonPath("$.searchFields").value("content"))
+                .andExpect(jsonPath("$.top").value(10))
+                .andExpect(jsonPath("$.filter").value("projectName eq 'tesla_motors'"))
+                .andExpect(jsonPath("$.vectorQueries").doesNotExist())
+                .andRespond(withSuccess("""
+                        {"value": [{"@search.score": 7.5, "content": "Part 1089178-00-A", "type": "N1"}]}
+                        """, MediaType.APPLICATION_JSON));
+
+        List<SearchResult> results = backend.keywordSearch("tesla_motors", "part 1089178-00-A", 10);
+
+        server.verify();
+        assertThat(results).extracting(SearchResult::getContent).containsExactly("Part 1089178-00-A");
+    }
+
+    @Test
+    void testUpsertSendsMergeOrUploadBatchToTheIndexEndpoint() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        AzureSearchBackend backend = new AzureSearchBackend(restTemplate, new ObjectMapper(),
+                TestUtils.resilience(new SimpleMeterRegistry()));
+        TestUtils.setField(backend, "dbSearchUrl", "http://fake-vector-db/indexes/kb/docs/search?api-version=2023-11-01");
+        TestUtils.setField(backend, "dbApiKey", "dbkey123");
+
+        server.expect(requestTo("http://fake-vector-db/indexes/kb/docs/index?api-version=2023-11-01"))
+                .andExpect(header("api-key", "dbkey123"))
+                .andExpect(jsonPath("$.value.length()").value(1))
+                .andExpect(jsonPath("$.value[0]['@search.action']").value("mergeOrUpload"))
+                .andExpect(jsonPath("$.value[0].id").value("abc"))
+                .andExpect(jsonPath("$.value[0].content").value("Doc"))
+                .andExpect(jsonPath("$.value[0].projectName").value("tesla_motors"))
+                .andExpect(jsonPath("$.value[0].embeddings[1]").value(-0.25))
+                .andRespond(withSuccess("""
+                        {"value": [{"key": "abc", "status": true, "statusCode": 201}]}
+                        """, MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://fake-vector-db/indexes/kb/docs/index?api-version=2023-11-01"))
+                .andExpect(jsonPath("$.value[0]['@search.action']").value("delete"))
+                .andExpect(jsonPath("$.value[0].id").value("old"))
+                .andExpect(jsonPath("$.value[0].content").doesNotExist())
+                .andRespond(withSuccess("""
+                        {"value": [{"key": "old", "status": false, "statusCode": 404, "errorMessage": "Not found"}]}
+                        """, MediaType.APPLICATION_JSON));
+
+        boolean upserted = backend.upsert("tesla_motors",
+                List.of(new IndexDocument("Doc", "N1", "tesla_motors", new float[]{0.5f, -0.25f}, "abc")));
+        boolean deleted = backend.delete("tesla_motors", List.of("old"));
+
+        server.verify();
+        assertThat(upserted).isTrue();
+        assertThat(deleted).isFalse();
+    }
+}
@@ -0,0 +1,97 @@
+package com.cloudhumans.chatbot.search;
+
+import com.cloudhumans.chatbot.model.search.IndexDocument;
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalVectorSearchBackendTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final LocalVectorSearchBackend backend = new LocalVectorSearchBackend(new ObjectMapper());
+
+    @Test
+    void testReturnsTopKOrderedByScore() {
+        backend.load("tesla_motors", List.of(
+                new IndexDocument("Charging", "N1", "tesla_motors", new float[]{1, 0, 0, 0, 0}),
+                new IndexDocument("Battery", "N2", "tesla_motors", new float[]{0.7f, 0.7f, 0, 0, 0}),
+                new IndexDocument("Autopilot", "N1", "tesla_motors", new float[]{0, 0, 1, 0, 0})
+        ));
+
+        List<SearchResult> results = backend.search("tesla_motors", new float[]{2, 0.1f, 0, 0, 0}, 2);
+
+        assertThat(results).extracting(SearchResult::getContent).containsExactly("Charging", "Battery");
+        assertThat(results.get(0).getType()).isEqualTo("N1");
+        assertThat(results.get(0).getSearchScore()).isGreaterThan(results.get(1).getSearchScore());
+        assertThat(results.get(0).getSearchScore()).isLessThanOrEqualTo(1.0);
+    }
+
+    @Test
+    void testFiltersByProjectName() {
+        backend.load("tesla_motors", List.of(
+                new IndexDocument("Tesla doc", "N1", "tesla_motors", new float[]{1, 0})
+        ));
+
+        assertThat(backend.search("other_project", new float[]{1, 0}, 10)).isEmpty();
+        assertThat(backend.search("tesla_motors", new float[]{1, 0}, 10)).hasSize(1);
+    }
+
+    @Test
+    void testLoadsJsonLinesFile() throws Exception {
+        Path file = tempDir.resolve("documents.jsonl");
+        Files.writeString(file, """
+                {"content": "Doc A", "type": "N1", "projectName": "tesla_motors", "embeddings": [1.0, 0.0, 0.0]}
+                {"content": "Doc B", "type": "N2", "projectName": "tesla_motors", "embeddings": [0.0, 1.0, 0.0]}
+                {"content": "Doc C", "type": "N1", "projectName": "other", "embeddings": [0.0, 1.0, 0.0]}
+                """);
+
+        backend.loadFile(file);
+
+        assertThat(backend.search("tesla_motors", new float[]{0, 1, 0}, 10))
+                .extracting(SearchResult::getContent)
+                .containsExactly("Doc B", "Doc A");
+    }
+
+    @Test
+    void testKeywordSearchRanksExactTermsWithBm25() {
+        backend.load("tesla_motors", List.of(
+                new IndexDocument("Model 3 charging port replacement", "N1", "tesla_motors", new float[]{1, 0}),
+                new IndexDocument("Part 1089178-00-A fits Model Y and Model 3", "N1", "tesla_motors", new float[]{0, 1}),
+                new IndexDocument("Autopilot overview", "N1", "tesla_motors", new float[]{1, 1})
+        ));
+
+        List<SearchResult> results = backend.keywordSearch("tesla_motors", "Which car takes 1089178-00-A?", 10);
+
+        assertThat(results).extracting(SearchResult::getContent)
+                .containsExactly("Part 1089178-00-A fits Model Y and Model 3");
+        assertThat(backend.keywordSearch("tesla_motors", "model 3", 10)).extracting(SearchResult::getContent)
+                .containsExactly("Model 3 charging port replacement", "Part 1089178-00-A fits Model Y and Model 3");
+        assertThat(backend.keywordSearch("other_project", "model 3", 10)).isEmpty();
+    }
+
+    @Test
+    void testUpsertsAreAppliedOffTheSearchPathAndOversizedBatchesAreRefused() {
+        backend.load("tesla_motors", List.of(new IndexDocument("Charging", "N1", "tesla_motors", new float[]{1, 0})));
+
+        assertThat(backend.upsert("tesla_motors", List.of(
+                new IndexDocument("Battery", "N1", "tesla_motors", new float[]{0, 1})))).isTrue();
+        backend.awaitRebuilds();
+
+        assertThat(backend.search("tesla_motors", new float[]{0, 1}, 10)).extracting(SearchResult::getContent)
+                .containsExactly("Battery", "Charging");
+        assertThat(LocalVectorSearchBackend.matrixBytes(200_000, 3072))
+                .isGreaterThan(LocalVectorSearchBackend.MAX_MATRIX_BYTES);
+        assertThat(backend.upsert("other", Collections.nCopies(200_000,
+                new IndexDocument("Wide", "N1", "other", new float[3072])))).isFalse();
+    }
+}
@@ -0,0 +1,39 @@
+package com.cloudhumans.chatbot.search;
+
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RankFusionTest {
+
+    @Test
+    void testDocumentsInBothRankingsMoveUp() {
+        List<SearchResult> vector = List.of(result("A", 0.9), result("B", 0.8), result("C", 0.7));
+        List<SearchResult> keyword = List.of(result("C", 12.0), result("D", 8.0));
+
+        List<SearchResult> fused = RankFusion.reciprocalRank(List.of(vector, keyword), 60, 4);
+
+        assertThat(fused).extracting(SearchResult::getContent).containsExactly("C", "A", "B", "D");
+        assertThat(fused.get(0).getSearchScore()).isEqualTo(0.7);
+    }
+
+    @Test
+    void testIgnoresFailedRankings() {
+        List<SearchResult> keyword = List.of(result("D", 8.0));
+
+        assertThat(RankFusion.reciprocalRank(Arrays.asList(null, keyword), 60, 10))
+                .extracting(SearchResult::getContent)
+                .containsExactly("D");
+    }
+
+    private static SearchResult result(String content, double score) {
+        SearchResult result = new SearchResult();
+        result.setContent(content);
+        result.setSearchScore(score);
+        return result;
+    }
+}
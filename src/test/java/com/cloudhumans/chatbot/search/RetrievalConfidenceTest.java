@@ -0,0 +1,49 @@
+package com.cloudhumans.chatbot.search;
+
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.cloudhumans.chatbot.search.RetrievalConfidence.Decision.ANSWER;
+import static com.cloudhumans.chatbot.search.RetrievalConfidence.Decision.INSUFFICIENT;
+import static com.cloudhumans.chatbot.search.RetrievalConfidence.Decision.N2;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RetrievalConfidenceTest {
+
+    @Test
+    void testMarginIsLeadOverTheBestResultOfTheOtherLevel() {
+        RetrievalConfidence confidence = RetrievalConfidence.of(List.of(
+                result(0.80, "N1"), result(0.91, "N2"), result(0.85, "N2")));
+
+        assertThat(confidence.topScore()).isEqualTo(0.91);
+        assertThat(confidence.topIsN2()).isTrue();
+        assertThat(confidence.margin()).isCloseTo(0.11, within(1e-9));
+    }
+
+    @Test
+    void testDecisions() {
+        RetrievalConfidence lowN1 = RetrievalConfidence.of(List.of(result(0.6, "N1")));
+        assertThat(lowN1.decide(0.7, true, 0.05, false)).isEqualTo(INSUFFICIENT);
+        assertThat(lowN1.decide(0.7, true, 0.05, true)).isEqualTo(ANSWER);
+        assertThat(lowN1.decide(0.0, true, 0.05, false)).isEqualTo(ANSWER);
+
+        RetrievalConfidence closeN2 = RetrievalConfidence.of(List.of(result(0.82, "N2"), result(0.80, "N1")));
+        assertThat(closeN2.decide(0.7, true, 0.05, false)).isEqualTo(ANSWER);
+        assertThat(closeN2.decide(0.7, true, 0.01, false)).isEqualTo(N2);
+        assertThat(closeN2.decide(0.7, false, 0.01, false)).isEqualTo(ANSWER);
+
+        RetrievalConfidence onlyN2 = RetrievalConfidence.of(List.of(result(0.75, "n2")));
+        assertThat(onlyN2.decide(0.7, true, 0.05, false)).isEqualTo(N2);
+    }
+
+    private static SearchResult result(double score, String type) {
+        SearchResult result = new SearchResult();
+        result.setSearchScore(score);
+        result.setType(type);
+        result.setContent(type + score);
+        return result;
+    }
+}
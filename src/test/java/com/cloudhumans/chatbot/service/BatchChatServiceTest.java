@@ -0,0 +1,151 @@
+package com.cloudhumans.chatbot.service;
+
+import com.cloudhumans.chatbot.exception.OverloadedException;
+import com.cloudhumans.chatbot.limit.ConcurrencyLimits;
+import com.cloudhumans.chatbot.limit.LimitProperties;
+import com.cloudhumans.chatbot.limit.TenantDispatcher;
+import com.cloudhumans.chatbot.model.chat.ChatRequest;
+import com.cloudhumans.chatbot.model.llm.Message;
+import com.cloudhumans.chatbot.model.response.ConversationResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BatchChatServiceTest {
+
+    private final ChatService chatService = mock(ChatService.class);
+    private final EmbeddingService embeddingService = mock(EmbeddingService.class);
+    private final TenantDispatcher tenantDispatcher = mock(TenantDispatcher.class);
+    private final ContextBuilder contextBuilder = new ContextBuilder("gpt-4o", 2000, 0.9);
+
+    private BatchChatService batchChatService;
+
+    @BeforeEach
+    void setup() {
+        batchChatService = new BatchChatService(chatService, embeddingService, new SimpleAsyncTaskExecutor(),
+                Validation.buildDefaultValidatorFactory().getValidator(), tenantDispatcher,
+                new ConcurrencyLimits(new LimitProperties(), new SimpleMeterRegistry()), contextBuilder);
+
+        when(tenantDispatcher.dispatch(anyString(), anyString(), anyLong(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(3).get());
+
+        when(embeddingService.embedAll(anyList())).thenAnswer(invocation -> {
+            List<String> inputs = invocation.getArgument(0);
+            return inputs.stream().map(input -> new float[]{input.length()}).toList();
+        });
+        when(chatService.getAnswer(anyString(), anyString(), any(float[].class))).thenAnswer(invocation -> {
+            String userMessage = invocation.getArgument(1);
+            Thread.sleep(userMessage.hashCode() % 3 == 0 ? 30 : 1);
+            return response(userMessage, "answer to " + userMessage);
+        });
+    }
+
+    @Test
+    void testAnswersAreReturnedInInputOrderWithOneEmbeddingCall() {
+        List<ChatRequest> requests = IntStream.range(0, 40)
+                .mapToObj(i -> request("tesla_motors", "question " + i))
+                .toList();
+
+        List<ConversationResponse> responses = batchChatService.getAnswers(requests);
+
+        assertThat(responses).extracting(r -> r.getMessages().get(1).getContent())
+                .containsExactlyElementsOf(IntStream.range(0, 40).mapToObj(i -> "answer to question " + i).toList());
+        verify(embeddingService, times(1)).embedAll(anyList());
+        verify(tenantDispatcher).dispatch(eq(ConcurrencyLimits.EMBEDDING), eq("tesla_motors"), anyLong(), any());
+    }
+
+    @Test
+    void testEmbeddingsAreDispatchedPerProjectAndARejectedProjectBecomesHandover() {
+        when(tenantDispatcher.dispatch(eq(ConcurrencyLimits.EMBEDDING), eq("busy_project"), anyLong(), any()))
+                .thenThrow(new OverloadedException(ConcurrencyLimits.EMBEDDING, Duration.ofSeconds(1)));
+        when(chatService.getAnswer(anyString(), anyString(), isNull())).thenAnswer(invocation -> new ConversationResponse(
+                List.of(new Message("USER", invocation.getArgument(1)), new Message("AGENT", "Erro ao gerar embedding.")),
+                true,
+                List.of()));
+        List<ChatRequest> requests = List.of(
+                request("tesla_motors", "first"),
+                request("busy_project", "rejected"),
+                request("tesla_motors", "last")
+        );
+
+        List<ConversationResponse> responses = batchChatService.getAnswers(requests);
+
+        assertThat(responses).extracting(r -> r.getMessages().get(1).getContent())
+                .containsExactly("answer to first", "Erro ao gerar embedding.", "answer to last");
+        assertThat(responses.get(1).isHandoverToHumanNeeded()).isTrue();
+        verify(tenantDispatcher).dispatch(eq(ConcurrencyLimits.EMBEDDING), eq("tesla_motors"),
+                eq((long) contextBuilder.countTokens("first") + contextBuilder.countTokens("last")), any());
+        verify(embeddingService).embedAll(List.of("first", "last"));
+        verify(embeddingService, never()).embedAll(List.of("rejected"));
+    }
+
+    @Test
+    void testInvalidRequestsKeepTheirPosition() {
+        List<ChatRequest> requests = List.of(
+                request("tesla_motors", "first"),
+                request("", "no project"),
+                request("tesla_motors", "last")
+        );
+
+        List<ConversationResponse> responses = new ArrayList<>();
+        batchChatService.streamAnswers(requests.iterator(), responses::add);
+
+        assertThat(responses).hasSize(3);
+        assertThat(responses.get(0).getMessages().get(1).getContent()).isEqualTo("answer to first");
+        assertThat(responses.get(1).getMessages().get(1).getContent()).contains("Requisição inválida");
+        assertThat(responses.get(1).isHandoverToHumanNeeded()).isTrue();
+        assertThat(responses.get(2).getMessages().get(1).getContent()).isEqualTo("answer to last");
+        verify(embeddingService).embedAll(List.of("first", "last"));
+    }
+
+    @Test
+    void testFailedItemBecomesAHandoverWithoutFailingTheBatch() {
+        when(chatService.getAnswer(anyString(), eq("overloaded"), any(float[].class)))
+                .thenThrow(new OverloadedException(ConcurrencyLimits.SEARCH, Duration.ofSeconds(1)));
+        List<ChatRequest> requests = List.of(
+                request("tesla_motors", "first"),
+                request("tesla_motors", "overloaded"),
+                request("tesla_motors", "last")
+        );
+
+        List<ConversationResponse> responses = batchChatService.getAnswers(requests);
+
+        assertThat(responses).hasSize(3);
+        assertThat(responses.get(0).getMessages().get(1).getContent()).isEqualTo("answer to first");
+        assertThat(responses.get(1).isHandoverToHumanNeeded()).isTrue();
+        assertThat(responses.get(1).getMessages()).extracting(Message::getContent)
+                .containsExactly("overloaded", "Sua solicitação será encaminhada para um atendente humano.");
+        assertThat(responses.get(2).getMessages().get(1).getContent()).isEqualTo("answer to last");
+    }
+
+    private static ChatRequest request(String projectName, String message) {
+        ChatRequest request = new ChatRequest();
+        request.setProjectName(projectName);
+        request.setMessages(List.of(new Message("USER", message)));
+        return request;
+    }
+
+    private static ConversationResponse response(String userMessage, String answer) {
+        return new ConversationResponse(
+                List.of(new Message("USER", userMessage), new Message("AGENT", answer)),
+                false,
+                List.of()
+        );
+    }
+}
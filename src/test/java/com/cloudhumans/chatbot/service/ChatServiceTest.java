@@ -1,27 +1,63 @@
 package com.cloudhumans.chatbot.service;
 
 import com.cloudhumans.chatbot.TestUtils;
+import com.cloudhumans.chatbot.cache.CaffeineEmbeddingCache;
+import com.cloudhumans.chatbot.cache.EmbeddingCache;
+import com.cloudhumans.chatbot.cache.NoOpEmbeddingCache;
+import com.cloudhumans.chatbot.cache.NoOpSemanticAnswerCache;
+import com.cloudhumans.chatbot.conversation.ConversationProperties;
+import com.cloudhumans.chatbot.conversation.ConversationStore;
+import com.cloudhumans.chatbot.conversation.InMemoryConversationStore;
+import com.cloudhumans.chatbot.deadline.Deadline;
+import com.cloudhumans.chatbot.deadline.DeadlineProperties;
+import com.cloudhumans.chatbot.exception.OverloadedException;
+import com.cloudhumans.chatbot.limit.ConcurrencyLimits;
+import com.cloudhumans.chatbot.limit.LimitProperties;
+import com.cloudhumans.chatbot.metrics.ChatMetrics;
 import com.cloudhumans.chatbot.model.embedding.EmbeddingResponse;
 import com.cloudhumans.chatbot.model.embedding.EmbeddingData;
+import com.cloudhumans.chatbot.model.llm.ChatCompletionRequest;
 import com.cloudhumans.chatbot.model.llm.ChatCompletionResponse;
 import com.cloudhumans.chatbot.model.llm.Message;
+import com.cloudhumans.chatbot.model.llm.Usage;
 import com.cloudhumans.chatbot.model.response.ConversationResponse;
 import com.cloudhumans.chatbot.model.search.DatabaseSearchResponse;
 import com.cloudhumans.chatbot.model.search.SearchResult;
+import com.cloudhumans.chatbot.model.search.IndexDocument;
+import com.cloudhumans.chatbot.routing.ModelRouter;
+import com.cloudhumans.chatbot.routing.RoutingProperties;
+import com.cloudhumans.chatbot.search.AzureSearchBackend;
+import com.cloudhumans.chatbot.search.LocalVectorSearchBackend;
+import com.cloudhumans.chatbot.search.RetrievalMode;
+import com.cloudhumans.chatbot.search.RetrievalProperties;
+import com.cloudhumans.chatbot.search.VectorSearchBackend;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.http.*;
+import org.springframework.mock.http.client.MockClientHttpResponse;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 @ExtendWith(SpringExtension.class)
 @ExtendWith(MockitoExtension.class)
@@ -36,17 +72,76 @@ class ChatServiceTest {
     @Spy
     private ObjectMapper objectMapper = new ObjectMapper();
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final RetrievalProperties retrievalProperties = new RetrievalProperties();
+
+    private final RoutingProperties routingProperties = new RoutingProperties();
+
+    private final DeadlineProperties deadlineProperties = new DeadlineProperties();
+
+    private final LimitProperties limitProperties = new LimitProperties();
+
+    private final ConcurrencyLimits concurrencyLimits = new ConcurrencyLimits(limitProperties, meterRegistry);
+
+    private final ConversationStore conversationStore =
+            new InMemoryConversationStore(1024 * 1024, Duration.ofMinutes(30), 20, meterRegistry);
+
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
 
-        chatService = new ChatService(restTemplate, objectMapper);
+        chatService = newChatService(restTemplate, new NoOpEmbeddingCache(), azureSearchBackend());
+    }
+
+    private ChatService newChatService(RestTemplate restTemplate, EmbeddingCache embeddingCache,
+                                       VectorSearchBackend vectorSearchBackend) {
+        EmbeddingService embeddingService = new EmbeddingService(restTemplate, objectMapper, embeddingCache,
+                TestUtils.resilience(meterRegistry));
+        TestUtils.setField(embeddingService, "embeddingApiUrl", "http://fake-embedding-api");
+        TestUtils.setField(embeddingService, "embeddingApiKey", "abc123");
+        TestUtils.setField(embeddingService, "embeddingModel", "text-embedding-ada-002");
+
+        ChatService service = new ChatService(
+                restTemplate,
+                objectMapper,
+                embeddingService,
+                new NoOpSemanticAnswerCache(),
+                vectorSearchBackend,
+                new RequestCoalescer(new SimpleMeterRegistry()),
+                new ChatMetrics(meterRegistry, TestUtils.observationRegistry(meterRegistry), 100),
+                new ContextBuilder("gpt-4o", 2000, 0.9),
+                conversationStore,
+                new ConversationProperties(),
+                retrievalProperties,
+                new ModelRouter(routingProperties),
+                deadlineProperties,
+                concurrencyLimits,
+                TestUtils.tenantDispatcher(meterRegistry),
+                TestUtils.resilience(meterRegistry),
+                new SimpleAsyncTaskExecutor()
+        );
+        configure(service);
+        return service;
+    }
+
+    private AzureSearchBackend azureSearchBackend() {
+        AzureSearchBackend backend = new AzureSearchBackend(restTemplate, objectMapper, TestUtils.resilience(meterRegistry));
+        TestUtils.setField(backend, "dbSearchUrl", "http://fake-vector-db");
+        TestUtils.setField(backend, "dbApiKey", "dbkey123");
+        return backend;
+    }
+
+    /**
+     * Responde chamadas feitas via RestTemplate.execute passando o JSON pelo ResponseExtractor real.
+     */
+    private void stubJsonResponse(String url, String json) {
+        when(restTemplate.execute(eq(url), eq(HttpMethod.POST), any(RequestCallback.class), any(ResponseExtractor.class)))
+                .thenAnswer(invocation -> invocation.<ResponseExtractor<?>>getArgument(3)
+                        .extractData(new MockClientHttpResponse(json.getBytes(StandardCharsets.UTF_8), HttpStatus.OK)));
+    }
 
-        TestUtils.setField(chatService, "embeddingApiUrl", "http://fake-embedding-api");
-        TestUtils.setField(chatService, "embeddingApiKey", "abc123");
-        TestUtils.setField(chatService, "embeddingModel", "text-embedding-ada-002");
-        TestUtils.setField(chatService, "dbSearchUrl", "http://fake-vector-db");
-        TestUtils.setField(chatService, "dbApiKey", "dbkey123");
+    private void configure(ChatService chatService) {
         TestUtils.setField(chatService, "openAiChatUrl", "http://fake-openai");
         TestUtils.setField(chatService, "openAiApiKey", "openkey123");
         TestUtils.setField(chatService, "openAiModel", "gpt-4");
@@ -58,17 +153,12 @@ class ChatServiceTest {
         String projectName = "TeslaProject";
 
         EmbeddingData embeddingData = new EmbeddingData();
-        embeddingData.setEmbedding(List.of(0.1, 0.2, 0.3));
+        embeddingData.setEmbedding(new float[]{0.1f, 0.2f, 0.3f});
         EmbeddingResponse embeddingResponse = new EmbeddingResponse();
         embeddingResponse.setData(List.of(embeddingData));
 
         String embeddingJson = objectMapper.writeValueAsString(embeddingResponse);
-        when(restTemplate.exchange(
-                eq("http://fake-embedding-api"),
-                eq(HttpMethod.POST),
-                any(HttpEntity.class),
-                eq(String.class)
-        )).thenReturn(ResponseEntity.ok(embeddingJson));
+        stubJsonResponse("http://fake-embedding-api", embeddingJson);
 
         SearchResult result = new SearchResult();
         result.setContent("If your car is on fire, leave immediately.");
@@ -78,18 +168,17 @@ class ChatServiceTest {
         dbResponse.setValue(List.of(result));
 
         String dbJson = objectMapper.writeValueAsString(dbResponse);
-        when(restTemplate.exchange(
-                eq("http://fake-vector-db"),
-                eq(HttpMethod.POST),
-                any(HttpEntity.class),
-                eq(String.class)
-        )).thenReturn(ResponseEntity.ok(dbJson));
+        stubJsonResponse("http://fake-vector-db", dbJson);
 
         ChatCompletionResponse.Choice choice = new ChatCompletionResponse.Choice();
         choice.setMessage(new Message("assistant", "If your car is on fire, exit immediately."));
 
         ChatCompletionResponse chatResponse = new ChatCompletionResponse();
         chatResponse.setChoices(List.of(choice));
+        Usage usage = new Usage();
+        usage.setPromptTokens(120);
+        usage.setCompletionTokens(12);
+        chatResponse.setUsage(usage);
 
         when(restTemplate.exchange(
                 eq("http://fake-openai"),
@@ -104,6 +193,19 @@ class ChatServiceTest {
         assertThat(response.getMessages()).hasSize(2);
         assertThat(response.getMessages().get(1).getContent()).contains("exit immediately");
         assertThat(response.isHandoverToHumanNeeded()).isTrue();
+
+        for (String stage : List.of("embedding", "search", "llm")) {
+            assertThat(meterRegistry.get("chatbot.pipeline.stage")
+                    .tags("stage", stage, "project", projectName, "outcome", "success").timer().count()).isEqualTo(1);
+        }
+        assertThat(meterRegistry.get("chatbot.pipeline.handovers").tag("project", projectName).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chatbot.search.score").tag("project", projectName).summary().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chatbot.llm.tokens").tags("project", projectName, "type", "prompt").summary().totalAmount())
+                .isEqualTo(120);
+        assertThat(meterRegistry.get("chatbot.context.tokens").tag("project", projectName).summary().totalAmount())
+                .isPositive();
+        assertThat(meterRegistry.get("chatbot.context.tokens.saved").tag("project", projectName).summary().count())
+                .isEqualTo(1);
     }
 
     @Test
@@ -111,12 +213,8 @@ class ChatServiceTest {
         String userMessage = "My car is on fire!";
         String projectName = "TeslaProject";
 
-        when(restTemplate.exchange(
-                eq("http://fake-embedding-api"),
-                eq(HttpMethod.POST),
-                any(HttpEntity.class),
-                eq(String.class)
-        )).thenReturn(null);
+        when(restTemplate.execute(eq("http://fake-embedding-api"), eq(HttpMethod.POST), any(RequestCallback.class), any(ResponseExtractor.class)))
+                .thenReturn(null);
 
         ConversationResponse response = chatService.getAnswer(projectName, userMessage);
 
@@ -125,6 +223,8 @@ class ChatServiceTest {
         assertThat(response.getMessages().get(1).getContent()).contains("Erro ao gerar embedding");
         assertThat(response.getResults()).isEmpty();
         assertThat(response.isHandoverToHumanNeeded()).isTrue();
+        assertThat(meterRegistry.get("chatbot.pipeline.failures").tags("stage", "embedding", "project", projectName)
+                .counter().count()).isEqualTo(1);
     }
 
     @Test
@@ -137,22 +237,12 @@ class ChatServiceTest {
                   "data": [{ "embedding": [0.1, 0.2, 0.3] }]
                 }
                 """;
-        when(restTemplate.exchange(
-                eq("http://fake-embedding-api"),
-                eq(HttpMethod.POST),
-                any(HttpEntity.class),
-                eq(String.class)
-        )).thenReturn(ResponseEntity.ok(embeddingJson));
+        stubJsonResponse("http://fake-embedding-api", embeddingJson);
 
         String dbJson = """
                 { "value": [] }
                 """;
-        when(restTemplate.exchange(
-                eq("http://fake-vector-db"),
-                eq(HttpMethod.POST),
-                any(HttpEntity.class),
-                eq(String.class)
-        )).thenReturn(ResponseEntity.ok(dbJson));
+        stubJsonResponse("http://fake-vector-db", dbJson);
 
         ConversationResponse response = chatService.getAnswer(projectName, userMessage);
 
@@ -160,6 +250,8 @@ class ChatServiceTest {
         assertThat(response.getMessages().get(1).getContent()).contains("não encontrei uma resposta");
         assertThat(response.getResults()).isEmpty();
         assertThat(response.isHandoverToHumanNeeded()).isTrue();
+        assertThat(meterRegistry.get("chatbot.pipeline.empty.results").tag("project", projectName).counter().count())
+                .isEqualTo(1);
     }
 
     @Test
@@ -172,12 +264,7 @@ class ChatServiceTest {
                   "data": [{ "embedding": [0.1, 0.2, 0.3] }]
                 }
                 """;
-        when(restTemplate.exchange(
-                eq("http://fake-embedding-api"),
-                eq(HttpMethod.POST),
-                any(HttpEntity.class),
-                eq(String.class)
-        )).thenReturn(ResponseEntity.ok(embeddingJson));
+        stubJsonResponse("http://fake-embedding-api", embeddingJson);
 
         String dbJson = """
                 {
@@ -187,12 +274,7 @@ class ChatServiceTest {
                   }]
                 }
                 """;
-        when(restTemplate.exchange(
-                eq("http://fake-vector-db"),
-                eq(HttpMethod.POST),
-                any(HttpEntity.class),
-                eq(String.class)
-        )).thenReturn(ResponseEntity.ok(dbJson));
+        stubJsonResponse("http://fake-vector-db", dbJson);
 
         when(restTemplate.exchange(
                 eq("http://fake-openai"),
@@ -216,12 +298,7 @@ class ChatServiceTest {
                   "data": [{ "embedding": [0.1, 0.2, 0.3] }]
                 }
                 """;
-        when(restTemplate.exchange(
-                eq("http://fake-embedding-api"),
-                eq(HttpMethod.POST),
-                any(HttpEntity.class),
-                eq(String.class)
-        )).thenReturn(ResponseEntity.ok(embeddingJson));
+        stubJsonResponse("http://fake-embedding-api", embeddingJson);
 
         String dbJson = """
                 {
@@ -231,12 +308,7 @@ class ChatServiceTest {
                   }]
                 }
                 """;
-        when(restTemplate.exchange(
-                eq("http://fake-vector-db"),
-                eq(HttpMethod.POST),
-                any(HttpEntity.class),
-                eq(String.class)
-        )).thenReturn(ResponseEntity.ok(dbJson));
+        stubJsonResponse("http://fake-vector-db", dbJson);
 
         ChatCompletionResponse.Choice choice = new ChatCompletionResponse.Choice();
         choice.setMessage(new Message("assistant", "No solar charging."));
@@ -254,4 +326,365 @@ class ChatServiceTest {
 
         assertThat(response.isHandoverToHumanNeeded()).isFalse();
     }
+
+    @Test
+    void testEmbeddingCacheSkipsRepeatedEmbeddingCalls() {
+        chatService = newChatService(restTemplate,
+                new CaffeineEmbeddingCache(100, Duration.ofMinutes(5), null, new SimpleMeterRegistry()),
+                azureSearchBackend());
+
+        String embeddingJson = """
+                {
+                  "data": [{ "embedding": [0.1, 0.2, 0.3] }]
+                }
+                """;
+        stubJsonResponse("http://fake-embedding-api", embeddingJson);
+
+        stubJsonResponse("http://fake-vector-db", "{ \"value\": [] }");
+
+        chatService.getAnswer("TeslaProject", "How do I charge my Tesla?");
+        chatService.getAnswer("TeslaProject", "  how do I   charge my TESLA? ");
+
+        verify(restTemplate, times(1)).execute(
+                eq("http://fake-embedding-api"), eq(HttpMethod.POST), any(RequestCallback.class), any(ResponseExtractor.class));
+        verify(restTemplate, times(2)).execute(
+                eq("http://fake-vector-db"), eq(HttpMethod.POST), any(RequestCallback.class), any(ResponseExtractor.class));
+    }
+
+    @Test
+    void testStreamAnswerForwardsTokensAsTheyArrive() {
+        RestTemplate realRestTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(realRestTemplate).build();
+        SearchResult result = new SearchResult();
+        result.setContent("Tesla batteries last 300,000 to 500,000 miles.");
+        result.setType("N1");
+        VectorSearchBackend backend = mock(VectorSearchBackend.class);
+        when(backend.search(anyString(), any(float[].class), anyInt())).thenReturn(List.of(result));
+        ChatService streamingService = newChatService(realRestTemplate, new NoOpEmbeddingCache(), backend);
+
+        server.expect(requestTo("http://fake-embedding-api"))
+                .andRespond(withSuccess("{\"data\": [{\"embedding\": [0.1, 0.2, 0.3]}]}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://fake-openai"))
+                .andExpect(jsonPath("$.stream").value(true))
+                .andExpect(jsonPath("$.stream_options.include_usage").value(true))
+                .andRespond(withSuccess("""
+                        data: {"choices":[{"index":0,"delta":{"role":"assistant"}}]}
+
+                        data: {"choices":[{"index":0,"delta":{"content":"About "}}]}
+
+                        data: {"choices":[{"index":0,"delta":{"content":"300k miles."}}]}
+
+                        data: {"choices":[],"usage":{"prompt_tokens":90,"completion_tokens":4,"total_tokens":94}}
+
+                        data: [DONE]
+
+                        """, MediaType.TEXT_EVENT_STREAM));
+
+        List<String> tokens = new ArrayList<>();
+        ConversationResponse response = streamingService.streamAnswer("TeslaProject", "How long does a battery last?", tokens::add);
+
+        server.verify();
+        assertThat(tokens).containsExactly("About ", "300k miles.");
+        assertThat(response.getMessages().get(1).getContent()).isEqualTo("About 300k miles.");
+        assertThat(response.isHandoverToHumanNeeded()).isFalse();
+        assertThat(response.getResults()).hasSize(1);
+        assertThat(meterRegistry.get("chatbot.llm.tokens").tags("project", "TeslaProject", "type", "completion")
+                .summary().totalAmount()).isEqualTo(4);
+    }
+
+    @Test
+    void testHybridRetrievalFindsExactPartNumberMissedByVectorSearch() {
+        LocalVectorSearchBackend backend = new LocalVectorSearchBackend(objectMapper);
+        List<IndexDocument> documents = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            documents.add(new IndexDocument("Wiper blade guide " + i, "N1", "TeslaProject", new float[]{1, 0.01f * i, 0}));
+        }
+        documents.add(new IndexDocument("Part 1089178-00-A is the front wiper motor.", "N1", "TeslaProject", new float[]{0, 0, 1}));
+        backend.load("TeslaProject", documents);
+        chatService = newChatService(restTemplate, new NoOpEmbeddingCache(), backend);
+
+        stubJsonResponse("http://fake-embedding-api", "{\"data\": [{\"embedding\": [1.0, 0.0, 0.0]}]}");
+        ChatCompletionResponse completion = new ChatCompletionResponse();
+        ChatCompletionResponse.Choice choice = new ChatCompletionResponse.Choice();
+        choice.setMessage(new Message("assistant", "It is the front wiper motor."));
+        completion.setChoices(List.of(choice));
+        when(restTemplate.exchange(eq("http://fake-openai"), eq(HttpMethod.POST), any(HttpEntity.class),
+                eq(ChatCompletionResponse.class))).thenReturn(ResponseEntity.ok(completion));
+
+        String question = "What is part 1089178-00-A?";
+        assertThat(chatService.getAnswer("TeslaProject", question).getResults())
+                .extracting(SearchResult::getContent)
+                .doesNotContain("Part 1089178-00-A is the front wiper motor.");
+
+        retrievalProperties.getProjects().put("TeslaProject", new RetrievalProperties.Project());
+        retrievalProperties.getProjects().get("TeslaProject").setMode(RetrievalMode.HYBRID);
+        List<SearchResult> results = chatService.getAnswer("TeslaProject", question).getResults();
+
+        assertThat(results).hasSize(10)
+                .extracting(SearchResult::getContent)
+                .contains("Part 1089178-00-A is the front wiper motor.");
+        assertThat(meterRegistry.get("chatbot.pipeline.stage").tags("stage", "keyword").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testLowScoresGoToHandoverWithoutCallingTheLlm() {
+        RetrievalProperties.Project project = new RetrievalProperties.Project();
+        project.setMinScore(0.8);
+        retrievalProperties.getProjects().put("TeslaProject", project);
+
+        stubJsonResponse("http://fake-embedding-api", "{\"data\": [{\"embedding\": [0.1, 0.2, 0.3]}]}");
+        stubJsonResponse("http://fake-vector-db", """
+                {"value": [
+                  {"@search.score": 0.62, "content": "Charging at home", "type": "N1"},
+                  {"@search.score": 0.55, "content": "Service centers", "type": "N2"}
+                ]}
+                """);
+
+        ConversationResponse response = chatService.getAnswer("TeslaProject", "What is the airspeed of a swallow?");
+
+        assertThat(response.isHandoverToHumanNeeded()).isTrue();
+        assertThat(response.getMessages().get(1).getContent()).isEqualTo("Desculpe, não encontrei uma resposta para sua pergunta.");
+        assertThat(response.getResults()).hasSize(2);
+        verify(restTemplate, never()).exchange(eq("http://fake-openai"), any(HttpMethod.class), any(HttpEntity.class),
+                eq(ChatCompletionResponse.class));
+        assertThat(meterRegistry.get("chatbot.llm.calls.avoided").tags("project", "TeslaProject", "reason", "insufficient")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testClearN2GoesToHandoverWithoutCallingTheLlm() {
+        retrievalProperties.setN2ShortCircuit(true);
+
+        stubJsonResponse("http://fake-embedding-api", "{\"data\": [{\"embedding\": [0.1, 0.2, 0.3]}]}");
+        stubJsonResponse("http://fake-vector-db", """
+                {"value": [
+                  {"@search.score": 0.91, "content": "Collision repair requires an inspection", "type": "N2"},
+                  {"@search.score": 0.80, "content": "Charging at home", "type": "N1"}
+                ]}
+                """);
+
+        ConversationResponse response = chatService.getAnswer("TeslaProject", "My car was in an accident");
+
+        assertThat(response.isHandoverToHumanNeeded()).isTrue();
+        assertThat(response.getMessages().get(1).getContent()).isEqualTo("Sua solicitação será encaminhada para um atendente humano.");
+        verify(restTemplate, never()).exchange(eq("http://fake-openai"), any(HttpMethod.class), any(HttpEntity.class),
+                eq(ChatCompletionResponse.class));
+        assertThat(meterRegistry.get("chatbot.llm.calls.avoided").tags("project", "TeslaProject", "reason", "n2")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testFullLlmBulkheadRejectsInsteadOfQueueing() throws Exception {
+        concurrencyLimits.getBulkhead(ConcurrencyLimits.LLM).setMaxConcurrent(0);
+
+        stubJsonResponse("http://fake-embedding-api", "{\"data\": [{\"embedding\": [0.1, 0.2, 0.3]}]}");
+        stubJsonResponse("http://fake-vector-db", """
+                {"value": [{"@search.score": 0.9, "content": "Charging at home", "type": "N1"}]}
+                """);
+
+        assertThatThrownBy(() -> chatService.getAnswer("TeslaProject", "How do I charge?"))
+                .isInstanceOf(OverloadedException.class)
+                .extracting("resource").isEqualTo("llm");
+        verify(restTemplate, never()).exchange(eq("http://fake-openai"), any(HttpMethod.class), any(HttpEntity.class),
+                eq(ChatCompletionResponse.class));
+        assertThat(meterRegistry.get("chatbot.limiter.rejected").tags("type", "bulkhead", "name", "llm")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testFollowUpQuestionUsesStoredConversation() {
+        stubJsonResponse("http://fake-embedding-api", "{\"data\": [{\"embedding\": [0.1, 0.2, 0.3]}]}");
+        stubJsonResponse("http://fake-vector-db", """
+                {"value": [{"@search.score": 0.9, "content": "Battery replacement costs about $13,000.", "type": "N1"}]}
+                """);
+        ChatCompletionResponse completion = new ChatCompletionResponse();
+        ChatCompletionResponse.Choice choice = new ChatCompletionResponse.Choice();
+        choice.setMessage(new Message("assistant", "Between 300,000 and 500,000 miles."));
+        completion.setChoices(List.of(choice));
+        ArgumentCaptor<HttpEntity> llmRequest = ArgumentCaptor.forClass(HttpEntity.class);
+        when(restTemplate.exchange(eq("http://fake-openai"), eq(HttpMethod.POST), llmRequest.capture(),
+                eq(ChatCompletionResponse.class))).thenReturn(ResponseEntity.ok(completion));
+
+        ConversationResponse first = chatService.converse("TeslaProject", null,
+                List.of(new Message("USER", "How long does a Tesla battery last?")), null);
+        ConversationResponse second = chatService.converse("TeslaProject", first.getConversationId(),
+                List.of(new Message("USER", "And how much does it cost to replace?")), null);
+
+        assertThat(first.getConversationId()).isNotBlank();
+        assertThat(second.getConversationId()).isEqualTo(first.getConversationId());
+        ChatCompletionRequest followUp = (ChatCompletionRequest) llmRequest.getAllValues().get(1).getBody();
+        assertThat(followUp.getMessages()).extracting(Message::getRole)
+                .containsExactly("system", "user", "assistant", "user");
+        assertThat(followUp.getMessages().get(1).getContent()).isEqualTo("How long does a Tesla battery last?");
+        assertThat(followUp.getMessages().get(3).getContent()).endsWith("Question: And how much does it cost to replace?");
+        assertThat(conversationStore.history("TeslaProject", first.getConversationId())).hasSize(4);
+    }
+
+    @Test
+    void testConversationIdFromAnotherProjectDoesNotShareHistory() {
+        stubJsonResponse("http://fake-embedding-api", "{\"data\": [{\"embedding\": [0.1, 0.2, 0.3]}]}");
+        stubJsonResponse("http://fake-vector-db", """
+                {"value": [{"@search.score": 0.9, "content": "Battery replacement costs about $13,000.", "type": "N1"}]}
+                """);
+        ChatCompletionResponse completion = new ChatCompletionResponse();
+        ChatCompletionResponse.Choice choice = new ChatCompletionResponse.Choice();
+        choice.setMessage(new Message("assistant", "Between 300,000 and 500,000 miles."));
+        completion.setChoices(List.of(choice));
+        ArgumentCaptor<HttpEntity> llmRequest = ArgumentCaptor.forClass(HttpEntity.class);
+        when(restTemplate.exchange(eq("http://fake-openai"), eq(HttpMethod.POST), llmRequest.capture(),
+                eq(ChatCompletionResponse.class))).thenReturn(ResponseEntity.ok(completion));
+
+        ConversationResponse first = chatService.converse("TeslaProject", null,
+                List.of(new Message("USER", "How long does a Tesla battery last?")), null);
+        chatService.converse("OtherProject", first.getConversationId(),
+                List.of(new Message("USER", "What did I ask before?")), null);
+
+        ChatCompletionRequest other = (ChatCompletionRequest) llmRequest.getAllValues().get(1).getBody();
+        assertThat(other.getMessages()).extracting(Message::getRole).containsExactly("system", "user");
+        assertThat(conversationStore.history("TeslaProject", first.getConversationId())).hasSize(2);
+        assertThat(conversationStore.history("OtherProject", first.getConversationId())).hasSize(2);
+    }
+
+    @Test
+    void testSearchQueryIncludesRecentUserTurns() {
+        List<Message> history = List.of(
+                new Message("USER", "Tell me about the Model 3"),
+                new Message("AGENT", "The Model 3 is a sedan."),
+                new Message("USER", "What about its battery?"),
+                new Message("AGENT", "It has a 75 kWh battery."));
+
+        assertThat(ChatService.searchQuery(history, "How long does it last?", 1))
+                .isEqualTo("What about its battery?\nHow long does it last?");
+        assertThat(ChatService.searchQuery(List.of(), "How long does it last?", 2)).isEqualTo("How long does it last?");
+    }
+
+    @Test
+    void testConfidentRetrievalIsRoutedToTheFastTier() {
+        routingProperties.setEnabled(true);
+        RoutingProperties.Tier fast = new RoutingProperties.Tier();
+        fast.setName("fast");
+        fast.setModel("gpt-4o-mini");
+        fast.setMinScore(0.85);
+        fast.setMinMargin(0.05);
+        fast.setAllowN2(false);
+        RoutingProperties.Tier full = new RoutingProperties.Tier();
+        full.setName("full");
+        routingProperties.setTiers(List.of(fast, full));
+
+        stubJsonResponse("http://fake-embedding-api", "{\"data\": [{\"embedding\": [0.1, 0.2, 0.3]}]}");
+        stubJsonResponse("http://fake-vector-db", """
+                {"value": [
+                  {"@search.score": 0.93, "content": "Home charging adds 44 miles per hour.", "type": "N1"},
+                  {"@search.score": 0.71, "content": "Service centers", "type": "N1"}
+                ]}
+                """);
+        ChatCompletionResponse completion = new ChatCompletionResponse();
+        ChatCompletionResponse.Choice choice = new ChatCompletionResponse.Choice();
+        choice.setMessage(new Message("assistant", "About 44 miles per hour."));
+        completion.setChoices(List.of(choice));
+        ArgumentCaptor<HttpEntity> llmRequest = ArgumentCaptor.forClass(HttpEntity.class);
+        when(restTemplate.exchange(eq("http://fake-openai"), eq(HttpMethod.POST), llmRequest.capture(),
+                eq(ChatCompletionResponse.class))).thenReturn(ResponseEntity.ok(completion));
+
+        chatService.getAnswer("TeslaProject", "How fast does home charging go?");
+
+        assertThat(((ChatCompletionRequest) llmRequest.getValue().getBody()).getModel()).isEqualTo("gpt-4o-mini");
+        assertThat(meterRegistry.get("chatbot.routing.decisions").tags("project", "TeslaProject", "tier", "fast",
+                "reason", "eligible").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chatbot.routing.llm.latency").tags("tier", "fast", "model", "gpt-4o-mini",
+                "outcome", "success").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testNearExactFaqMatchIsReturnedVerbatimWithoutCallingTheLlm() {
+        routingProperties.setEnabled(true);
+        routingProperties.getVerbatim().setEnabled(true);
+
+        stubJsonResponse("http://fake-embedding-api", "{\"data\": [{\"embedding\": [0.1, 0.2, 0.3]}]}");
+        stubJsonResponse("http://fake-vector-db", """
+                {"value": [
+                  {"@search.score": 0.99, "content": "Tesla batteries last between 300,000 and 500,000 miles.", "type": "N1"},
+                  {"@search.score": 0.80, "content": "Service centers", "type": "N1"}
+                ]}
+                """);
+
+        ConversationResponse response = chatService.getAnswer("TeslaProject", "How long does a Tesla battery last?");
+
+        assertThat(response.getMessages().get(1).getContent())
+                .isEqualTo("Tesla batteries last between 300,000 and 500,000 miles.");
+        assertThat(response.isHandoverToHumanNeeded()).isFalse();
+        verify(restTemplate, never()).exchange(eq("http://fake-openai"), any(HttpMethod.class), any(HttpEntity.class),
+                eq(ChatCompletionResponse.class));
+        assertThat(meterRegistry.get("chatbot.llm.calls.avoided").tags("project", "TeslaProject", "reason", "verbatim")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testVerbatimRouteWithoutVectorResultsFallsThroughToTheLlm() {
+        routingProperties.setEnabled(true);
+        routingProperties.getVerbatim().setEnabled(true);
+        routingProperties.getVerbatim().setMinScore(0);
+        routingProperties.getVerbatim().setMinMargin(0);
+        RetrievalProperties.Project project = new RetrievalProperties.Project();
+        project.setMode(RetrievalMode.HYBRID);
+        retrievalProperties.getProjects().put("TeslaProject", project);
+        SearchResult keywordMatch = new SearchResult();
+        keywordMatch.setContent("Part 1089178-00-A is the front wiper motor.");
+        keywordMatch.setType("N1");
+        VectorSearchBackend backend = mock(VectorSearchBackend.class);
+        when(backend.search(anyString(), any(float[].class), anyInt())).thenReturn(List.of());
+        when(backend.keywordSearch(anyString(), anyString(), anyInt())).thenReturn(List.of(keywordMatch));
+        chatService = newChatService(restTemplate, new NoOpEmbeddingCache(), backend);
+
+        stubJsonResponse("http://fake-embedding-api", "{\"data\": [{\"embedding\": [0.1, 0.2, 0.3]}]}");
+        ChatCompletionResponse completion = new ChatCompletionResponse();
+        ChatCompletionResponse.Choice choice = new ChatCompletionResponse.Choice();
+        choice.setMessage(new Message("assistant", "It is the front wiper motor."));
+        completion.setChoices(List.of(choice));
+        when(restTemplate.exchange(eq("http://fake-openai"), eq(HttpMethod.POST), any(HttpEntity.class),
+                eq(ChatCompletionResponse.class))).thenReturn(ResponseEntity.ok(completion));
+
+        ConversationResponse response = chatService.getAnswer("TeslaProject", "What is part 1089178-00-A?");
+
+        assertThat(response.getMessages().get(1).getContent()).isEqualTo("It is the front wiper motor.");
+        assertThat(meterRegistry.find("chatbot.llm.calls.avoided").tags("reason", "verbatim").counter()).isNull();
+    }
+
+    @Test
+    void testHandsOverWithoutCallingTheLlmWhenTheDeadlineCannotCoverIt() {
+        deadlineProperties.setLlmMinBudget(Duration.ofSeconds(5));
+        stubJsonResponse("http://fake-embedding-api", "{\"data\": [{\"embedding\": [0.1, 0.2, 0.3]}]}");
+        stubJsonResponse("http://fake-vector-db", """
+                {"value": [{"@search.score": 0.91, "content": "Tesla batteries last between 300,000 and 500,000 miles.", "type": "N1"}]}
+                """);
+
+        ConversationResponse response;
+        try (Deadline.Scope scope = Deadline.bind(Deadline.after(Duration.ofSeconds(3)))) {
+            response = chatService.getAnswer("TeslaProject", "How long does a Tesla battery last?");
+        }
+
+        assertThat(response.isHandoverToHumanNeeded()).isTrue();
+        assertThat(response.getMessages().get(1).getContent())
+                .isEqualTo("Sua solicitação será encaminhada para um atendente humano.");
+        verify(restTemplate, never()).exchange(eq("http://fake-openai"), any(HttpMethod.class), any(HttpEntity.class),
+                eq(ChatCompletionResponse.class));
+        assertThat(meterRegistry.get("chatbot.deadline.exceeded").tags("stage", "llm", "reason", "expired")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testCancelledRequestStopsBeforeCallingAnyDownstream() {
+        Deadline deadline = Deadline.unbounded();
+        deadline.cancel();
+
+        ConversationResponse response;
+        try (Deadline.Scope scope = Deadline.bind(deadline)) {
+            response = chatService.getAnswer("TeslaProject", "How long does a Tesla battery last?");
+        }
+
+        assertThat(response.isHandoverToHumanNeeded()).isTrue();
+        verifyNoInteractions(restTemplate);
+        assertThat(meterRegistry.get("chatbot.deadline.exceeded").tags("stage", "embedding", "reason", "cancelled")
+                .counter().count()).isEqualTo(1);
+    }
 }
@@ -0,0 +1,80 @@
+package com.cloudhumans.chatbot.service;
+
+import com.cloudhumans.chatbot.model.llm.Message;
+import com.cloudhumans.chatbot.model.search.SearchResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextBuilderTest {
+
+    @Test
+    void testSkipsNearDuplicatesAndKeepsRankOrder() {
+        ContextBuilder builder = new ContextBuilder("gpt-4o", 2000, 0.9);
+
+        ContextBuilder.Context context = builder.build(List.of(
+                result("Tesla batteries last between 300,000 and 500,000 miles.", 0.9),
+                result("Tesla batteries last between 300,000 and 500,000 miles!", 0.88),
+                result("Battery replacement is covered by the warranty for 8 years.", 0.8)
+        ));
+
+        assertThat(context.text()).isEqualTo("""
+                Tesla batteries last between 300,000 and 500,000 miles.
+                Battery replacement is covered by the warranty for 8 years.""");
+        assertThat(context.included()).isEqualTo(2);
+        assertThat(context.duplicates()).isEqualTo(1);
+        assertThat(context.savedTokens()).isPositive();
+    }
+
+    @Test
+    void testRecentTurnsKeepsTheNewestTurnsWithinTheBudget() {
+        ContextBuilder builder = new ContextBuilder("gpt-4o", 2000, 0.9);
+        List<Message> turns = List.of(
+                new Message("USER", "Tell me everything about the Model S, Model 3, Model X and Model Y lineup."),
+                new Message("AGENT", "The lineup has four cars."),
+                new Message("USER", "Which is cheapest?"),
+                new Message("AGENT", "The Model 3."));
+
+        assertThat(builder.recentTurns(turns, 15)).extracting(Message::getContent)
+                .containsExactly("The lineup has four cars.", "Which is cheapest?", "The Model 3.");
+        assertThat(builder.recentTurns(turns, 0)).isEmpty();
+    }
+
+    @Test
+    void testPacksResultsThatFitTheTokenBudget() {
+        ContextBuilder builder = new ContextBuilder("gpt-4o", 20, 0.9);
+        String longChunk = "Supercharging speed depends on battery temperature and state of charge. ".repeat(3);
+
+        ContextBuilder.Context context = builder.build(List.of(
+                result("Model 3 has a range of up to 358 miles.", 0.9),
+                result(longChunk, 0.85),
+                result("Warranty covers 8 years.", 0.8)
+        ));
+
+        assertThat(context.text()).isEqualTo("Model 3 has a range of up to 358 miles.\nWarranty covers 8 years.");
+        assertThat(context.tokens()).isLessThanOrEqualTo(20);
+        assertThat(context.savedTokens()).isGreaterThan(30);
+    }
+
+    @Test
+    void testTruncatesTopResultWhenNothingFits() {
+        ContextBuilder builder = new ContextBuilder("gpt-4o", 5, 0.9);
+
+        ContextBuilder.Context context = builder.build(List.of(
+                result("Supercharging speed depends on battery temperature and state of charge.", 0.9)
+        ));
+
+        assertThat(context.tokens()).isEqualTo(5);
+        assertThat(context.text()).startsWith("Supercharging");
+        assertThat(context.included()).isEqualTo(1);
+    }
+
+    private static SearchResult result(String content, double score) {
+        SearchResult result = new SearchResult();
+        result.setContent(content);
+        result.setSearchScore(score);
+        return result;
+    }
+}
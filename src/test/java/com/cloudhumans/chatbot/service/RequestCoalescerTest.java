@@ -0,0 +1,126 @@
+package com.cloudhumans.chatbot.service;
+
+import com.cloudhumans.chatbot.deadline.Deadline;
+import com.cloudhumans.chatbot.exception.DeadlineExceededException;
+import com.cloudhumans.chatbot.model.llm.Message;
+import com.cloudhumans.chatbot.model.response.ConversationResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescer coalescer = new RequestCoalescer(meterRegistry);
+
+    @Test
+    void testConcurrentIdenticalRequestsShareOnePipelineExecution() throws Exception {
+        int callers = 8;
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ConversationResponse expected = response("Use the Supercharger network.");
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<ConversationResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            String message = i % 2 == 0 ? "How do I charge my Tesla?" : "  how do I charge my tesla? ";
+            futures.add(executor.submit(() -> coalescer.execute("tesla_motors", message, () -> {
+                executions.incrementAndGet();
+                await(release);
+                return expected;
+            })));
+        }
+
+        while (meterRegistry.get("chatbot.coalescing.requests").tag("role", "coalesced").counter().count() < callers - 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        for (Future<ConversationResponse> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isSameAs(expected);
+        }
+        executor.shutdown();
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("chatbot.coalescing.requests").tag("role", "leader").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testDifferentProjectsAreNotCoalesced() {
+        AtomicInteger executions = new AtomicInteger();
+
+        coalescer.execute("tesla_motors", "question", () -> {
+            coalescer.execute("other_project", "question", () -> {
+                executions.incrementAndGet();
+                return response("B");
+            });
+            executions.incrementAndGet();
+            return response("A");
+        });
+
+        assertThat(executions.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testFailureIsPropagatedAndKeyIsReleased() {
+        assertThatThrownBy(() -> coalescer.execute("tesla_motors", "question", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(coalescer.execute("tesla_motors", "question", () -> response("ok"))
+                .getMessages().get(1).getContent()).isEqualTo("ok");
+    }
+
+    @Test
+    void testFollowerWaitsOnlyUntilItsOwnDeadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<ConversationResponse> leader = executor.submit(() -> coalescer.execute("tesla_motors", "question", () -> {
+            await(release);
+            return response("slow");
+        }));
+        while (meterRegistry.get("chatbot.coalescing.in-flight").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+
+        long start = System.nanoTime();
+        try (Deadline.Scope scope = Deadline.bind(Deadline.after(Duration.ofMillis(100)))) {
+            assertThatThrownBy(() -> coalescer.execute("tesla_motors", "question", () -> response("follower")))
+                    .isInstanceOfSatisfying(DeadlineExceededException.class,
+                            e -> assertThat(e.getStage()).isEqualTo("coalescing"));
+        }
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS).getMessages().get(1).getContent()).isEqualTo("slow");
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ConversationResponse response(String answer) {
+        return new ConversationResponse(
+                List.of(new Message("USER", "question"), new Message("AGENT", answer)),
+                false,
+                List.of()
+        );
+    }
+}
@@ -0,0 +1,94 @@
+package com.cloudhumans.chatbot.tracing;
+
+import com.cloudhumans.chatbot.StubBackendServer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "cloudhumans.tracing.exporter=memory",
+        "management.tracing.sampling.probability=1.0"
+})
+class TracingIntegrationTest {
+
+    private static final StubBackendServer stub = startStub();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private InMemorySpanExporter spanExporter;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+
+    @DynamicPropertySource
+    static void backendProperties(DynamicPropertyRegistry registry) {
+        stub.applicationProperties().forEach((key, value) -> registry.add(key, () -> value));
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void testPipelineStagesAreChildSpansAndContextIsPropagated() {
+        ResponseEntity<String> response = restTemplate.postForEntity("/chat", Map.of(
+                "projectName", "tesla_motors",
+                "messages", List.of(Map.of("role", "USER", "content", "How long does the battery last?"))
+        ), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+        List<SpanData> spans = spanExporter.getFinishedSpans();
+
+        SpanData llm = span(spans, "llm");
+        String traceId = llm.getTraceId();
+        assertThat(span(spans, "embedding").getTraceId()).isEqualTo(traceId);
+        assertThat(span(spans, "search").getTraceId()).isEqualTo(traceId);
+        assertThat(spans).anyMatch(s -> s.getName().startsWith("http post") && s.getTraceId().equals(traceId)
+                && s.getParentSpanId().equals(llm.getSpanId()));
+        assertThat(llm.getAttributes().get(AttributeKey.stringKey("llm.model"))).isNotBlank();
+        assertThat(llm.getAttributes().get(AttributeKey.stringKey("llm.tokens.prompt"))).isEqualTo("120");
+        assertThat(span(spans, "search").getAttributes().get(AttributeKey.stringKey("search.results"))).isEqualTo("2");
+
+        assertThat(stub.lastHeader(StubBackendServer.CHAT_PATH, "traceparent")).contains(traceId);
+        assertThat(stub.lastHeader(StubBackendServer.SEARCH_PATH, "traceparent")).contains(traceId);
+    }
+
+    private static SpanData span(List<SpanData> spans, String name) {
+        return spans.stream()
+                .filter(s -> s.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("span " + name + " não encontrado em " + spans));
+    }
+
+    private static StubBackendServer startStub() {
+        try {
+            return new StubBackendServer(8).start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}